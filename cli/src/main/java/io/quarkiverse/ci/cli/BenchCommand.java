@@ -0,0 +1,235 @@
+package io.quarkiverse.ci.cli;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import io.quarkiverse.ci.cli.common.BaseRunCommand;
+import io.quarkiverse.ci.cli.common.BenchHistory;
+import io.quarkiverse.ci.cli.common.BenchHistory.Sample;
+import io.quarkiverse.ci.cli.common.Git;
+import io.quarkiverse.ci.cli.common.Timeline;
+import io.quarkiverse.ci.cli.github.GithubRunWorkflowCommand;
+import io.quarkiverse.ci.cli.gitlab.GitlabRunPipelineCommand;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "bench", sortOptions = false, mixinStandardHelpOptions = false, header = "Run a workflow or pipeline repeatedly and report its timings.", headerHeading = "%n", commandListHeading = "%nCommands:%n", synopsisHeading = "%nUsage: ", optionListHeading = "%nOptions:%n", footer = "%nThe options and arguments of run-workflow or run-pipeline follow --, as in: ci bench github --runs 5 -- --quiet -- -j build")
+public class BenchCommand implements Callable<Integer> {
+
+    /**
+     * The smallest increase of a duration that is reported as a regression, below which the difference is noise.
+     */
+    private static final long MIN_REGRESSION_MILLIS = 1000;
+
+    private static final String TOTAL = "total";
+
+    @Parameters(index = "0", paramLabel = "RUNNER", description = "The runner to benchmark: github (run-workflow) or gitlab (run-pipeline).")
+    String runner;
+
+    @Parameters(index = "1..*", arity = "0..*", paramLabel = "RUN_ARGS", description = "Options and arguments of run-workflow or run-pipeline.")
+    List<String> runArgs = new ArrayList<>();
+
+    @Option(names = {
+            "--runs" }, paramLabel = "N", defaultValue = "5", description = "Number of measured runs (default: ${DEFAULT-VALUE}).")
+    public int runs = 5;
+
+    @Option(names = {
+            "--warmup" }, paramLabel = "N", defaultValue = "1", description = "Number of runs before the measured runs, whose timings are not recorded (default: ${DEFAULT-VALUE}).")
+    public int warmup = 1;
+
+    @Option(names = {
+            "--cold" }, description = "Run with empty Maven and Gradle caches, and without the cache server of act, as on a fresh CI runner.")
+    public boolean cold = false;
+
+    @Option(names = {
+            "--baseline" }, paramLabel = "COMMIT", description = "The commit to compare with (default: the last other commit benchmarked with the same runner and arguments).")
+    public String baseline;
+
+    @Option(names = {
+            "--threshold" }, paramLabel = "PERCENT", defaultValue = "10", description = "Increase of the median duration over the baseline reported as a regression (default: ${DEFAULT-VALUE}).")
+    public int threshold = 10;
+
+    @Option(names = { "-h", "--help" }, usageHelp = true, description = "Display this help message.")
+    public boolean help;
+
+    @Override
+    public Integer call() throws Exception {
+        Supplier<BaseRunCommand> command = switch (runner) {
+            case "github" -> GithubRunWorkflowCommand::new;
+            case "gitlab" -> GitlabRunPipelineCommand::new;
+            default -> null;
+        };
+        if (command == null) {
+            System.err.println("Unknown runner: " + runner + ", expected github or gitlab.");
+            return ExitCode.USAGE;
+        }
+        Path projectRoot = findProjectRoot();
+        String commit = Git.getCommit(projectRoot).orElse("unknown");
+        String variant = runner + " " + (cold ? "cold" : "warm") + (runArgs.isEmpty() ? "" : " " + String.join(" ", runArgs));
+
+        for (int i = 1; i <= warmup; i++) {
+            System.out.println("Warm-up run " + i + "/" + warmup + "...");
+            int exitCode = run(command.get(), new LinkedHashMap<>());
+            if (exitCode != ExitCode.OK) {
+                System.err.println("Warm-up run failed with exit code " + exitCode + ".");
+                return exitCode;
+            }
+        }
+
+        String recorded = Instant.now().toString();
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 1; i <= runs; i++) {
+            System.out.println("Run " + i + "/" + runs + "...");
+            Map<String, Long> durations = new LinkedHashMap<>();
+            int exitCode = run(command.get(), durations);
+            if (exitCode != ExitCode.OK) {
+                // the timings of a failed run are not comparable, and neither are those of a partial benchmark
+                System.err.println("Run failed with exit code " + exitCode + ", the timings are not recorded.");
+                return exitCode;
+            }
+            int index = i;
+            durations.forEach((key, millis) -> samples.add(new Sample(commit, variant, recorded, index, key, millis)));
+        }
+        BenchHistory.append(projectRoot, samples);
+        System.out.println("Timings of " + commit + " saved to " + BenchHistory.getFile(projectRoot));
+
+        List<Sample> history = BenchHistory.read(projectRoot);
+        Optional<String> baselineCommit = getBaselineCommit(projectRoot, history, commit, variant);
+        if (baseline != null && baselineCommit.isEmpty()) {
+            System.err.println("No timings of " + baseline + " with the same runner and arguments to compare with.");
+        }
+        Map<String, List<Long>> baselineDurations = baselineCommit
+                .map(baselineKey -> getDurations(history, baselineKey, variant))
+                .orElse(Map.of());
+        return printReport(getDurations(samples, commit, variant), baselineCommit.orElse(null), baselineDurations);
+    }
+
+    /**
+     * Run the runner once, and collect the wall time of the run and the durations of its jobs and steps.
+     */
+    private int run(BaseRunCommand command, Map<String, Long> durations) {
+        try {
+            new CommandLine(command).parseArgs(runArgs.toArray(String[]::new));
+        } catch (CommandLine.ParameterException e) {
+            System.err.println(e.getMessage());
+            return ExitCode.USAGE;
+        }
+        if (cold) {
+            command.useColdCaches();
+        }
+        long start = System.nanoTime();
+        int exitCode;
+        try {
+            exitCode = (Integer) ((Callable<?>) command).call();
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            return ExitCode.SOFTWARE;
+        }
+        durations.put(TOTAL, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        for (Timeline timeline : command.getTimelines()) {
+            for (Timeline.Span span : timeline.getSpans()) {
+                String key = switch (span.category()) {
+                    case "job" -> "job " + span.job();
+                    case "step" -> "step " + span.job() + ": " + span.name();
+                    default -> null;
+                };
+                if (key != null) {
+                    // a command run twice in a job counts once, with the durations of both
+                    durations.merge(key, span.duration(), Long::sum);
+                }
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Get the commit to compare with: the given one, or the last other commit benchmarked with the same variant.
+     */
+    private Optional<String> getBaselineCommit(Path projectRoot, List<Sample> history, String commit, String variant) {
+        if (baseline != null) {
+            String resolved = Git.run(projectRoot, "rev-parse", baseline).orElse(baseline);
+            return history.stream()
+                    .filter(sample -> sample.variant().equals(variant))
+                    .map(Sample::commit)
+                    .filter(candidate -> candidate.equals(resolved) || candidate.equals(baseline))
+                    .reduce((first, last) -> last);
+        }
+        return history.stream()
+                .filter(sample -> sample.variant().equals(variant) && !sample.commit().equals(commit))
+                .map(Sample::commit)
+                .reduce((first, last) -> last);
+    }
+
+    /**
+     * Get the durations of each key recorded for a commit, in the order of the keys of its first run.
+     */
+    private static Map<String, List<Long>> getDurations(List<Sample> samples, String commit, String variant) {
+        Map<String, List<Long>> durations = new LinkedHashMap<>();
+        samples.stream()
+                .filter(sample -> sample.commit().equals(commit) && sample.variant().equals(variant))
+                .forEach(sample -> durations.computeIfAbsent(sample.key(), key -> new ArrayList<>()).add(sample.millis()));
+        return durations;
+    }
+
+    private int printReport(Map<String, List<Long>> durations, String baselineCommit,
+            Map<String, List<Long>> baselineDurations) {
+        int width = durations.keySet().stream().mapToInt(String::length).max().orElse(0);
+        System.out.println();
+        System.out.printf("%-" + width + "s  %8s  %8s%s%n", "", "p50", "p95",
+                baselineCommit == null ? "" : "  baseline p50 (" + abbreviate(baselineCommit) + ")");
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> entry : durations.entrySet()) {
+            long p50 = BenchHistory.percentile(entry.getValue(), 50);
+            long p95 = BenchHistory.percentile(entry.getValue(), 95);
+            String comparison = "";
+            List<Long> before = baselineDurations.get(entry.getKey());
+            if (before != null) {
+                long baselineP50 = BenchHistory.percentile(before, 50);
+                double change = baselineP50 == 0 ? 0 : (p50 - baselineP50) * 100.0 / baselineP50;
+                comparison = String.format("  %8s  %+6.1f%%", seconds(baselineP50), change);
+                if (change > threshold && p50 - baselineP50 >= MIN_REGRESSION_MILLIS) {
+                    regressions.add(entry.getKey());
+                    comparison += "  REGRESSION";
+                }
+            }
+            System.out.printf("%-" + width + "s  %8s  %8s%s%n", entry.getKey(), seconds(p50), seconds(p95), comparison);
+        }
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println(regressions.size() + " regression(s) of more than " + threshold + "% over "
+                    + abbreviate(baselineCommit) + ".");
+            return ExitCode.SOFTWARE;
+        }
+        return ExitCode.OK;
+    }
+
+    private static String seconds(long millis) {
+        return String.format("%.1fs", millis / 1000.0);
+    }
+
+    private static String abbreviate(String commit) {
+        return commit.length() > 12 ? commit.substring(0, 12) + (commit.endsWith("-dirty") ? "-dirty" : "") : commit;
+    }
+
+    private Path findProjectRoot() {
+        Path current = BaseRunCommand.getWorkingDirectory();
+        while (current != null && !current.getRoot().equals(current)) {
+            if (current.resolve(".git").toFile().exists()) {
+                return current;
+            }
+            current = current.getParent();
+        }
+        throw new RuntimeException("Could not find project root (.git directory not found)");
+    }
+}
@@ -13,6 +13,7 @@ import picocli.CommandLine.Spec;
 @Command(name = "ci", header = "CI CLI", subcommands = {
         GithubCommand.class,
         GitlabCommand.class,
+        BenchCommand.class,
 })
 public class CiCommand implements Callable<Integer> {
 
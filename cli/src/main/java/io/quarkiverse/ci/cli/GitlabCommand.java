@@ -2,6 +2,7 @@ package io.quarkiverse.ci.cli;
 
 import java.util.concurrent.Callable;
 
+import io.quarkiverse.ci.cli.gitlab.GitlabGenerateImageCommand;
 import io.quarkiverse.ci.cli.gitlab.GitlabGeneratePipelineCommand;
 import io.quarkiverse.ci.cli.gitlab.GitlabRunPipelineCommand;
 import picocli.CommandLine;
@@ -12,6 +13,7 @@ import picocli.CommandLine.Spec;
 
 @Command(name = "gitlab", header = "GitLab CLI", subcommands = {
         GitlabGeneratePipelineCommand.class,
+        GitlabGenerateImageCommand.class,
         GitlabRunPipelineCommand.class,
 })
 public class GitlabCommand implements Callable<Integer> {
@@ -1,23 +1,43 @@
 package io.quarkiverse.ci.cli.common;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.AttachContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.command.InspectContainerResponse.ContainerState;
+import com.github.dockerjava.api.command.PullImageResultCallback;
 import com.github.dockerjava.api.exception.DockerException;
 import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.AccessMode;
 import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HealthCheck;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.command.LogContainerResultCallback;
-import com.github.dockerjava.core.command.WaitContainerResultCallback;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 
 import picocli.CommandLine.ExitCode;
@@ -25,64 +45,668 @@ import picocli.CommandLine.Option;
 
 public abstract class BaseRunCommand {
 
+    private static final String WORKSPACE_LABEL = "io.quarkiverse.ci.workspace";
+
+    /**
+     * The directory of the native runs, with the home directory of their jobs that holds the Maven and Gradle caches.
+     */
+    private static final Path NATIVE_CACHES = Paths.get(System.getProperty("user.home"), ".quarkus-ci", "native");
+
+    /**
+     * The main process of a warm runner, that exits once no run has been in progress for the given number of seconds,
+     * so that the container removes itself. A run records its process, that the entrypoint replaces with the runner.
+     */
+    private static final String IDLE_SCRIPT = """
+            touch /tmp/last-run
+            while true; do
+                if [ -f /tmp/running ] && kill -0 "$(cat /tmp/running)" 2> /dev/null; then
+                    touch /tmp/last-run
+                fi
+                if [ $(( $(date +%s) - $(stat -c %Y /tmp/last-run) )) -ge "$1" ]; then
+                    exit 0
+                fi
+                sleep 10
+            done
+            """;
+
+    /**
+     * A run of a warm runner, that refuses to start while another run is in progress as they share the workspace.
+     */
+    private static final String RUN_SCRIPT = """
+            if [ -f /tmp/running ] && kill -0 "$(cat /tmp/running)" 2> /dev/null; then
+                echo "Another run is in progress in this runner container." >&2
+                exit 125
+            fi
+            echo $$ > /tmp/running
+            exec /usr/local/bin/entrypoint.sh "$@"
+            """;
+
     @Option(names = { "--use-docker" }, description = "Force using Docker even if gitlab-ci-local binary is available in PATH.")
     public boolean forceDocker = false;
 
+    @Option(names = { "--no-pull" }, description = "Do not pull the images of the jobs before running them.")
+    public boolean noPull = false;
+
+    @Option(names = {
+            "--pull-parallelism" }, defaultValue = "4", description = "Number of images pulled concurrently before running the jobs (default: ${DEFAULT-VALUE}).")
+    public int pullParallelism = 4;
+
+    @Option(names = {
+            "--tmpfs-workspace" }, description = "Copy the project into memory on every run instead of syncing it into a persistent volume of the project.")
+    public boolean tmpfsWorkspace = false;
+
+    @Option(names = {
+            "--include" }, paramLabel = "PATH", description = "Untracked or ignored path to copy into the workspace along with the files tracked by git.")
+    public List<String> includes = new ArrayList<>();
+
+    @Option(names = {
+            "--reuse-runner" }, description = "Run in a runner container kept for the project between runs instead of a new container for every run.")
+    public boolean reuseRunner = false;
+
+    @Option(names = {
+            "--idle-timeout" }, paramLabel = "MINUTES", defaultValue = "30", description = "Minutes after its last run a reused runner container is removed (default: ${DEFAULT-VALUE}).")
+    public int idleTimeout = 30;
+
+    @Option(names = { "--stop-runner" }, description = "Remove the runner container kept for the project and exit.")
+    public boolean stopRunner = false;
+
+    @Option(names = {
+            "--no-cache-volumes" }, description = "Do not mount the Maven and Gradle cache volumes in the job containers.")
+    public boolean noCacheVolumes = false;
+
+    @Option(names = {
+            "--host-caches" }, description = "Start the Maven and Gradle cache volumes from the caches of the host, mounted read-only under a writable layer.")
+    public boolean hostCaches = false;
+
+    @Option(names = {
+            "--parallel" }, paramLabel = "N", defaultValue = "1", description = "Run the jobs or workflows as separate runner invocations, N at a time, with prefixed output (default: ${DEFAULT-VALUE}, a single invocation).")
+    public int parallel = 1;
+
+    @Option(names = {
+            "--quiet" }, description = "Only show the start and end of the jobs and steps, and the failures. The whole output is still saved to the log file of the run.")
+    public boolean quiet = false;
+
+    @Option(names = {
+            "--trace" }, description = "Also write the timeline of the run in the trace event format, that trace viewers such as Perfetto open.")
+    public boolean trace = false;
+
+    @Option(names = {
+            "--slowest" }, paramLabel = "N", defaultValue = "5", description = "Number of the slowest steps printed after the run, 0 for none (default: ${DEFAULT-VALUE}).")
+    public int slowest = 5;
+
+    @Option(names = {
+            "--native" }, description = "Run the steps of the jobs on the host with a local JDK instead of in containers, one job after the other. A workflow or pipeline that uses anything else than the generated subset runs with the runner instead.")
+    public boolean nativeRun = false;
+
+    @Option(names = { "--cache-usage" }, description = "Print the size of the workspace and cache volumes and exit.")
+    public boolean cacheUsage = false;
+
+    @Option(names = { "--prune-caches" }, description = "Remove the workspace and cache volumes and exit.")
+    public boolean pruneCaches = false;
+
+    private final List<Timeline> timelines = new CopyOnWriteArrayList<>();
+
     public abstract String getContainerName();
 
     public abstract String getContainerImage();
 
-    protected Integer runInDocker(Path projectRoot, List<String> command) {
+    /**
+     * Get the additional host directories and volumes the runner container mounts.
+     *
+     * @return the binds
+     */
+    protected List<Bind> getRunnerBinds() {
+        return List.of();
+    }
+
+    /**
+     * Get the stream the output of the runner container is written to.
+     *
+     * @return the stream
+     */
+    protected PrintStream getRunnerOutput() {
+        return System.out;
+    }
+
+    /**
+     * Get the jobs or workflows that {@code --parallel} runs as separate runner invocations.
+     *
+     * @param projectRoot the root of the project
+     * @return the names of the runs
+     */
+    protected abstract List<String> getParallelRuns(Path projectRoot);
+
+    /**
+     * Get the runs each of the runs of {@code --parallel} needs to be over before it starts.
+     *
+     * @param projectRoot the root of the project
+     * @return the names of the runs each run needs, none by default
+     */
+    protected Map<String, Set<String>> getParallelNeeds(Path projectRoot) {
+        return Map.of();
+    }
+
+    /**
+     * Run a job or workflow as a runner invocation of its own.
+     *
+     * @param projectRoot the root of the project
+     * @param name the name of the run
+     * @param output the stream to write the output of the run to
+     * @return the exit code
+     */
+    protected abstract Integer runParallel(Path projectRoot, String name, PrintStream output);
+
+    /**
+     * Run the jobs or workflows of {@link #getParallelRuns(Path)} concurrently, {@code --parallel} at a time, each once
+     * the runs of {@link #getParallelNeeds(Path)} it needs are over.
+     *
+     * @param projectRoot the root of the project
+     * @return the exit code, that of the first failed run if any
+     * @throws InterruptedException if interrupted while waiting for the runs
+     */
+    protected Integer runInParallel(Path projectRoot) throws InterruptedException {
+        List<String> runs = getParallelRuns(projectRoot);
+        if (runs.isEmpty()) {
+            System.err.println("No jobs to run.");
+            return ExitCode.USAGE;
+        }
+        System.out.println("Running " + runs.size() + " job(s), " + Math.min(parallel, runs.size()) + " at a time...");
+        return ParallelRuns.run(runs, getParallelNeeds(projectRoot), parallel, getRunnerOutput(),
+                (name, output) -> runParallel(projectRoot, name, output));
+    }
+
+    /**
+     * Run a runner from the PATH, writing its output, along with its errors, to the given stream.
+     *
+     * @param projectRoot the root of the project
+     * @param command the command
+     * @param run the name of a run of {@code --parallel}, that is not attached to the standard input, or {@code null}
+     *        for a single run
+     * @param output the stream to write the output to
+     * @return the exit code
+     */
+    protected Integer runProcess(Path projectRoot, List<String> command, String run, PrintStream output) {
+        try (LogPipeline log = openLog(run, output)) {
+            Process process = new ProcessBuilder(command)
+                    .directory(projectRoot.toFile())
+                    .redirectInput(run == null ? ProcessBuilder.Redirect.INHERIT : ProcessBuilder.Redirect.PIPE)
+                    .redirectErrorStream(true)
+                    .start();
+            process.getInputStream().transferTo(log);
+            return process.waitFor();
+        } catch (IOException e) {
+            output.println("Error: " + e.getMessage());
+            return ExitCode.SOFTWARE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExitCode.SOFTWARE;
+        }
+    }
+
+    /**
+     * Get the pattern of the lines of the runner output that mark the start and end of the jobs and steps, the only lines
+     * shown with {@code --quiet} along with the failures.
+     *
+     * @return the pattern
+     */
+    protected abstract Pattern getStepPattern();
+
+    /**
+     * Get the parser that builds the timeline of a run from the output of the runner.
+     *
+     * @return the parser
+     */
+    protected abstract Timeline.Parser getTimelineParser();
+
+    /**
+     * Get the timelines of the runs that are over, one per runner invocation.
+     *
+     * @return the timelines
+     */
+    public List<Timeline> getTimelines() {
+        return List.copyOf(timelines);
+    }
+
+    /**
+     * Make the runs start from empty caches, as on a fresh CI runner, without removing the cache volumes.
+     */
+    public void useColdCaches() {
+        noCacheVolumes = true;
+    }
+
+    /**
+     * Get the jobs of the workflows or pipeline to run with {@code --native}, translated to steps run on the host.
+     *
+     * @param projectRoot the root of the project
+     * @return the jobs, in the order they run
+     * @throws IllegalArgumentException if the workflows or pipeline use something the native executor does not support
+     * @throws IOException if the workflows or pipeline cannot be read
+     */
+    protected abstract List<NativeExecutor.Job> getNativeJobs(Path projectRoot) throws IOException;
+
+    /**
+     * Run the jobs on the host with {@link NativeExecutor}, if the workflows or pipeline only use what it supports.
+     *
+     * @param projectRoot the root of the project
+     * @return the exit code, or empty if the jobs are to run with the runner instead
+     */
+    protected Optional<Integer> runNatively(Path projectRoot) {
+        List<NativeExecutor.Job> jobs;
+        try {
+            jobs = getNativeJobs(projectRoot);
+        } catch (IllegalArgumentException | IOException e) {
+            System.out.println("Cannot run natively, " + e.getMessage() + ", falling back to the runner.");
+            return Optional.empty();
+        }
+        if (jobs.isEmpty()) {
+            System.err.println("No jobs to run.");
+            return Optional.of(ExitCode.USAGE);
+        }
+        System.out.println("Running " + jobs.size() + " job(s) natively...");
+        Path caches = NATIVE_CACHES;
+        try {
+            if (noCacheVolumes) {
+                caches = Files.createTempDirectory("quarkus-ci-native-caches-");
+            }
+            Map<String, String> cacheEnv = getNativeCacheEnv(caches);
+            Files.createDirectories(Paths.get(cacheEnv.get("HOME")));
+            try (LogPipeline log = openLog(null, getRunnerOutput(), new NativeExecutor.TimelineParser(),
+                    NativeExecutor.STEPS)) {
+                PrintStream output = new PrintStream(log, true, StandardCharsets.UTF_8);
+                return Optional.of(new NativeExecutor(projectRoot, cacheEnv, output).run(jobs));
+            }
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return Optional.of(ExitCode.SOFTWARE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.of(ExitCode.SOFTWARE);
+        } finally {
+            if (caches != NATIVE_CACHES) {
+                try {
+                    Directories.delete(caches);
+                } catch (IOException e) {
+                    System.err.println("Could not remove " + caches + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the environment variables that point the jobs to a home directory of the native runs, and Maven and Gradle to
+     * the caches in it, whatever caches the workflows or pipeline configure for their runners, so that the steps that
+     * write to the home directory do not change the configuration of the host. With {@code --host-caches}, the jobs
+     * use the home directory and caches of the host instead.
+     */
+    private Map<String, String> getNativeCacheEnv(Path caches) {
+        Path home = hostCaches ? Paths.get(System.getProperty("user.home")) : caches.resolve("home");
+        return Map.of("HOME", home.toString(),
+                "MAVEN_OPTS", "-Dmaven.repo.local=" + home.resolve(".m2").resolve("repository"),
+                "GRADLE_USER_HOME", home.resolve(".gradle").toString());
+    }
+
+    private LogPipeline openLog(String run, PrintStream output) throws IOException {
+        return openLog(run, output, getTimelineParser(), getStepPattern());
+    }
+
+    /**
+     * Open the pipeline the output of a run goes through, that records the timeline of the run, and reports where the
+     * output and the timeline are saved once closed.
+     */
+    private LogPipeline openLog(String run, PrintStream output, Timeline.Parser parser, Pattern stepPattern)
+            throws IOException {
+        String name = getContainerName() + (run == null ? "" : "-" + run);
+        Timeline timeline = new Timeline(name, parser);
+        return new LogPipeline(output, name, quiet ? stepPattern : null, timeline::line) {
+            @Override
+            public void close() {
+                super.close();
+                timeline.finish();
+                timelines.add(timeline);
+                String file = getLogFile().getFileName().toString().replaceFirst("\\.log\\.gz$", "");
+                try {
+                    Path timelineFile = getLogFile().resolveSibling(file + ".timeline.json");
+                    timeline.writeJson(timelineFile);
+                    if (trace) {
+                        Path traceFile = getLogFile().resolveSibling(file + ".trace.json");
+                        timeline.writeTrace(traceFile);
+                        output.println("Trace saved to " + traceFile);
+                    }
+                } catch (IOException e) {
+                    output.println("Could not write the timeline: " + e.getMessage());
+                }
+                timeline.printSlowest(output, slowest);
+                output.println("Log saved to " + getLogFile());
+            }
+        };
+    }
+
+    /**
+     * Get the images the jobs will run in, so that they can be pulled before the runner starts.
+     *
+     * @param projectRoot the root of the project
+     * @return the image references
+     */
+    public abstract Collection<String> getJobImages(Path projectRoot);
+
+    /**
+     * Pull the images of the jobs concurrently, before the runner pulls them one at a time as the jobs start.
+     * The runner uses the Docker daemon of the host, whether it is run from the PATH or in a container that mounts the
+     * Docker socket, so the images are pulled into the store of that daemon. Images already present are not pulled
+     * again, and an image that fails to pull is left to the runner, that reports the error of the job.
+     *
+     * @param projectRoot the root of the project
+     */
+    protected void pullJobImages(Path projectRoot) {
+        if (noPull) {
+            return;
+        }
+        List<String> images = getJobImages(projectRoot).stream().map(WorkflowImages::pullReference).distinct().toList();
+        if (images.isEmpty()) {
+            return;
+        }
         try (DockerClient dockerClient = createDockerClient()) {
             dockerClient.pingCmd().exec();
+            List<String> missing = images.stream().filter(image -> !isPresent(dockerClient, image)).toList();
+            if (missing.isEmpty()) {
+                return;
+            }
+            int parallelism = Math.max(1, Math.min(pullParallelism, missing.size()));
+            System.out.println("Pulling " + missing.size() + " image(s), " + parallelism + " at a time...");
+            AtomicInteger pulled = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                for (String image : missing) {
+                    executor.execute(() -> {
+                        long start = System.nanoTime();
+                        System.out.println("Pulling " + image);
+                        try {
+                            dockerClient.pullImageCmd(image).exec(new PullImageResultCallback()).awaitCompletion();
+                            System.out.printf("Pulled %s in %ds (%d/%d)%n", image,
+                                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), pulled.incrementAndGet(),
+                                    missing.size());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } catch (Exception e) {
+                            System.err.println("Failed to pull " + image + ": " + e.getMessage());
+                        }
+                    });
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(1, TimeUnit.HOURS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Skipping the pull of the job images: " + e.getMessage());
+        }
+    }
 
-            removeExistingContainer(dockerClient, getContainerName());
+    private static boolean isPresent(DockerClient dockerClient, String image) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
 
-            Volume workspace = new Volume("/input");
-            Volume dockerSock = new Volume("/var/run/docker.sock");
+    protected Integer runInDocker(Path projectRoot, List<String> command) {
+        return runInDocker(projectRoot, command, null, getRunnerOutput());
+    }
 
-            CreateContainerCmd createCmd = dockerClient.createContainerCmd(getContainerImage())
-                    .withName(getContainerName())
+    /**
+     * Run a command in a runner container.
+     *
+     * @param projectRoot the root of the project
+     * @param command the command
+     * @param run the name of a run of {@code --parallel}, that gets a container and workspace of its own and is not
+     *        attached to the standard input, or {@code null} for a single run
+     * @param output the stream to write the output of the container to
+     * @return the exit code
+     */
+    protected Integer runInDocker(Path projectRoot, List<String> command, String run, PrintStream output) {
+        Path fileList = null;
+        try (DockerClient dockerClient = createDockerClient(); LogPipeline log = openLog(run, output)) {
+            dockerClient.pingCmd().exec();
+
+            Optional<List<String>> files = WorkspaceSync.listFiles(projectRoot, includes);
+            if (files.isEmpty()) {
+                output.println("Could not list the files of the project with git, copying the whole project.");
+            } else if (reuseRunner && run == null) {
+                WorkspaceSync.writeFileList(files.get(), getRunnerFileList(projectRoot));
+                return runInWarmRunner(dockerClient, projectRoot, command, log);
+            }
+
+            String suffix = run == null ? "" : "-" + run.replaceAll("[^a-zA-Z0-9_.-]", "_");
+            String containerName = getContainerName() + suffix;
+            removeExistingContainer(dockerClient, containerName);
+            if (files.isPresent()) {
+                fileList = WorkspaceSync.writeFileList(files.get());
+            }
+            CreateContainerCmd createCmd = createRunnerCmd(dockerClient, projectRoot, fileList,
+                    WorkspaceSync.getVolumeName(projectRoot) + suffix)
+                    .withName(containerName)
                     .withCmd(command)
-                    .withWorkingDir("/workspace")
-                    .withTty(true)
-                    .withStdinOpen(true)
-                    .withAttachStdin(true)
+                    .withTty(run == null)
+                    .withStdinOpen(run == null)
+                    .withAttachStdin(run == null)
                     .withAttachStdout(true)
-                    .withAttachStderr(true)
-                    .withHostConfig(HostConfig.newHostConfig()
-                            .withPrivileged(true)
-                            .withUsernsMode("host")
-                            .withAutoRemove(true)
-                            .withTmpFs(Map.of("/workspace", "rw"))
-                            .withBinds(
-                                    new Bind("/var/run/docker.sock", dockerSock),
-                                    new Bind(projectRoot.toString(), workspace)));
+                    .withAttachStderr(true);
 
             String containerId = createCmd.exec().getId();
 
             dockerClient.startContainerCmd(containerId).exec();
-            dockerClient.attachContainerCmd(containerId)
-                    .withStdIn(System.in)
+            AttachContainerCmd attachCmd = dockerClient.attachContainerCmd(containerId);
+            if (run == null) {
+                attachCmd.withStdIn(System.in);
+            }
+            attachCmd
                     .withStdOut(true)
                     .withStdErr(true)
                     .withFollowStream(true)
                     .withLogs(true)
-                    .exec(new LogContainerResultCallback() {
+                    .exec(new ResultCallback.Adapter<Frame>() {
                         @Override
                         public void onNext(Frame item) {
-                            System.out.write(item.getPayload(), 0, item.getPayload().length);
-                            System.out.flush();
+                            log.write(item.getPayload(), 0, item.getPayload().length);
                         }
                     });
 
-            return dockerClient.waitContainerCmd(containerId).exec(new WaitContainerResultCallback()).awaitStatusCode();
+            return dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
+        } catch (Exception e) {
+            output.println("Docker error: " + e.getMessage());
+            return ExitCode.SOFTWARE;
+        } finally {
+            if (fileList != null) {
+                try {
+                    Files.deleteIfExists(fileList);
+                } catch (IOException e) {
+                    // the file is in the temporary directory
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the command that creates a runner container, that syncs the listed files of the project into its workspace
+     * and removes itself once stopped.
+     */
+    private CreateContainerCmd createRunnerCmd(DockerClient dockerClient, Path projectRoot, Path fileList,
+            String volumeName) {
+        List<Bind> binds = new ArrayList<>();
+        binds.add(new Bind("/var/run/docker.sock", new Volume("/var/run/docker.sock")));
+        binds.add(new Bind(projectRoot.toString(), new Volume(WorkspaceSync.INPUT), AccessMode.ro));
+        binds.addAll(getRunnerBinds());
+        if (fileList != null) {
+            binds.add(new Bind(fileList.toString(), new Volume(WorkspaceSync.INPUT_FILES), AccessMode.ro));
+            // the runners read the commit and remotes of the project, but the git objects are not copied
+            Path git = projectRoot.resolve(".git");
+            if (Files.isDirectory(git)) {
+                binds.add(new Bind(git.toString(), new Volume(WorkspaceSync.WORKSPACE + "/.git"), AccessMode.ro));
+            }
+        }
+        HostConfig hostConfig = HostConfig.newHostConfig()
+                .withPrivileged(true)
+                .withUsernsMode("host")
+                .withAutoRemove(true);
+        if (tmpfsWorkspace) {
+            hostConfig.withTmpFs(Map.of(WorkspaceSync.SYNC, "rw"));
+        } else {
+            binds.add(new Bind(volumeName, new Volume(WorkspaceSync.SYNC)));
+        }
+        hostConfig.withBinds(binds);
+
+        return dockerClient.createContainerCmd(getContainerImage())
+                .withWorkingDir(WorkspaceSync.WORKSPACE)
+                .withHostConfig(hostConfig);
+    }
+
+    /**
+     * Run a command in the warm runner of the project, started if there is none, or if it is unhealthy or out of date.
+     */
+    private Integer runInWarmRunner(DockerClient dockerClient, Path projectRoot, List<String> command, LogPipeline log)
+            throws InterruptedException {
+        String containerId = findWarmRunner(dockerClient, projectRoot)
+                .orElseGet(() -> startWarmRunner(dockerClient, projectRoot));
+
+        List<String> execCommand = new ArrayList<>(List.of("/bin/sh", "-c", RUN_SCRIPT, "run"));
+        execCommand.addAll(command);
+        String execId = dockerClient.execCreateCmd(containerId)
+                .withCmd(execCommand.toArray(String[]::new))
+                .withWorkingDir(WorkspaceSync.WORKSPACE)
+                .withTty(true)
+                .withAttachStdin(true)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .exec()
+                .getId();
+        dockerClient.execStartCmd(execId)
+                .withTty(true)
+                .withStdIn(System.in)
+                .exec(new ResultCallback.Adapter<Frame>() {
+                    @Override
+                    public void onNext(Frame item) {
+                        log.write(item.getPayload(), 0, item.getPayload().length);
+                    }
+                })
+                .awaitCompletion();
+        Long exitCode = dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
+        return exitCode == null ? ExitCode.SOFTWARE : exitCode.intValue();
+    }
+
+    private Optional<String> findWarmRunner(DockerClient dockerClient, Path projectRoot) {
+        String name = getWarmRunnerName(projectRoot);
+        InspectContainerResponse container;
+        try {
+            container = dockerClient.inspectContainerCmd(name).exec();
+        } catch (NotFoundException e) {
+            return Optional.empty();
+        }
+        ContainerState state = container.getState();
+        String health = state.getHealth() == null ? null : state.getHealth().getStatus();
+        String imageId = dockerClient.inspectImageCmd(getContainerImage()).exec().getId();
+        if (Boolean.TRUE.equals(state.getRunning()) && !"unhealthy".equals(health)
+                && imageId.equals(container.getImageId())
+                && getWorkspaceMode().equals(container.getConfig().getLabels().get(WORKSPACE_LABEL))) {
+            return Optional.of(container.getId());
+        }
+        System.out.println("Replacing the runner container " + name + ", that is "
+                + ("unhealthy".equals(health) ? "unhealthy" : "out of date") + ".");
+        removeExistingContainer(dockerClient, name);
+        return Optional.empty();
+    }
+
+    private String startWarmRunner(DockerClient dockerClient, Path projectRoot) {
+        String name = getWarmRunnerName(projectRoot);
+        System.out.println("Starting the runner container " + name + ", kept for " + idleTimeout
+                + " minute(s) after the last run.");
+        HealthCheck healthCheck = new HealthCheck()
+                .withTest(List.of("CMD-SHELL", "docker version > /dev/null && test -d " + WorkspaceSync.SYNC))
+                .withInterval(Duration.ofSeconds(30).toNanos())
+                .withTimeout(Duration.ofSeconds(10).toNanos())
+                .withRetries(3);
+        String containerId = createRunnerCmd(dockerClient, projectRoot, getRunnerFileList(projectRoot),
+                WorkspaceSync.getVolumeName(projectRoot))
+                .withName(name)
+                .withEntrypoint("/bin/sh", "-c", IDLE_SCRIPT, "idle", String.valueOf(idleTimeout * 60))
+                .withLabels(Map.of(WORKSPACE_LABEL, getWorkspaceMode()))
+                .withHealthcheck(healthCheck)
+                .exec()
+                .getId();
+        dockerClient.startContainerCmd(containerId).exec();
+        return containerId;
+    }
+
+    /**
+     * Get the cache volumes to mount in the job containers, created if missing.
+     *
+     * @return the mount point of each volume, by volume name, empty if the caches are disabled or Docker is not available
+     */
+    protected Map<String, String> getCacheMounts() {
+        if (noCacheVolumes) {
+            return Map.of();
+        }
+        try (DockerClient dockerClient = createDockerClient()) {
+            return RunnerCaches.getJobMounts(dockerClient, hostCaches);
+        } catch (Exception e) {
+            System.err.println("Running without cache volumes: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Print the size of the cache volumes, or remove them, as requested by the options.
+     *
+     * @return the exit code
+     */
+    protected Integer manageCaches() {
+        try (DockerClient dockerClient = createDockerClient()) {
+            if (pruneCaches) {
+                RunnerCaches.prune(dockerClient);
+            } else {
+                RunnerCaches.printUsage(dockerClient);
+            }
+            return ExitCode.OK;
+        } catch (Exception e) {
+            System.err.println("Docker error: " + e.getMessage());
+            return ExitCode.SOFTWARE;
+        }
+    }
+
+    /**
+     * Remove the warm runner of the project.
+     *
+     * @param projectRoot the root of the project
+     * @return the exit code
+     */
+    protected Integer stopWarmRunner(Path projectRoot) {
+        try (DockerClient dockerClient = createDockerClient()) {
+            removeExistingContainer(dockerClient, getWarmRunnerName(projectRoot));
+            Files.deleteIfExists(getRunnerFileList(projectRoot));
+            return ExitCode.OK;
         } catch (Exception e) {
             System.err.println("Docker error: " + e.getMessage());
             return ExitCode.SOFTWARE;
         }
     }
 
+    private String getWarmRunnerName(Path projectRoot) {
+        return getContainerName() + "-" + WorkspaceSync.getProjectId(projectRoot);
+    }
+
+    /**
+     * The warm runner mounts the list of the files to sync once, so the list is rewritten in place on every run.
+     */
+    private Path getRunnerFileList(Path projectRoot) {
+        return Paths.get(System.getProperty("java.io.tmpdir"), getWarmRunnerName(projectRoot) + ".files");
+    }
+
+    private String getWorkspaceMode() {
+        return tmpfsWorkspace ? "tmpfs" : "volume";
+    }
+
     public static Path getWorkingDirectory() {
         return Paths.get(System.getProperty("user.dir"));
     }
@@ -99,6 +723,23 @@ public abstract class BaseRunCommand {
         return DockerClientBuilder.getInstance(config).withDockerHttpClient(httpClient).build();
     }
 
+    /**
+     * List the images of the local Docker store, by their tags.
+     *
+     * @return the tagged images, empty if Docker is not available
+     */
+    public static List<String> listLocalImages() {
+        try (DockerClient dockerClient = createDockerClient()) {
+            return dockerClient.listImagesCmd().exec().stream()
+                    .filter(image -> image.getRepoTags() != null)
+                    .flatMap(image -> Arrays.stream(image.getRepoTags()))
+                    .filter(tag -> !tag.endsWith(":<none>"))
+                    .toList();
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
     public static void removeExistingContainer(DockerClient dockerClient, String containerName) {
         try {
             dockerClient.inspectContainerCmd(containerName).exec();
@@ -0,0 +1,108 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The timings measured by {@code ci bench} for a project, kept in a tab-separated file with a line per measure, so
+ * that the timings of a commit can be compared with those of a baseline commit.
+ */
+public final class BenchHistory {
+
+    /**
+     * The directory the history files are written to.
+     */
+    public static final Path HISTORY_DIRECTORY = Paths.get(System.getProperty("user.home"), ".quarkus-ci", "bench");
+
+    /**
+     * A measure of a benchmark run.
+     *
+     * @param commit the commit of the project, see {@link Git#getCommit(Path)}
+     * @param variant the runner, the cache variant and the arguments of the run, as only runs of the same variant compare
+     * @param recorded when the run was recorded, as an ISO-8601 instant
+     * @param run the index of the run among the measured runs of the benchmark
+     * @param key what was measured: {@code total}, a job, or a step of a job
+     * @param millis the duration, in milliseconds
+     */
+    public record Sample(String commit, String variant, String recorded, int run, String key, long millis) {
+    }
+
+    private BenchHistory() {
+    }
+
+    /**
+     * Get the history file of a project.
+     *
+     * @param projectRoot the root of the project
+     * @return the path of the file
+     */
+    public static Path getFile(Path projectRoot) {
+        return HISTORY_DIRECTORY.resolve(WorkspaceSync.getProjectId(projectRoot) + ".tsv");
+    }
+
+    /**
+     * Read the history of a project.
+     *
+     * @param projectRoot the root of the project
+     * @return the samples, in the order they were recorded
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Sample> read(Path projectRoot) throws IOException {
+        Path file = getFile(projectRoot);
+        List<Sample> samples = new ArrayList<>();
+        if (!Files.isRegularFile(file)) {
+            return samples;
+        }
+        for (String line : Files.readAllLines(file)) {
+            String[] fields = line.split("\t");
+            // lines of an other format are skipped rather than failing the benchmark
+            if (fields.length == 6) {
+                try {
+                    samples.add(new Sample(fields[0], fields[1], fields[2], Integer.parseInt(fields[3]), fields[4],
+                            Long.parseLong(fields[5])));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Append samples to the history of a project.
+     *
+     * @param projectRoot the root of the project
+     * @param samples the samples
+     * @throws IOException if the file cannot be written
+     */
+    public static void append(Path projectRoot, List<Sample> samples) throws IOException {
+        Files.createDirectories(HISTORY_DIRECTORY);
+        List<String> lines = samples.stream()
+                .map(sample -> String.join("\t", clean(sample.commit()), clean(sample.variant()), sample.recorded(),
+                        String.valueOf(sample.run()), clean(sample.key()), String.valueOf(sample.millis())))
+                .toList();
+        Files.write(getFile(projectRoot), lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Get a percentile of durations, by the nearest-rank method.
+     *
+     * @param durations the durations
+     * @param percentile the percentile, from 1 to 100
+     * @return the duration at the percentile
+     */
+    public static long percentile(List<Long> durations, int percentile) {
+        List<Long> sorted = durations.stream().sorted().toList();
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    private static String clean(String value) {
+        return value.replaceAll("[\t\r\n]", " ");
+    }
+}
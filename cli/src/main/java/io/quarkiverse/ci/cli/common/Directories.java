@@ -0,0 +1,51 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Copies and deletes the directories the runs keep their state in.
+ */
+public final class Directories {
+
+    private Directories() {
+    }
+
+    /**
+     * Copy the files of a directory into another one, replacing the files that are already there.
+     *
+     * @param source the directory to copy
+     * @param target the directory to copy the files into, created if needed
+     * @throws IOException if a file cannot be copied
+     */
+    public static void copy(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Path destination = target.resolve(source.relativize(file).toString());
+                Files.createDirectories(destination.getParent());
+                Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Delete a directory and its content, if it exists.
+     *
+     * @param directory the directory
+     * @throws IOException if a file cannot be deleted
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
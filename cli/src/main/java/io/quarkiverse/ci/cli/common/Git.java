@@ -0,0 +1,56 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs the git commands the CLI needs on the project it runs for.
+ */
+public final class Git {
+
+    private Git() {
+    }
+
+    /**
+     * Run a git command in a project.
+     *
+     * @param projectRoot the root of the project
+     * @param args the arguments of the command
+     * @return the output of the command, stripped, empty if the command failed
+     */
+    public static Optional<String> run(Path projectRoot, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(projectRoot.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return process.waitFor() == 0 ? Optional.of(output.strip()) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the commit a project is at, suffixed with {@code -dirty} when the project has changes that are not committed,
+     * as a run measures the files of the working tree.
+     *
+     * @param projectRoot the root of the project
+     * @return the commit, empty if the project is not a git repository or has no commit
+     */
+    public static Optional<String> getCommit(Path projectRoot) {
+        return run(projectRoot, "rev-parse", "HEAD")
+                .map(commit -> run(projectRoot, "status", "--porcelain").map(String::isEmpty).orElse(true) ? commit
+                        : commit + "-dirty");
+    }
+}
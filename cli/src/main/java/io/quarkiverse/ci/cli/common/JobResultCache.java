@@ -0,0 +1,231 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * The results of the successful jobs of the local runs of a project, by fingerprint of their inputs, so that a job whose
+ * inputs are unchanged since its last successful run is skipped, and its outputs restored instead.
+ * The fingerprint of a job covers its definition, the image it runs in, and the content of the files it depends on.
+ */
+public class JobResultCache {
+
+    /**
+     * The directory the results are kept in.
+     */
+    public static final Path RESULTS_DIRECTORY = Paths.get(System.getProperty("user.home"), ".quarkus-ci", "results");
+
+    /**
+     * The files a job depends on unless told otherwise, as git pathspecs: the sources and build files of the modules.
+     */
+    public static final List<String> DEFAULT_INPUTS = List.of(":(glob)**/src/**", ":(glob)**/pom.xml",
+            ":(glob)**/build.gradle", ":(glob)**/build.gradle.kts", ":(glob)**/settings.gradle",
+            ":(glob)**/settings.gradle.kts", ":(glob)**/gradle.properties", ".mvn", "gradle", "mvnw", "gradlew");
+
+    private static final String RESULT = "result";
+    private static final String OUTPUTS = "outputs";
+
+    private final Path projectRoot;
+    private final List<String> inputs;
+    private final Path directory;
+    private String inputsHash;
+
+    /**
+     * Create the result cache of a project.
+     *
+     * @param projectRoot the root of the project
+     * @param inputs the git pathspecs of the files the jobs depend on
+     */
+    public JobResultCache(Path projectRoot, List<String> inputs) {
+        this.projectRoot = projectRoot.toAbsolutePath().normalize();
+        this.inputs = inputs;
+        this.directory = RESULTS_DIRECTORY.resolve(WorkspaceSync.getProjectId(projectRoot));
+    }
+
+    /**
+     * Get the fingerprint of a job.
+     *
+     * @param definition the definition of the job, along with the definitions it inherits
+     * @param imageId the identifier of the image the job runs in
+     * @return the fingerprint
+     * @throws IOException if the files the job depends on cannot be hashed
+     */
+    public String fingerprint(String definition, String imageId) throws IOException {
+        return sha256("definition\n" + definition + "\nimage\n" + imageId + "\ninputs\n" + getInputsHash());
+    }
+
+    /**
+     * Restore the outputs of the last successful run of a job with the given fingerprint, if any.
+     *
+     * @param fingerprint the fingerprint of the job
+     * @return whether a successful run was recorded, so that the job can be skipped
+     * @throws IOException if the outputs cannot be restored
+     */
+    public boolean restore(String fingerprint) throws IOException {
+        Path entry = directory.resolve(fingerprint);
+        if (!Files.isRegularFile(entry.resolve(RESULT))) {
+            return false;
+        }
+        Path outputs = entry.resolve(OUTPUTS);
+        if (Files.isDirectory(outputs)) {
+            Directories.copy(outputs, projectRoot);
+        }
+        return true;
+    }
+
+    /**
+     * Record the successful run of a job, along with its outputs.
+     *
+     * @param job the name of the job
+     * @param fingerprint the fingerprint of the job
+     * @param outputs the paths or glob patterns of the outputs of the job, relative to the root of the project
+     * @throws IOException if the result cannot be recorded
+     */
+    public void store(String job, String fingerprint, List<String> outputs) throws IOException {
+        Path entry = directory.resolve(fingerprint);
+        Path stored = entry.resolve(OUTPUTS);
+        Directories.delete(entry);
+        Files.createDirectories(stored);
+        for (String output : outputs) {
+            for (Path file : resolveOutput(output)) {
+                Path target = stored.resolve(projectRoot.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        // written last, so that an interrupted store is not taken for a result
+        Files.writeString(entry.resolve(RESULT), job + "\n" + Instant.now() + "\n");
+    }
+
+    /**
+     * Get the identifier of an image, that changes when a tag is pushed again, or the reference itself if the image is
+     * not present or Docker is not available.
+     *
+     * @param dockerClient the Docker client
+     * @param image the image reference
+     * @return the identifier
+     */
+    public static String getImageId(DockerClient dockerClient, String image) {
+        if (image == null) {
+            return "";
+        }
+        try {
+            return dockerClient.inspectImageCmd(WorkflowImages.pullReference(image)).exec().getId();
+        } catch (RuntimeException e) {
+            return image;
+        }
+    }
+
+    /**
+     * Hash the paths and contents of the files the jobs depend on, including the changes that are not committed, with the
+     * object hashes of git.
+     */
+    private String getInputsHash() throws IOException {
+        if (inputsHash != null) {
+            return inputsHash;
+        }
+        List<String> files = new ArrayList<>();
+        List<String> listFiles = new ArrayList<>(List.of("ls-files", "-z", "--cached", "--others", "--exclude-standard", "--"));
+        listFiles.addAll(inputs);
+        String listed = Git.run(projectRoot, listFiles.toArray(String[]::new))
+                .orElseThrow(() -> new IOException("Could not list the files of " + projectRoot + " with git"));
+        for (String file : listed.split("\0")) {
+            // deleted tracked files are still listed by git
+            if (!file.isBlank() && Files.isRegularFile(projectRoot.resolve(file), LinkOption.NOFOLLOW_LINKS)) {
+                files.add(file);
+            }
+        }
+        List<String> paths = files.stream().distinct().sorted().toList();
+        if (paths.isEmpty()) {
+            inputsHash = sha256("");
+            return inputsHash;
+        }
+        Process process = new ProcessBuilder("git", "hash-object", "--stdin-paths")
+                .directory(projectRoot.toFile())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        Thread writer = new Thread(() -> {
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(String.join("\n", paths).concat("\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // the exit code of git reports the failure
+            }
+        });
+        writer.start();
+        List<String> hashes = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        try {
+            writer.join();
+            if (process.waitFor() != 0 || hashes.size() != paths.size()) {
+                throw new IOException("Could not hash the files of " + projectRoot + " with git");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing the files of " + projectRoot, e);
+        }
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < paths.size(); i++) {
+            content.append(hashes.get(i)).append(' ').append(paths.get(i)).append('\n');
+        }
+        inputsHash = sha256(content.toString());
+        return inputsHash;
+    }
+
+    /**
+     * Get the files of an output of a job, that is a file, a directory or a glob pattern.
+     */
+    private List<Path> resolveOutput(String output) throws IOException {
+        Path path = projectRoot.resolve(output).normalize();
+        if (!path.startsWith(projectRoot)) {
+            return List.of();
+        }
+        if (!output.contains("*")) {
+            if (Files.isRegularFile(path)) {
+                return List.of(path);
+            }
+            if (!Files.isDirectory(path)) {
+                return List.of();
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                return files.filter(Files::isRegularFile).toList();
+            }
+        }
+        // walk from the directory before the first wildcard only
+        String base = output.substring(0, output.indexOf('*'));
+        Path start = projectRoot.resolve(base.contains("/") ? base.substring(0, base.lastIndexOf('/')) : "").normalize();
+        if (!start.startsWith(projectRoot) || !Files.isDirectory(start)) {
+            return List.of();
+        }
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + output);
+        try (Stream<Path> files = Files.walk(start)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> matcher.matches(projectRoot.relativize(file)))
+                    .toList();
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
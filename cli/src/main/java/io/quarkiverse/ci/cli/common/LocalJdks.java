@@ -0,0 +1,145 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import io.quarkiverse.ci.common.JdkDistribution;
+
+/**
+ * Finds the JDKs installed on the host, by the {@code release} file of their home directory, in the usual installation
+ * directories: {@code JAVA_HOME}, SDKMAN!, {@code /usr/lib/jvm} and the macOS Java directory.
+ */
+public final class LocalJdks {
+
+    /**
+     * The implementors reported by the {@code release} file of each distribution.
+     */
+    private static final Map<JdkDistribution, Pattern> IMPLEMENTORS = Map.of(
+            JdkDistribution.TEMURIN, Pattern.compile("Adoptium|AdoptOpenJDK"),
+            JdkDistribution.CORRETTO, Pattern.compile("Amazon"),
+            JdkDistribution.ZULU, Pattern.compile("Azul"),
+            JdkDistribution.OPENJDK, Pattern.compile("Oracle|N/A"));
+
+    private static final Pattern IMAGE_VERSION = Pattern
+            .compile("(?:temurin-|openjdk-|jdk)(\\d+)|^[^:]*(?:temurin|corretto|zulu-openjdk|openjdk):(\\d+)");
+
+    private LocalJdks() {
+    }
+
+    /**
+     * Find an installed JDK, preferring the given distribution.
+     *
+     * @param distribution the distribution, or {@code null} for any
+     * @param version the major version, or {@code null} for any
+     * @return the home directory of the JDK
+     */
+    public static Optional<Path> find(JdkDistribution distribution, String version) {
+        Path fallback = null;
+        for (Path home : getCandidates()) {
+            Properties release = readRelease(home);
+            if (release == null || !Files.isExecutable(home.resolve("bin").resolve("java"))) {
+                continue;
+            }
+            if (version != null && !version.equals(getMajorVersion(release.getProperty("JAVA_VERSION", "")))) {
+                continue;
+            }
+            String implementor = release.getProperty("IMPLEMENTOR", "N/A");
+            if (distribution == null || IMPLEMENTORS.get(distribution).matcher(implementor).find()) {
+                return Optional.of(home);
+            }
+            if (fallback == null) {
+                fallback = home;
+            }
+        }
+        // the version matters to the build, the distribution seldom does
+        return Optional.ofNullable(fallback);
+    }
+
+    /**
+     * Get the distribution a JDK image of the generated pipelines is built on, such as
+     * {@code maven:3.9.11-eclipse-temurin-21}.
+     *
+     * @param image the image
+     * @return the distribution, empty if the image name does not tell
+     */
+    public static Optional<JdkDistribution> getImageDistribution(String image) {
+        for (JdkDistribution distribution : JdkDistribution.values()) {
+            String prefix = distribution.getDockerImage(null).split(":")[0];
+            if (image.contains(prefix)) {
+                return Optional.of(distribution);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the major Java version of a JDK image of the generated pipelines, such as {@code gradle:8.7-jdk21}.
+     *
+     * @param image the image
+     * @return the version, empty if the image name does not tell
+     */
+    public static Optional<String> getImageVersion(String image) {
+        Matcher matcher = IMAGE_VERSION.matcher(image);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        return Optional.of(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+
+    private static String getMajorVersion(String javaVersion) {
+        String version = javaVersion.replace("\"", "");
+        String[] parts = version.split("[._+-]");
+        return parts[0].equals("1") && parts.length > 1 ? parts[1] : parts[0];
+    }
+
+    private static Properties readRelease(Path home) {
+        Path release = home.resolve("release");
+        if (!Files.isRegularFile(release)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (BufferedReader reader = Files.newBufferedReader(release)) {
+            properties.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        properties.replaceAll((key, value) -> value.toString().replace("\"", ""));
+        return properties;
+    }
+
+    private static List<Path> getCandidates() {
+        List<Path> candidates = new ArrayList<>();
+        String javaHome = System.getenv("JAVA_HOME");
+        if (javaHome != null && !javaHome.isBlank()) {
+            candidates.add(Paths.get(javaHome));
+        }
+        Path userHome = Paths.get(System.getProperty("user.home"));
+        for (Path directory : List.of(userHome.resolve(".sdkman").resolve("candidates").resolve("java"),
+                Paths.get("/usr/lib/jvm"), Paths.get("/Library/Java/JavaVirtualMachines"))) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> homes = Files.list(directory)) {
+                homes.sorted()
+                        .map(home -> Files.isDirectory(home.resolve("Contents").resolve("Home"))
+                                ? home.resolve("Contents").resolve("Home")
+                                : home)
+                        .forEach(candidates::add);
+            } catch (IOException e) {
+                // an unreadable directory has no JDK to offer
+            }
+        }
+        return candidates;
+    }
+}
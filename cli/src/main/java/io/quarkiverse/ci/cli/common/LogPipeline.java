@@ -0,0 +1,257 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The output of a runner, written to the terminal and captured to a compressed log file by threads of their own, so
+ * that the thread that reads the output of the runner only hands the chunks over.
+ * The terminal receives the chunks in batches, with a single write per batch. When the terminal cannot keep up and its
+ * buffer is full, chunks are skipped for the terminal rather than stalling the runner, and the number of skipped bytes
+ * is reported in their place. The log file receives every chunk, and so does the listener of the lines of the output,
+ * if any, on the thread of the log file.
+ */
+public class LogPipeline extends OutputStream {
+
+    /**
+     * The directory the log files are written to.
+     */
+    public static final Path LOG_DIRECTORY = Paths.get(System.getProperty("user.home"), ".quarkus-ci", "logs");
+
+    private static final int CAPACITY = 1024;
+    private static final byte[] END = new byte[0];
+    private static final Pattern FAILURE = Pattern.compile("\\[ERROR]|BUILD FAILURE|FAILED|FAILURE|Error:");
+
+    private final PrintStream terminal;
+    private final Pattern quietPattern;
+    private final Path logFile;
+    private final Consumer<String> lines;
+    private final BlockingQueue<byte[]> terminalQueue = new ArrayBlockingQueue<>(CAPACITY);
+    private final BlockingQueue<byte[]> logQueue = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong skipped = new AtomicLong();
+    private final Thread terminalWriter;
+    private final Thread logWriter;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream logLine = new ByteArrayOutputStream();
+
+    /**
+     * Start the threads of a pipeline.
+     *
+     * @param terminal the stream of the terminal
+     * @param name the name of the run, that names the log file
+     * @param quietPattern the pattern of the lines shown on the terminal along with the failures, such as the step
+     *        boundaries, or {@code null} to show every line
+     * @throws IOException if the log file cannot be created
+     */
+    public LogPipeline(PrintStream terminal, String name, Pattern quietPattern) throws IOException {
+        this(terminal, name, quietPattern, null);
+    }
+
+    /**
+     * Start the threads of a pipeline.
+     *
+     * @param terminal the stream of the terminal
+     * @param name the name of the run, that names the log file
+     * @param quietPattern the pattern of the lines shown on the terminal along with the failures, such as the step
+     *        boundaries, or {@code null} to show every line
+     * @param lines the listener of the lines of the output, or {@code null}
+     * @throws IOException if the log file cannot be created
+     */
+    public LogPipeline(PrintStream terminal, String name, Pattern quietPattern, Consumer<String> lines) throws IOException {
+        this.terminal = terminal;
+        this.quietPattern = quietPattern;
+        this.lines = lines;
+        Files.createDirectories(LOG_DIRECTORY);
+        this.logFile = LOG_DIRECTORY.resolve(name.replaceAll("[^a-zA-Z0-9_.-]", "_") + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")) + ".log.gz");
+        OutputStream log = new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(logFile)), 64 * 1024);
+        this.terminalWriter = new Thread(this::writeTerminal, "log-terminal-" + name);
+        this.logWriter = new Thread(() -> writeLog(log), "log-file-" + name);
+        terminalWriter.setDaemon(true);
+        logWriter.setDaemon(true);
+        terminalWriter.start();
+        logWriter.start();
+    }
+
+    /**
+     * Get the log file of the run.
+     *
+     * @return the path of the compressed log file
+     */
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    @Override
+    public void write(int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+        byte[] chunk = new byte[len];
+        System.arraycopy(b, off, chunk, 0, len);
+        if (!terminalQueue.offer(chunk)) {
+            skipped.addAndGet(len);
+        }
+        try {
+            // the log file is written as fast as the output is produced, so this only waits on a slow disk
+            logQueue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write the pending output and wait for the writers to finish.
+     */
+    @Override
+    public void close() {
+        try {
+            // a writer that failed no longer takes from its queue
+            if (terminalWriter.isAlive()) {
+                terminalQueue.put(END);
+            }
+            if (logWriter.isAlive()) {
+                logQueue.put(END);
+            }
+            terminalWriter.join();
+            logWriter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeTerminal() {
+        List<byte[]> batch = new ArrayList<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            while (true) {
+                batch.add(terminalQueue.take());
+                terminalQueue.drainTo(batch);
+                boolean end = false;
+                for (byte[] chunk : batch) {
+                    if (chunk == END) {
+                        end = true;
+                        break;
+                    }
+                    append(chunk, buffer);
+                }
+                batch.clear();
+                long skippedBytes = skipped.getAndSet(0);
+                if (skippedBytes > 0) {
+                    buffer.writeBytes(("\n[" + skippedBytes + " bytes of output skipped on the terminal, see " + logFile
+                            + "]\n").getBytes(StandardCharsets.UTF_8));
+                }
+                if (end && line.size() > 0) {
+                    // the last line of the output in quiet mode
+                    append(new byte[] { '\n' }, buffer);
+                }
+                if (buffer.size() > 0) {
+                    terminal.write(buffer.toByteArray(), 0, buffer.size());
+                    terminal.flush();
+                    buffer.reset();
+                }
+                if (end) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // the terminal is gone, the log file still receives the output
+        }
+    }
+
+    /**
+     * Append a chunk to the batch, as is, or only the step boundaries and the failures in quiet mode.
+     */
+    private void append(byte[] chunk, ByteArrayOutputStream buffer) throws IOException {
+        if (quietPattern == null) {
+            buffer.write(chunk);
+            return;
+        }
+        for (byte b : chunk) {
+            if (b == '\n') {
+                String text = line.toString(StandardCharsets.UTF_8);
+                if (quietPattern.matcher(text).find() || FAILURE.matcher(text).find()) {
+                    line.writeTo(buffer);
+                    buffer.write('\n');
+                }
+                line.reset();
+            } else {
+                line.write(b);
+            }
+        }
+    }
+
+    /**
+     * Hand the complete lines of a chunk over to the listener of the lines.
+     */
+    private void scanLines(byte[] chunk) {
+        if (lines == null) {
+            return;
+        }
+        for (byte b : chunk) {
+            if (b == '\n') {
+                lines.accept(logLine.toString(StandardCharsets.UTF_8));
+                logLine.reset();
+            } else if (b != '\r') {
+                logLine.write(b);
+            }
+        }
+    }
+
+    private void writeLog(OutputStream log) {
+        boolean failed = false;
+        try {
+            while (true) {
+                byte[] chunk = logQueue.take();
+                if (chunk == END) {
+                    if (logLine.size() > 0) {
+                        scanLines(new byte[] { '\n' });
+                    }
+                    break;
+                }
+                scanLines(chunk);
+                if (!failed) {
+                    try {
+                        log.write(chunk);
+                    } catch (IOException e) {
+                        // keep taking the output, so that the runner is not stalled
+                        failed = true;
+                        terminal.println("Could not write the log file " + logFile + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                log.close();
+            } catch (IOException e) {
+                terminal.println("Could not write the log file " + logFile + ": " + e.getMessage());
+            }
+        }
+    }
+}
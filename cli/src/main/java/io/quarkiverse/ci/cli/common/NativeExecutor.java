@@ -0,0 +1,262 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import picocli.CommandLine.ExitCode;
+
+/**
+ * Runs the jobs of a workflow or pipeline on the host, without containers: the steps are shell scripts run with the
+ * JDK of their job and with the home directory and caches given by the CLI, in the directory of the project.
+ * The jobs run one after the other, but for those that need a failed job, that are skipped. The output follows the
+ * format of {@link #STEPS}, prefixed with the name of the job, so that the run has a timeline as the runners do.
+ */
+public class NativeExecutor {
+
+    /**
+     * When a step runs.
+     */
+    public enum Condition {
+        /** When the previous steps of the job succeeded. */
+        SUCCESS,
+        /** Whatever the outcome of the previous steps of the job. */
+        ALWAYS,
+        /** When a previous step of the job failed. */
+        FAILURE
+    }
+
+    /**
+     * A step of a job.
+     *
+     * @param name the name of the step
+     * @param script the shell script of the step, run by bash with {@code -e} and {@code -o pipefail}
+     * @param condition when the step runs
+     * @param continueOnError whether the job goes on, as succeeding, when the step fails
+     * @param env the environment variables of the step, on top of those of its job
+     */
+    public record Step(String name, String script, Condition condition, boolean continueOnError, Map<String, String> env) {
+    }
+
+    /**
+     * A job.
+     *
+     * @param name the name of the job
+     * @param needs the names of the jobs before it that must succeed for the job to run
+     * @param javaHome the JDK the job runs with, or {@code null} for the one of the host
+     * @param env the environment variables of the job
+     * @param steps the steps of the job
+     * @param allowFailure whether the run goes on, as succeeding, when the job fails
+     * @param actionsFiles whether the steps get the files of GitHub Actions, that set the environment of the next steps:
+     *        {@code GITHUB_ENV}, {@code GITHUB_PATH} and {@code GITHUB_OUTPUT}, along with {@code RUNNER_TEMP}
+     */
+    public record Job(String name, Set<String> needs, Path javaHome, Map<String, String> env, List<Step> steps,
+            boolean allowFailure, boolean actionsFiles) {
+    }
+
+    /**
+     * The start and outcome of the steps and jobs, as reported by the executor.
+     */
+    public static final Pattern STEPS = Pattern
+            .compile("] (Start|Run |Job (succeeded|failed|skipped))|  (Success|Failure|Skipped) - ");
+
+    private static final Pattern LINE = Pattern.compile("^\\[([^\\]]+)]\\s*(.*)$");
+    private static final Pattern RUN = Pattern.compile("^Run (.+)$");
+    private static final Pattern STEP_END = Pattern.compile("^(Success|Failure) - ");
+    private static final Pattern JOB_END = Pattern.compile("^Job (succeeded|failed)$");
+    private static final Pattern OUTPUT = Pattern.compile("^\\|\\s?(.*)$");
+    private static final Pattern ENV_LINE = Pattern.compile("^([A-Za-z_][A-Za-z0-9_]*)=(.*)$");
+    private static final Pattern ENV_DELIMITED = Pattern.compile("^([A-Za-z_][A-Za-z0-9_]*)<<(.+)$");
+
+    private final Path projectRoot;
+    private final Map<String, String> cacheEnv;
+    private final PrintStream output;
+
+    /**
+     * Create an executor.
+     *
+     * @param projectRoot the root of the project, that the jobs run in
+     * @param cacheEnv the environment variables that point the jobs to their home directory and the build tools to the
+     *        caches
+     * @param output the stream the output of the jobs is written to
+     */
+    public NativeExecutor(Path projectRoot, Map<String, String> cacheEnv, PrintStream output) {
+        this.projectRoot = projectRoot;
+        this.cacheEnv = cacheEnv;
+        this.output = output;
+    }
+
+    /**
+     * Run jobs, skipping those that need a failed or skipped job.
+     *
+     * @param jobs the jobs, each after the jobs it needs
+     * @return the exit code, that of a failure if a job failed without being allowed to
+     * @throws IOException if the scripts cannot be written
+     * @throws InterruptedException if interrupted while a step runs
+     */
+    public int run(List<Job> jobs) throws IOException, InterruptedException {
+        int exitCode = ExitCode.OK;
+        Set<String> failed = new HashSet<>();
+        for (Job job : jobs) {
+            Optional<String> failedNeed = job.needs().stream().filter(failed::contains).findFirst();
+            if (failedNeed.isPresent()) {
+                output.println("[" + job.name() + "] Job skipped, " + failedNeed.get() + " did not succeed");
+                failed.add(job.name());
+            } else if (!runJob(job) && !job.allowFailure()) {
+                failed.add(job.name());
+                exitCode = ExitCode.SOFTWARE;
+            }
+        }
+        return exitCode;
+    }
+
+    private boolean runJob(Job job) throws IOException, InterruptedException {
+        String prefix = "[" + job.name() + "] ";
+        output.println(prefix + "Start" + (job.javaHome() == null ? "" : " java=" + job.javaHome()));
+        Path temp = Files.createTempDirectory("quarkus-ci-native-");
+        try {
+            Map<String, String> env = new HashMap<>(System.getenv());
+            env.put("CI", "true");
+            env.putAll(job.env());
+            if (job.javaHome() != null) {
+                env.put("JAVA_HOME", job.javaHome().toString());
+                env.put("PATH", job.javaHome().resolve("bin") + java.io.File.pathSeparator + env.getOrDefault("PATH", ""));
+            }
+            cacheEnv.forEach((name, value) -> env.put(name,
+                    name.equals("MAVEN_OPTS") ? (env.getOrDefault(name, "") + " " + value).strip() : value));
+            if (job.actionsFiles()) {
+                env.put("RUNNER_TEMP", temp.toString());
+            }
+            boolean failed = false;
+            for (int i = 0; i < job.steps().size(); i++) {
+                Step step = job.steps().get(i);
+                boolean runs = switch (step.condition()) {
+                    case SUCCESS -> !failed;
+                    case ALWAYS -> true;
+                    case FAILURE -> failed;
+                };
+                if (!runs) {
+                    output.println(prefix + "  Skipped - " + step.name());
+                    continue;
+                }
+                output.println(prefix + "Run " + step.name());
+                long start = System.nanoTime();
+                int exitCode = runStep(job, step, env, temp, i, prefix);
+                String duration = String.format("[%.1fs]", (System.nanoTime() - start) / 1e9);
+                if (exitCode == 0) {
+                    output.println(prefix + "  Success - " + step.name() + " " + duration);
+                } else {
+                    output.println(prefix + "  Failure - " + step.name() + " " + duration + " (exit code " + exitCode + ")");
+                    failed |= !step.continueOnError();
+                }
+            }
+            output.println(prefix + "Job " + (failed ? "failed" : "succeeded"));
+            return !failed;
+        } finally {
+            Directories.delete(temp);
+        }
+    }
+
+    private int runStep(Job job, Step step, Map<String, String> env, Path temp, int index, String prefix)
+            throws IOException, InterruptedException {
+        Path script = temp.resolve("step-" + index + ".sh");
+        Files.writeString(script, step.script());
+        Map<String, String> stepEnv = new HashMap<>(env);
+        stepEnv.putAll(step.env());
+        Path envFile = temp.resolve("env-" + index);
+        Path pathFile = temp.resolve("path-" + index);
+        if (job.actionsFiles()) {
+            Files.createFile(envFile);
+            Files.createFile(pathFile);
+            stepEnv.put("GITHUB_ENV", envFile.toString());
+            stepEnv.put("GITHUB_PATH", pathFile.toString());
+            stepEnv.put("GITHUB_OUTPUT", temp.resolve("output-" + index).toString());
+        }
+        ProcessBuilder builder = new ProcessBuilder("bash", "--noprofile", "--norc", "-eo", "pipefail", script.toString())
+                .directory(projectRoot.toFile())
+                .redirectErrorStream(true)
+                .redirectInput(ProcessBuilder.Redirect.PIPE);
+        builder.environment().clear();
+        builder.environment().putAll(stepEnv);
+        Process process = builder.start();
+        process.getOutputStream().close();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.println(prefix + "  | " + line);
+            }
+        }
+        int exitCode = process.waitFor();
+        if (job.actionsFiles()) {
+            // the environment files set the environment of the next steps
+            readEnvFile(envFile, env);
+            for (String path : Files.readAllLines(pathFile)) {
+                if (!path.isBlank()) {
+                    env.put("PATH", path.strip() + java.io.File.pathSeparator + env.getOrDefault("PATH", ""));
+                }
+            }
+        }
+        return exitCode;
+    }
+
+    private static void readEnvFile(Path envFile, Map<String, String> env) throws IOException {
+        List<String> lines = Files.readAllLines(envFile);
+        for (int i = 0; i < lines.size(); i++) {
+            Matcher delimited = ENV_DELIMITED.matcher(lines.get(i));
+            Matcher line = ENV_LINE.matcher(lines.get(i));
+            if (delimited.matches()) {
+                StringBuilder value = new StringBuilder();
+                while (++i < lines.size() && !lines.get(i).equals(delimited.group(2))) {
+                    value.append(value.length() == 0 ? "" : "\n").append(lines.get(i));
+                }
+                env.put(delimited.group(1), value.toString());
+            } else if (line.matches()) {
+                env.put(line.group(1), line.group(2));
+            }
+        }
+    }
+
+    /**
+     * Builds the timeline of a run of the executor from its output.
+     */
+    public static class TimelineParser implements Timeline.Parser {
+
+        @Override
+        public void parse(String line, long time, Timeline timeline) {
+            Matcher matcher = LINE.matcher(line);
+            if (!matcher.matches()) {
+                return;
+            }
+            String job = matcher.group(1);
+            String message = matcher.group(2);
+            Matcher run = RUN.matcher(message);
+            Matcher stepEnd = STEP_END.matcher(message);
+            Matcher jobEnd = JOB_END.matcher(message);
+            Matcher output = OUTPUT.matcher(message);
+            if (message.startsWith("Start")) {
+                timeline.startJob(job, time);
+            } else if (run.find()) {
+                timeline.startStep(job, run.group(1), time);
+            } else if (stepEnd.find()) {
+                timeline.endStep(job, time, stepEnd.group(1).toLowerCase());
+            } else if (jobEnd.find()) {
+                timeline.endJob(job, time, jobEnd.group(1));
+            } else if (output.find()) {
+                timeline.output(job, output.group(1), time);
+            }
+        }
+    }
+}
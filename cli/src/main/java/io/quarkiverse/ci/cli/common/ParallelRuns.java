@@ -0,0 +1,176 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+import picocli.CommandLine.ExitCode;
+
+/**
+ * Runs jobs or workflows as separate runner invocations, a bounded number at a time, each once the runs it needs are
+ * over. The output lines of each run are prefixed with its name, in a color of its own, and a summary of the exit codes
+ * and durations is printed once all the runs are over.
+ */
+public final class ParallelRuns {
+
+    private static final String[] COLORS = { "\u001B[36m", "\u001B[33m", "\u001B[35m", "\u001B[32m", "\u001B[34m",
+            "\u001B[31m" };
+    private static final String RESET = "\u001B[0m";
+
+    private record Result(String name, int exitCode, Duration duration, boolean skipped) {
+    }
+
+    private ParallelRuns() {
+    }
+
+    /**
+     * Run the given jobs or workflows, that are independent of each other.
+     *
+     * @param names the names of the runs
+     * @param parallelism the maximum number of concurrent runs
+     * @param output the stream the prefixed output of the runs is written to
+     * @param run the run of a name, given the stream to write its output to, that returns its exit code
+     * @return the exit code, that of the first failed run if any
+     * @throws InterruptedException if interrupted while waiting for the runs
+     */
+    public static int run(List<String> names, int parallelism, PrintStream output,
+            BiFunction<String, PrintStream, Integer> run) throws InterruptedException {
+        return run(names, Map.of(), parallelism, output, run);
+    }
+
+    /**
+     * Run the given jobs or workflows, each once the runs it needs have succeeded. A run is skipped when one of the
+     * runs it needs failed or was skipped.
+     *
+     * @param names the names of the runs, each after the runs it needs
+     * @param needs the names of the runs each run needs
+     * @param parallelism the maximum number of concurrent runs
+     * @param output the stream the prefixed output of the runs is written to
+     * @param run the run of a name, given the stream to write its output to, that returns its exit code
+     * @return the exit code, that of the first failed run if any
+     * @throws InterruptedException if interrupted while waiting for the runs
+     */
+    public static int run(List<String> names, Map<String, Set<String>> needs, int parallelism, PrintStream output,
+            BiFunction<String, PrintStream, Integer> run) throws InterruptedException {
+        int width = names.stream().mapToInt(String::length).max().orElse(0);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, names.size())));
+        Map<String, CompletableFuture<Result>> futures = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                String prefix = COLORS[i % COLORS.length] + "[" + name + "]" + " ".repeat(width - name.length()) + RESET
+                        + " ";
+                List<CompletableFuture<Result>> needed = needs.getOrDefault(name, Set.of()).stream()
+                        .map(futures::get)
+                        .filter(future -> future != null)
+                        .toList();
+                futures.put(name, CompletableFuture.allOf(needed.toArray(CompletableFuture[]::new))
+                        .thenApplyAsync(ignored -> {
+                            if (needed.stream().map(CompletableFuture::join)
+                                    .anyMatch(result -> result.skipped() || result.exitCode() != ExitCode.OK)) {
+                                return new Result(name, ExitCode.OK, Duration.ZERO, true);
+                            }
+                            return run(name, prefix, output, run);
+                        }, executor));
+            }
+            List<Result> results = new ArrayList<>();
+            for (CompletableFuture<Result> future : futures.values()) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return printSummary(results, width, output);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result run(String name, String prefix, PrintStream output, BiFunction<String, PrintStream, Integer> run) {
+        long start = System.nanoTime();
+        int exitCode;
+        try (PrintStream prefixed = new PrintStream(new PrefixedOutput(prefix, output), true, StandardCharsets.UTF_8)) {
+            try {
+                exitCode = run.apply(name, prefixed);
+            } catch (RuntimeException e) {
+                prefixed.println("Error: " + e.getMessage());
+                exitCode = ExitCode.SOFTWARE;
+            }
+        }
+        return new Result(name, exitCode, Duration.ofNanos(System.nanoTime() - start), false);
+    }
+
+    private static int printSummary(List<Result> results, int width, PrintStream output) {
+        output.println();
+        output.println("Summary:");
+        int exitCode = ExitCode.OK;
+        for (Result result : results) {
+            Duration duration = result.duration();
+            if (result.skipped()) {
+                output.printf("  %-" + width + "s  %s%n", result.name(), "skipped, a run it needs failed");
+                continue;
+            }
+            output.printf("  %-" + width + "s  %-14s %dm %02ds%n", result.name(),
+                    result.exitCode() == 0 ? "passed" : "failed (" + result.exitCode() + ")", duration.toMinutes(),
+                    duration.toSecondsPart());
+            if (exitCode == ExitCode.OK) {
+                exitCode = result.exitCode();
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Writes the complete lines written to it to a shared stream, with a prefix, so that the lines of concurrent runs
+     * do not interleave.
+     */
+    private static class PrefixedOutput extends OutputStream {
+
+        private final String prefix;
+        private final PrintStream output;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        PrefixedOutput(String prefix, PrintStream output) {
+            this.prefix = prefix;
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                writeLine();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (line.size() > 0) {
+                writeLine();
+            }
+        }
+
+        private void writeLine() {
+            synchronized (output) {
+                output.print(prefix);
+                output.write(line.toByteArray(), 0, line.size());
+                output.println();
+            }
+            line.reset();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.InspectVolumeResponse;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.exception.ConflictException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Volume;
+
+/**
+ * The Docker volumes kept between local runs: the workspaces of the projects, and the Maven and Gradle caches mounted
+ * in the job containers. The caches are shared by all the projects, as dependencies are stored by coordinates.
+ * The caches can start from the caches of the host instead of being empty, through overlay volumes whose lower layer
+ * is the host cache, read-only, and whose upper layer holds what the jobs write.
+ */
+public final class RunnerCaches {
+
+    /**
+     * The prefix of the volumes managed by the CLI.
+     */
+    public static final String VOLUME_PREFIX = "quarkus-ci-";
+
+    /**
+     * The home directory of the user of the job containers.
+     */
+    private static final String JOB_HOME = "/root";
+
+    private static final List<String> CACHES = List.of(".m2", ".gradle");
+
+    private static final String SIZE_IMAGE = "busybox:stable";
+
+    private RunnerCaches() {
+    }
+
+    /**
+     * Create the cache volumes that are missing, and get where they are mounted in the job containers.
+     * Overlay volumes need the Docker daemon to run on the host of the CLI, as their layers are directories of the host.
+     *
+     * @param dockerClient the Docker client
+     * @param hostCaches whether the caches start from the caches of the host
+     * @return the mount point of each volume, by volume name
+     * @throws IOException if the directories of the overlay volumes cannot be created
+     */
+    public static Map<String, String> getJobMounts(DockerClient dockerClient, boolean hostCaches) throws IOException {
+        Map<String, String> mounts = new LinkedHashMap<>();
+        for (String cache : CACHES) {
+            Path hostCache = getUserHome().resolve(cache);
+            String name = VOLUME_PREFIX + cache.substring(1) + (hostCaches ? "-host" : "");
+            if (!exists(dockerClient, name)) {
+                if (hostCaches && Files.isDirectory(hostCache)) {
+                    Path overlay = getOverlayDirectory(name);
+                    Files.createDirectories(overlay.resolve("upper"));
+                    Files.createDirectories(overlay.resolve("work"));
+                    dockerClient.createVolumeCmd()
+                            .withName(name)
+                            .withDriver("local")
+                            .withDriverOpts(Map.of(
+                                    "type", "overlay",
+                                    "device", "overlay",
+                                    "o", "lowerdir=" + hostCache + ",upperdir=" + overlay.resolve("upper") + ",workdir="
+                                            + overlay.resolve("work")))
+                            .exec();
+                } else {
+                    dockerClient.createVolumeCmd().withName(name).exec();
+                }
+            }
+            mounts.put(name, JOB_HOME + "/" + cache);
+        }
+        return mounts;
+    }
+
+    /**
+     * Print the size of the volumes managed by the CLI, measured in a container that mounts them.
+     *
+     * @param dockerClient the Docker client
+     * @throws InterruptedException if interrupted while measuring
+     */
+    public static void printUsage(DockerClient dockerClient) throws InterruptedException {
+        List<String> volumes = listVolumes(dockerClient);
+        if (volumes.isEmpty()) {
+            System.out.println("No volumes kept by the CLI.");
+            return;
+        }
+        try {
+            dockerClient.inspectImageCmd(SIZE_IMAGE).exec();
+        } catch (NotFoundException e) {
+            dockerClient.pullImageCmd(SIZE_IMAGE).exec(new PullImageResultCallback()).awaitCompletion();
+        }
+        String containerId = dockerClient.createContainerCmd(SIZE_IMAGE)
+                .withCmd("sh", "-c", "du -sh /volumes/*")
+                .withHostConfig(HostConfig.newHostConfig()
+                        .withBinds(volumes.stream().map(name -> new Bind(name, new Volume("/volumes/" + name))).toList()))
+                .exec()
+                .getId();
+        try {
+            dockerClient.startContainerCmd(containerId).exec();
+            dockerClient.waitContainerCmd(containerId).start().awaitStatusCode();
+            StringBuilder output = new StringBuilder();
+            dockerClient.logContainerCmd(containerId)
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .exec(new ResultCallback.Adapter<Frame>() {
+                        @Override
+                        public void onNext(Frame item) {
+                            output.append(new String(item.getPayload(), StandardCharsets.UTF_8));
+                        }
+                    })
+                    .awaitCompletion();
+            output.toString().lines()
+                    .map(line -> line.replace("/volumes/", ""))
+                    .forEach(System.out::println);
+        } finally {
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+        }
+    }
+
+    /**
+     * Remove the volumes managed by the CLI, along with the layers of the overlay volumes. Volumes in use by a container
+     * are kept.
+     *
+     * @param dockerClient the Docker client
+     */
+    public static void prune(DockerClient dockerClient) {
+        for (String name : listVolumes(dockerClient)) {
+            try {
+                dockerClient.removeVolumeCmd(name).exec();
+                System.out.println("Removed volume: " + name);
+            } catch (ConflictException e) {
+                System.err.println("Keeping volume " + name + ", that is in use.");
+                continue;
+            }
+            Path overlay = getOverlayDirectory(name);
+            if (Files.isDirectory(overlay)) {
+                try (Stream<Path> files = Files.walk(overlay)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                } catch (IOException e) {
+                    // the jobs write the upper layer as the user of their containers
+                    System.err.println("Could not delete " + overlay + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static List<String> listVolumes(DockerClient dockerClient) {
+        List<InspectVolumeResponse> volumes = dockerClient.listVolumesCmd().exec().getVolumes();
+        return volumes == null ? List.of()
+                : volumes.stream()
+                        .map(InspectVolumeResponse::getName)
+                        .filter(name -> name.startsWith(VOLUME_PREFIX))
+                        .sorted()
+                        .toList();
+    }
+
+    private static boolean exists(DockerClient dockerClient, String name) {
+        try {
+            dockerClient.inspectVolumeCmd(name).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Path getUserHome() {
+        return Paths.get(System.getProperty("user.home"));
+    }
+
+    private static Path getOverlayDirectory(String name) {
+        return getUserHome().resolve(".quarkus-ci").resolve("volumes").resolve(name);
+    }
+}
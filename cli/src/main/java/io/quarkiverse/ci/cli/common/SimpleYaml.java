@@ -0,0 +1,419 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parser of the subset of YAML the generated workflows and pipelines are written in, and that hand-written pipelines
+ * use to share definitions: block mappings and sequences, plain and quoted scalars, literal block scalars, flow
+ * sequences and mappings on a single line, anchors, aliases and merge keys. Mappings are parsed to {@link Map}s,
+ * sequences to {@link List}s and scalars to {@link String}s, so that the caller interprets the values. Aliases are
+ * replaced by the value of their anchor, and merge keys by the entries of the mappings they merge.
+ * Anything else, such as tags, folded scalars or flow collections over several lines, is rejected with an
+ * {@link IllegalArgumentException}.
+ */
+public final class SimpleYaml {
+
+    private static final String MERGE_KEY = "<<";
+
+    private final List<String> lines;
+    private final Map<String, Object> anchors = new HashMap<>();
+    private int index;
+
+    private SimpleYaml(String content) {
+        this.lines = new ArrayList<>(content.lines().map(line -> line.replace("\t", "    ")).toList());
+    }
+
+    /**
+     * Parse a YAML document.
+     *
+     * @param content the document
+     * @return the root mapping or sequence, or an empty mapping for an empty document
+     * @throws IllegalArgumentException if the document is not in the supported subset
+     */
+    public static Object parse(String content) {
+        SimpleYaml yaml = new SimpleYaml(content);
+        yaml.skipBlank();
+        if (yaml.index < yaml.lines.size() && yaml.lines.get(yaml.index).strip().equals("---")) {
+            yaml.index++;
+            yaml.skipBlank();
+        }
+        if (yaml.index >= yaml.lines.size()) {
+            return new LinkedHashMap<String, Object>();
+        }
+        Object root = yaml.parseBlock(indent(yaml.lines.get(yaml.index)));
+        yaml.skipBlank();
+        if (yaml.index < yaml.lines.size()) {
+            throw yaml.unsupported("unexpected indentation");
+        }
+        return root;
+    }
+
+    private Object parseBlock(int indent) {
+        String text = lines.get(index).strip();
+        return text.equals("-") || text.startsWith("- ") ? parseSequence(indent) : parseMapping(indent);
+    }
+
+    private Map<String, Object> parseMapping(int indent) {
+        Map<String, Object> mapping = new LinkedHashMap<>();
+        List<Object> merged = new ArrayList<>();
+        while (skipBlank() && indent(lines.get(index)) == indent) {
+            String text = lines.get(index).strip();
+            if (text.startsWith("- ")) {
+                break;
+            }
+            int colon = findColon(text);
+            if (colon < 0) {
+                throw unsupported("expected a key");
+            }
+            String key = unquote(text.substring(0, colon).strip());
+            String value = text.substring(colon + 1).strip();
+            index++;
+            if (key.equals(MERGE_KEY) && !text.startsWith("\"") && !text.startsWith("'")) {
+                Object merge = parseValue(value, indent, true);
+                merged.addAll(merge instanceof List<?> list ? list : List.of(merge));
+            } else {
+                mapping.put(key, parseValue(value, indent, true));
+            }
+        }
+        // the keys of the mapping take precedence over the merged ones, and the first merged mappings over the next ones
+        for (Object merge : merged) {
+            if (!(merge instanceof Map<?, ?> entries)) {
+                throw unsupported("only mappings can be merged");
+            }
+            entries.forEach((key, value) -> mapping.putIfAbsent((String) key, value));
+        }
+        return mapping;
+    }
+
+    private List<Object> parseSequence(int indent) {
+        List<Object> sequence = new ArrayList<>();
+        while (skipBlank() && indent(lines.get(index)) == indent) {
+            String line = lines.get(index);
+            String text = line.strip();
+            if (!text.equals("-") && !text.startsWith("- ")) {
+                break;
+            }
+            String item = text.substring(1).strip();
+            String anchor = null;
+            if (item.startsWith("&")) {
+                int end = item.indexOf(' ');
+                anchor = end < 0 ? item.substring(1) : item.substring(1, end);
+                item = end < 0 ? "" : item.substring(end + 1).strip();
+            }
+            Object value;
+            if (!item.isEmpty() && findColon(item) >= 0 && !item.startsWith("\"") && !item.startsWith("'")
+                    && !item.startsWith("{") && !item.startsWith("[")) {
+                // a mapping that starts on the line of its dash, parsed as if the dash were a space
+                int itemIndent = indent + (text.length() - item.length());
+                lines.set(index, " ".repeat(itemIndent) + item);
+                value = parseMapping(itemIndent);
+            } else {
+                index++;
+                value = parseValue(item, indent, false);
+            }
+            if (anchor != null) {
+                anchors.put(anchor, value);
+            }
+            sequence.add(value);
+        }
+        return sequence;
+    }
+
+    /**
+     * Parse the value of a key or a sequence item, given the text that follows it on its line.
+     */
+    private Object parseValue(String value, int indent, boolean inMapping) {
+        String plain = stripComment(value);
+        if (plain.startsWith("&")) {
+            int end = plain.indexOf(' ');
+            String anchor = end < 0 ? plain.substring(1) : plain.substring(1, end);
+            Object anchored = parseValue(end < 0 ? "" : plain.substring(end + 1).strip(), indent, inMapping);
+            anchors.put(anchor, anchored);
+            return anchored;
+        }
+        if (plain.startsWith("!") || plain.startsWith(">")) {
+            throw unsupported("unsupported value " + plain);
+        }
+        if (plain.startsWith("*")) {
+            return alias(plain.substring(1));
+        }
+        if (plain.startsWith("|")) {
+            return parseLiteral(plain, indent);
+        }
+        if (plain.startsWith("[") || plain.startsWith("{")) {
+            return new Flow(plain).parse();
+        }
+        if (!plain.isEmpty()) {
+            return unquote(plain);
+        }
+        if (!skipBlank()) {
+            return "";
+        }
+        int next = indent(lines.get(index));
+        String text = lines.get(index).strip();
+        if (next > indent) {
+            return parseBlock(next);
+        }
+        // a sequence may be indented as its key
+        if (inMapping && next == indent && (text.equals("-") || text.startsWith("- "))) {
+            return parseSequence(next);
+        }
+        return "";
+    }
+
+    private String parseLiteral(String header, int indent) {
+        if (!header.equals("|") && !header.equals("|-") && !header.equals("|+")) {
+            throw unsupported("unsupported block scalar " + header);
+        }
+        List<String> block = new ArrayList<>();
+        int contentIndent = -1;
+        while (index < lines.size()) {
+            String line = lines.get(index);
+            if (line.isBlank()) {
+                block.add("");
+                index++;
+                continue;
+            }
+            int lineIndent = indent(line);
+            if (lineIndent <= indent || (contentIndent >= 0 && lineIndent < contentIndent)) {
+                break;
+            }
+            if (contentIndent < 0) {
+                contentIndent = lineIndent;
+            }
+            block.add(line.substring(contentIndent));
+            index++;
+        }
+        // the trailing blank lines belong to the block only with the keep indicator
+        while (!block.isEmpty() && block.get(block.size() - 1).isEmpty()) {
+            block.remove(block.size() - 1);
+        }
+        String literal = String.join("\n", block);
+        return header.equals("|-") || literal.isEmpty() ? literal : literal + "\n";
+    }
+
+    private Object alias(String anchor) {
+        if (!anchors.containsKey(anchor)) {
+            throw unsupported("unknown anchor " + anchor);
+        }
+        return anchors.get(anchor);
+    }
+
+    /**
+     * A flow sequence or mapping, that ends on the line it starts.
+     */
+    private final class Flow {
+
+        private final String text;
+        private int position;
+
+        Flow(String text) {
+            this.text = text;
+        }
+
+        Object parse() {
+            Object value = parseNode();
+            skipSpaces();
+            if (position < text.length()) {
+                throw unsupported("unsupported flow collection " + text);
+            }
+            return value;
+        }
+
+        private Object parseNode() {
+            skipSpaces();
+            if (position >= text.length()) {
+                throw unsupported("unsupported flow collection " + text);
+            }
+            char c = text.charAt(position);
+            if (c == '[') {
+                List<Object> sequence = new ArrayList<>();
+                position++;
+                while (!closes(']')) {
+                    sequence.add(parseNode());
+                    separate(']');
+                }
+                return sequence;
+            }
+            if (c == '{') {
+                Map<String, Object> mapping = new LinkedHashMap<>();
+                position++;
+                while (!closes('}')) {
+                    String key = parseScalar(":,}");
+                    if (position >= text.length() || text.charAt(position) != ':') {
+                        throw unsupported("unsupported flow mapping " + text);
+                    }
+                    position++;
+                    mapping.put(key, parseNode());
+                    separate('}');
+                }
+                return mapping;
+            }
+            if (c == '*') {
+                position++;
+                return alias(parseScalar(",]}"));
+            }
+            if (c == '&' || c == '!') {
+                throw unsupported("unsupported flow collection " + text);
+            }
+            return parseScalar(",]}");
+        }
+
+        /**
+         * Read a scalar, that is quoted, or else ends before one of the given characters.
+         */
+        private String parseScalar(String ends) {
+            skipSpaces();
+            if (position < text.length() && (text.charAt(position) == '"' || text.charAt(position) == '\'')) {
+                String rest = text.substring(position);
+                int end = rest.charAt(0) == '"' ? closingDoubleQuote(rest) : closingSingleQuote(rest);
+                if (end < 0) {
+                    throw unsupported("unsupported flow collection " + text);
+                }
+                position += end + 1;
+                skipSpaces();
+                return unquote(rest.substring(0, end + 1));
+            }
+            int start = position;
+            while (position < text.length() && ends.indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            return text.substring(start, position).strip();
+        }
+
+        /**
+         * Move past the closing character of a collection, if it is next.
+         */
+        private boolean closes(char end) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == end) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Move past the comma between two entries of a collection, unless the collection ends.
+         */
+        private void separate(char end) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == ',') {
+                position++;
+            } else if (position >= text.length() || text.charAt(position) != end) {
+                throw unsupported("unsupported flow collection " + text);
+            }
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && text.charAt(position) == ' ') {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Move to the next line that is not blank or a comment.
+     *
+     * @return whether there is such a line
+     */
+    private boolean skipBlank() {
+        while (index < lines.size() && (lines.get(index).isBlank() || lines.get(index).strip().startsWith("#"))) {
+            index++;
+        }
+        return index < lines.size();
+    }
+
+    /**
+     * Find the colon that ends the key of a line, outside of quotes, that is followed by a space or ends the line.
+     */
+    private static int findColon(String text) {
+        char quote = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\'') {
+                if (i == 0) {
+                    quote = c;
+                } else if (quote == c) {
+                    quote = 0;
+                }
+            } else if (quote == 0 && c == ':' && (i + 1 == text.length() || text.charAt(i + 1) == ' ')) {
+                return i;
+            } else if (quote == 0 && c == '#' && i > 0 && text.charAt(i - 1) == ' ') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static String stripComment(String value) {
+        if (value.startsWith("\"") || value.startsWith("'")) {
+            char quote = value.charAt(0);
+            int end = quote == '"' ? closingDoubleQuote(value) : closingSingleQuote(value);
+            return end < 0 ? value : value.substring(0, end + 1);
+        }
+        int comment = value.startsWith("#") ? 0 : value.indexOf(" #");
+        return (comment < 0 ? value : value.substring(0, comment)).strip();
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+            return value.substring(1, value.length() - 1).replace("''", "'");
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            StringBuilder unescaped = new StringBuilder();
+            String content = value.substring(1, value.length() - 1);
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (c == '\\' && i + 1 < content.length()) {
+                    char escaped = content.charAt(++i);
+                    unescaped.append(switch (escaped) {
+                        case 'n' -> '\n';
+                        case 't' -> '\t';
+                        default -> escaped;
+                    });
+                } else {
+                    unescaped.append(c);
+                }
+            }
+            return unescaped.toString();
+        }
+        return value;
+    }
+
+    private static int closingDoubleQuote(String value) {
+        for (int i = 1; i < value.length(); i++) {
+            if (value.charAt(i) == '\\') {
+                i++;
+            } else if (value.charAt(i) == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int closingSingleQuote(String value) {
+        for (int i = 1; i < value.length(); i++) {
+            if (value.charAt(i) == '\'') {
+                if (i + 1 < value.length() && value.charAt(i + 1) == '\'') {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int indent(String line) {
+        return line.length() - line.stripLeading().length();
+    }
+
+    private IllegalArgumentException unsupported(String reason) {
+        return new IllegalArgumentException("line " + (index + 1) + ": " + reason);
+    }
+}
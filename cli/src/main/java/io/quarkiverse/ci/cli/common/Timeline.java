@@ -0,0 +1,330 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The timeline of a local run, built from the output of the runner as it is produced: the jobs, their steps, the
+ * Maven goals and Gradle tasks they run, including the test phases, and the image pulls and cache outcomes.
+ * The output of act and gitlab-ci-local has no timestamps, so the lines are timed when they are received.
+ */
+public class Timeline {
+
+    /**
+     * Parses the lines of the output of a runner into the timeline.
+     */
+    public interface Parser {
+
+        /**
+         * Parse a line of output.
+         *
+         * @param line the line, without its ANSI escape sequences
+         * @param time the time the line was received, in milliseconds since the epoch
+         * @param timeline the timeline
+         */
+        void parse(String line, long time, Timeline timeline);
+    }
+
+    /**
+     * A span of the timeline.
+     *
+     * @param job the job
+     * @param category job, step, pull, goal or test
+     * @param name the name of the span
+     * @param start the start, in milliseconds since the epoch
+     * @param end the end, in milliseconds since the epoch
+     * @param outcome the outcome, if known
+     */
+    public record Span(String job, String category, String name, long start, long end, String outcome) {
+
+        public long duration() {
+            return end - start;
+        }
+    }
+
+    /**
+     * An instant event of the timeline, such as a cache hit.
+     *
+     * @param job the job
+     * @param category the category of the event
+     * @param name the name of the event
+     * @param time the time of the event, in milliseconds since the epoch
+     */
+    public record Event(String job, String category, String name, long time) {
+    }
+
+    private record Open(String name, long start) {
+    }
+
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[0-9;?]*[A-Za-z]");
+    private static final Pattern MAVEN_GOAL = Pattern
+            .compile("\\[INFO] --- (?:[\\w.-]+:)?([\\w.-]+):[\\w.-]+:([\\w-]+) (?:\\([^)]*\\) )?@ ([\\w.-]+) ---");
+    private static final Pattern MAVEN_END = Pattern.compile("\\[INFO] (?:BUILD (?:SUCCESS|FAILURE)|Reactor Summary)");
+    private static final Pattern GRADLE_TASK = Pattern.compile("^> Task (:\\S+)");
+    private static final Pattern TEST_GOAL = Pattern.compile("(?:surefire|failsafe)[\\w.-]*:(?:test|integration-test)|:test$");
+    private static final List<String> STEP_CATEGORIES = List.of("job", "step", "pull", "goal", "test");
+
+    private final String run;
+    private final Parser parser;
+    private final List<Span> spans = new ArrayList<>();
+    private final List<Event> events = new ArrayList<>();
+    private final Map<String, Map<String, Open>> open = new HashMap<>();
+    private final Map<String, Integer> jobs = new LinkedHashMap<>();
+    private long last;
+
+    /**
+     * Create the timeline of a run.
+     *
+     * @param run the name of the run
+     * @param parser the parser of the output of the runner
+     */
+    public Timeline(String run, Parser parser) {
+        this.run = run;
+        this.parser = parser;
+    }
+
+    /**
+     * Add a line of the output of the runner.
+     *
+     * @param line the line
+     */
+    public synchronized void line(String line) {
+        last = System.currentTimeMillis();
+        parser.parse(ANSI.matcher(line).replaceAll("").strip(), last, this);
+    }
+
+    /**
+     * Record the start of a job, once.
+     *
+     * @param job the job
+     * @param time the time
+     */
+    public void startJob(String job, long time) {
+        if (!jobs.containsKey(job)) {
+            jobs.put(job, jobs.size() + 1);
+            start(job, "job", job, time);
+        }
+    }
+
+    /**
+     * Record the end of a job, that ends its open step, goal and pull.
+     *
+     * @param job the job
+     * @param time the time
+     * @param outcome the outcome of the job
+     */
+    public void endJob(String job, long time, String outcome) {
+        for (String category : List.of("pull", "test", "goal", "step", "job")) {
+            end(job, category, time, category.equals("job") ? outcome : null);
+        }
+    }
+
+    /**
+     * Record the start of a step, that ends the previous step of the job.
+     *
+     * @param job the job
+     * @param name the step
+     * @param time the time
+     */
+    public void startStep(String job, String name, long time) {
+        startJob(job, time);
+        endStep(job, time, null);
+        start(job, "step", name, time);
+    }
+
+    /**
+     * Record the end of the open step of a job, along with its goals.
+     *
+     * @param job the job
+     * @param time the time
+     * @param outcome the outcome of the step, if known
+     */
+    public void endStep(String job, long time, String outcome) {
+        end(job, "pull", time, null);
+        end(job, "test", time, null);
+        end(job, "goal", time, null);
+        end(job, "step", time, outcome);
+    }
+
+    /**
+     * Record the start of an image pull, that ends with the next line of the job.
+     *
+     * @param job the job
+     * @param image the image
+     * @param time the time
+     */
+    public void startPull(String job, String image, long time) {
+        startJob(job, time);
+        start(job, "pull", image, time);
+    }
+
+    /**
+     * Record an instant event.
+     *
+     * @param job the job
+     * @param category the category of the event
+     * @param name the name of the event
+     * @param time the time
+     */
+    public void event(String job, String category, String name, long time) {
+        events.add(new Event(job, category, name, time));
+    }
+
+    /**
+     * Record the output of a job, that ends an open image pull and detects the Maven goals and Gradle tasks it runs.
+     *
+     * @param job the job
+     * @param output the line of output of the job
+     * @param time the time
+     */
+    public void output(String job, String output, long time) {
+        if (open.getOrDefault(job, Map.of()).containsKey("pull")) {
+            end(job, "pull", time, null);
+        }
+        String name = null;
+        Matcher maven = MAVEN_GOAL.matcher(output);
+        Matcher gradle = GRADLE_TASK.matcher(output);
+        if (maven.find()) {
+            name = maven.group(1) + ":" + maven.group(2) + " @ " + maven.group(3);
+        } else if (gradle.find()) {
+            name = gradle.group(1);
+        } else if (MAVEN_END.matcher(output).find()) {
+            end(job, "test", time, null);
+            end(job, "goal", time, null);
+            return;
+        }
+        if (name != null) {
+            end(job, "test", time, null);
+            end(job, "goal", time, null);
+            start(job, TEST_GOAL.matcher(name.split(" @ ")[0]).find() ? "test" : "goal", name, time);
+        }
+    }
+
+    private void start(String job, String category, String name, long time) {
+        open.computeIfAbsent(job, k -> new HashMap<>()).put(category, new Open(name, time));
+    }
+
+    private void end(String job, String category, long time, String outcome) {
+        Open span = open.getOrDefault(job, Map.of()).get(category);
+        if (span != null) {
+            open.get(job).remove(category);
+            spans.add(new Span(job, category, span.name(), span.start(), time, outcome));
+        }
+    }
+
+    /**
+     * End the spans that are still open, at the time of the last line.
+     */
+    public synchronized void finish() {
+        for (String job : new ArrayList<>(open.keySet())) {
+            endJob(job, last, null);
+        }
+    }
+
+    /**
+     * Get the spans of the timeline.
+     *
+     * @return the spans, in order of their end
+     */
+    public synchronized List<Span> getSpans() {
+        return List.copyOf(spans);
+    }
+
+    /**
+     * Print the slowest steps, goals and tests.
+     *
+     * @param output the stream to print to
+     * @param count the number of spans to print
+     */
+    public synchronized void printSlowest(PrintStream output, int count) {
+        List<Span> slowest = spans.stream()
+                .filter(span -> !span.category().equals("job"))
+                .sorted(Comparator.comparingLong(Span::duration).reversed())
+                .limit(count)
+                .toList();
+        if (slowest.isEmpty()) {
+            return;
+        }
+        output.println("Slowest steps:");
+        for (Span span : slowest) {
+            output.printf("  %6.1fs  %-5s %s: %s%n", span.duration() / 1000.0, span.category(), span.job(), span.name());
+        }
+    }
+
+    /**
+     * Write the timeline as JSON.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void writeJson(Path file) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"run\": ").append(quote(run)).append(",\n  \"spans\": [");
+        json.append(spans.stream()
+                .sorted(Comparator.comparingLong(Span::start))
+                .map(span -> "\n    {\"job\": " + quote(span.job()) + ", \"category\": " + quote(span.category())
+                        + ", \"name\": " + quote(span.name()) + ", \"start\": " + span.start() + ", \"end\": " + span.end()
+                        + ", \"durationMillis\": " + span.duration()
+                        + (span.outcome() == null ? "" : ", \"outcome\": " + quote(span.outcome())) + "}")
+                .collect(Collectors.joining(",")));
+        json.append("\n  ],\n  \"events\": [");
+        json.append(events.stream()
+                .map(event -> "\n    {\"job\": " + quote(event.job()) + ", \"category\": " + quote(event.category())
+                        + ", \"name\": " + quote(event.name()) + ", \"time\": " + event.time() + "}")
+                .collect(Collectors.joining(",")));
+        json.append("\n  ]\n}\n");
+        Files.writeString(file, json);
+    }
+
+    /**
+     * Write the timeline in the trace event format, with a thread per job, that trace viewers such as Perfetto or
+     * {@code chrome://tracing} open.
+     *
+     * @param file the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void writeTrace(Path file) throws IOException {
+        List<String> traceEvents = new ArrayList<>();
+        jobs.forEach((job, tid) -> traceEvents.add("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": " + tid
+                + ", \"args\": {\"name\": " + quote(job) + "}}"));
+        spans.stream()
+                .sorted(Comparator.comparingLong(Span::start)
+                        .thenComparingInt(span -> STEP_CATEGORIES.indexOf(span.category())))
+                .forEach(span -> traceEvents.add("{\"name\": " + quote(span.name()) + ", \"cat\": "
+                        + quote(span.category()) + ", \"ph\": \"X\", \"ts\": " + span.start() * 1000 + ", \"dur\": "
+                        + span.duration() * 1000 + ", \"pid\": 1, \"tid\": " + jobs.getOrDefault(span.job(), 0) + "}"));
+        events.forEach(event -> traceEvents.add("{\"name\": " + quote(event.name()) + ", \"cat\": "
+                + quote(event.category()) + ", \"ph\": \"i\", \"s\": \"t\", \"ts\": " + event.time() * 1000
+                + ", \"pid\": 1, \"tid\": " + jobs.getOrDefault(event.job(), 0) + "}"));
+        Files.writeString(file, "{\"traceEvents\": [\n" + String.join(",\n", traceEvents) + "\n]}\n");
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,133 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Collects the images referenced by a GitHub Actions workflow or a GitLab CI pipeline, so that they can be pulled before
+ * the jobs are run: the {@code image:}, {@code container:}, {@code services:} and {@code docker://} references, and the
+ * runner labels of the {@code runs-on:} keys. The files are parsed with {@link SimpleYaml}, and a file it does not support
+ * is skipped, as its images are then pulled by the runner. References that depend on variables or expressions are
+ * skipped, as they are only known once the job runs.
+ */
+public final class WorkflowImages {
+
+    private static final String DOCKER_ACTION = "docker://";
+
+    private WorkflowImages() {
+    }
+
+    /**
+     * Collect the images referenced by workflow or pipeline files.
+     *
+     * @param files the files, the ones that do not exist are ignored
+     * @return the image references, in order of appearance
+     */
+    public static Set<String> collect(List<Path> files) {
+        Set<String> images = new LinkedHashSet<>();
+        for (Path file : files) {
+            parse(file).ifPresent(document -> collect(document, images));
+        }
+        return images;
+    }
+
+    /**
+     * Collect the runner labels of the {@code runs-on:} keys of workflow files.
+     *
+     * @param files the files, the ones that do not exist are ignored
+     * @return the labels, in order of appearance
+     */
+    public static Set<String> collectRunnerLabels(List<Path> files) {
+        Set<String> labels = new LinkedHashSet<>();
+        for (Path file : files) {
+            parse(file).ifPresent(document -> collectRunnerLabels(document, labels));
+        }
+        return labels;
+    }
+
+    static void collect(Object node, Set<String> images) {
+        if (node instanceof List<?> list) {
+            list.forEach(item -> collect(item, images));
+        } else if (node instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> {
+                if ((key.equals("image") || key.equals("container")) && value instanceof String image) {
+                    add(images, image);
+                } else if (key.equals("image") && value instanceof Map<?, ?> image) {
+                    // image: { name: ... } on GitLab
+                    addName(images, image);
+                } else if (key.equals("services") && value instanceof List<?> services) {
+                    // services: [ image ] and services: [ { name: ... } ] on GitLab
+                    for (Object service : services) {
+                        if (service instanceof String image) {
+                            add(images, image);
+                        } else if (service instanceof Map<?, ?> definition) {
+                            addName(images, definition);
+                        }
+                    }
+                } else if (key.equals("uses") && value instanceof String action && action.startsWith(DOCKER_ACTION)) {
+                    add(images, action.substring(DOCKER_ACTION.length()));
+                }
+                collect(value, images);
+            });
+        }
+    }
+
+    private static void collectRunnerLabels(Object node, Set<String> labels) {
+        if (node instanceof List<?> list) {
+            list.forEach(item -> collectRunnerLabels(item, labels));
+        } else if (node instanceof Map<?, ?> map) {
+            map.forEach((key, value) -> {
+                if (key.equals("runs-on") && value instanceof String label && !label.contains("$")) {
+                    labels.add(label);
+                } else {
+                    collectRunnerLabels(value, labels);
+                }
+            });
+        }
+    }
+
+    private static Optional<Object> parse(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(SimpleYaml.parse(Files.readString(file)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addName(Set<String> images, Map<?, ?> definition) {
+        if (definition.get("name") instanceof String image) {
+            add(images, image);
+        }
+    }
+
+    private static void add(Set<String> images, String value) {
+        String image = value.strip();
+        if (!image.isEmpty() && !image.contains("$") && !image.contains("{")) {
+            images.add(image);
+        }
+    }
+
+    /**
+     * Get the reference an image is pulled by, the Docker Engine API pulling every tag of a repository that is given
+     * without a tag or digest.
+     *
+     * @param image the image reference
+     * @return the reference, with the {@code latest} tag if it has no tag nor digest
+     */
+    public static String pullReference(String image) {
+        int name = image.lastIndexOf('/') + 1;
+        return image.indexOf('@') >= 0 || image.indexOf(':', name) >= 0 ? image : image + ":latest";
+    }
+}
@@ -0,0 +1,143 @@
+package io.quarkiverse.ci.cli.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The copy of the project the runner container works in. Only the files tracked by git, the untracked files that are
+ * not ignored and the explicitly included paths are copied, so that build outputs, dependencies and the git objects
+ * of the project stay out of it. The files are listed on the host and synced by the entrypoint of the runner image,
+ * that compares them by checksum and removes the files of the previous sync that are no longer listed, so that a
+ * persistent workspace only receives the files that changed since the last run.
+ */
+public final class WorkspaceSync {
+
+    /**
+     * The mount point of the project in the runner container.
+     */
+    public static final String INPUT = "/input";
+
+    /**
+     * The mount point of the list of the files to sync in the runner container.
+     */
+    public static final String INPUT_FILES = "/input-files";
+
+    /**
+     * The mount point of the workspace storage in the runner container, that holds the workspace and the list of the
+     * files of the last sync.
+     */
+    public static final String SYNC = "/sync";
+
+    /**
+     * The directory the runner works in.
+     */
+    public static final String WORKSPACE = SYNC + "/workspace";
+
+    private static final String VOLUME_PREFIX = RunnerCaches.VOLUME_PREFIX + "workspace-";
+
+    private WorkspaceSync() {
+    }
+
+    /**
+     * Get the identifier of a project, that names the Docker resources kept for it between runs.
+     *
+     * @param projectRoot the root of the project
+     * @return the identifier, that is stable for a project directory
+     */
+    public static String getProjectId(Path projectRoot) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(projectRoot.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the name of the persistent workspace volume of a project.
+     *
+     * @param projectRoot the root of the project
+     * @return the volume name
+     */
+    public static String getVolumeName(Path projectRoot) {
+        return VOLUME_PREFIX + getProjectId(projectRoot);
+    }
+
+    /**
+     * List the files to sync into the workspace.
+     *
+     * @param projectRoot the root of the project
+     * @param includes the untracked or ignored paths to sync as well, relative to the root of the project
+     * @return the paths relative to the root of the project, empty if git could not list the files of the project
+     */
+    public static Optional<List<String>> listFiles(Path projectRoot, List<String> includes) {
+        List<String> files;
+        try {
+            Process process = new ProcessBuilder("git", "ls-files", "-z", "--cached", "--others", "--exclude-standard")
+                    .directory(projectRoot.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (process.waitFor() != 0) {
+                return Optional.empty();
+            }
+            files = List.of(output.split("\0"));
+        } catch (IOException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+
+        Set<String> paths = new LinkedHashSet<>();
+        List<String> candidates = new ArrayList<>(files);
+        candidates.addAll(includes);
+        for (String candidate : candidates) {
+            Path path = projectRoot.resolve(candidate).normalize();
+            String relative = projectRoot.relativize(path).toString().replace('\\', '/');
+            // deleted tracked files are still listed by git, and paths outside of the project cannot be synced
+            if (!relative.isEmpty() && !relative.startsWith("..") && !relative.contains("\n")
+                    && Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                paths.add(relative);
+            }
+        }
+        return Optional.of(List.copyOf(paths));
+    }
+
+    /**
+     * Write the list of the files to sync to a temporary file, to be mounted at {@value #INPUT_FILES}.
+     *
+     * @param files the files to sync
+     * @return the temporary file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writeFileList(List<String> files) throws IOException {
+        return writeFileList(files, Files.createTempFile("quarkus-ci-workspace", ".files"));
+    }
+
+    /**
+     * Write the list of the files to sync to a file, to be mounted at {@value #INPUT_FILES}. The file is rewritten in
+     * place, so that a container it is already mounted in sees the new list.
+     *
+     * @param files the files to sync
+     * @param list the file
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path writeFileList(List<String> files, Path list) throws IOException {
+        Files.write(list, files);
+        return list;
+    }
+}
@@ -0,0 +1,66 @@
+package io.quarkiverse.ci.cli.github;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.quarkiverse.ci.cli.common.Timeline;
+
+/**
+ * Builds the timeline of an act run from its output, whose lines are prefixed with the workflow and job they belong to,
+ * as in {@code [CI/build]}.
+ */
+class ActTimelineParser implements Timeline.Parser {
+
+    private static final Pattern LINE = Pattern.compile("^\\[([^\\]]+)]\\s*(.*)$");
+    private static final Pattern START = Pattern.compile("^\uD83D\uDE80\\s+Start image=");
+    private static final Pattern PULL = Pattern.compile("\uD83D\uDC33\\s+docker pull image=(\\S+)");
+    private static final Pattern STEP = Pattern.compile("^\u2B50\\s+Run (.+)$");
+    private static final Pattern STEP_END = Pattern.compile("^(\u2705|\u274C)\\s+(?:Success|Failure) - ");
+    private static final Pattern JOB_END = Pattern.compile("^\uD83C\uDFC1\\s+Job (succeeded|failed)");
+    private static final Pattern HIT = Pattern.compile("Cache restored from key: (\\S+)");
+    private static final Pattern MISS = Pattern.compile("Cache not found for input keys: ([^,\\s]+)");
+    private static final Pattern SAVED = Pattern.compile("Cache saved with key: (\\S+)");
+    private static final Pattern OUTPUT = Pattern.compile("^\\|\\s?(.*)$");
+
+    @Override
+    public void parse(String line, long time, Timeline timeline) {
+        Matcher matcher = LINE.matcher(line);
+        if (!matcher.matches()) {
+            return;
+        }
+        String job = matcher.group(1);
+        String message = matcher.group(2);
+        Matcher step = STEP.matcher(message);
+        Matcher stepEnd = STEP_END.matcher(message);
+        Matcher jobEnd = JOB_END.matcher(message);
+        Matcher pull = PULL.matcher(message);
+        Matcher output = OUTPUT.matcher(message);
+        if (START.matcher(message).find()) {
+            timeline.startJob(job, time);
+        } else if (pull.find()) {
+            timeline.startPull(job, pull.group(1), time);
+        } else if (step.find()) {
+            timeline.startStep(job, step.group(1), time);
+        } else if (stepEnd.find()) {
+            timeline.endStep(job, time, stepEnd.group(1).equals("\u2705") ? "success" : "failure");
+        } else if (jobEnd.find()) {
+            timeline.endJob(job, time, jobEnd.group(1));
+        } else if (output.find()) {
+            String text = output.group(1);
+            cacheEvent(job, text, time, timeline);
+            timeline.output(job, text, time);
+        } else {
+            timeline.output(job, message, time);
+        }
+    }
+
+    private static void cacheEvent(String job, String text, long time, Timeline timeline) {
+        for (Pattern pattern : new Pattern[] { HIT, MISS, SAVED }) {
+            Matcher matcher = pattern.matcher(text);
+            if (matcher.find()) {
+                String outcome = pattern == HIT ? "hit" : pattern == MISS ? "miss" : "saved";
+                timeline.event(job, "cache", outcome + ": " + matcher.group(1), time);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.quarkiverse.ci.cli.github;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records the outcome of the {@code actions/cache} steps of an act run from its output, that it passes through, so that
+ * the hits and misses of each cache key can be reported once the run is over.
+ */
+class CacheReport extends OutputStream {
+
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[0-9;]*[A-Za-z]");
+    private static final Pattern HIT = Pattern.compile("Cache restored from key: (\\S+)");
+    private static final Pattern MISS = Pattern.compile("Cache not found for input keys: ([^,\\s]+)");
+    private static final Pattern SAVED = Pattern.compile("Cache saved with key: (\\S+)");
+
+    private final PrintStream out;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final Map<String, String> outcomes = new LinkedHashMap<>();
+
+    CacheReport(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        out.write(b);
+        scan(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        out.write(b, off, len);
+        for (int i = off; i < off + len; i++) {
+            scan(b[i]);
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    private void scan(int b) {
+        if (b == '\n') {
+            record(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+        } else {
+            line.write(b);
+        }
+    }
+
+    private void record(String text) {
+        String plain = ANSI.matcher(text).replaceAll("");
+        for (Map.Entry<Pattern, String> outcome : Map.of(HIT, "hit", MISS, "miss", SAVED, "saved").entrySet()) {
+            Matcher matcher = outcome.getKey().matcher(plain);
+            if (matcher.find()) {
+                // a key that missed when restored is saved at the end of the job
+                outcomes.merge(matcher.group(1), outcome.getValue(), (previous, current) -> previous + ", " + current);
+            }
+        }
+    }
+
+    /**
+     * Print the outcome of each cache key, if the run used the cache.
+     */
+    synchronized void print() {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+        out.println();
+        out.println("Cache report:");
+        outcomes.forEach((key, outcome) -> out.println("  " + outcome + ": " + key));
+    }
+}
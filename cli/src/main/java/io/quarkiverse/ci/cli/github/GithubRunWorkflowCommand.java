@@ -1,14 +1,31 @@
 package io.quarkiverse.ci.cli.github;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Volume;
 
 import io.quarkiverse.ci.cli.common.BaseRunCommand;
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.Timeline;
+import io.quarkiverse.ci.cli.common.WorkflowImages;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -16,12 +33,53 @@ import picocli.CommandLine.Parameters;
 @Command(name = "run-workflow", sortOptions = false, mixinStandardHelpOptions = false, header = "Run GitHub Action workflow locally using act.", headerHeading = "%n", commandListHeading = "%nCommands:%n", synopsisHeading = "%nUsage: ", optionListHeading = "%nOptions:%n")
 public class GithubRunWorkflowCommand extends BaseRunCommand implements Callable<Integer> {
 
+    /**
+     * The directory of the host that keeps the cache server entries and the actions downloaded by act between runs.
+     */
+    private static final Path ACT_HOME = Paths.get(System.getProperty("user.home"), ".quarkus-ci", "act");
+
+    /**
+     * The mount point of {@link #ACT_HOME} in the runner container.
+     */
+    private static final String ACT_HOME_MOUNT = "/act";
+
+    /**
+     * The volume that keeps the tools downloaded by the setup actions, such as the JDKs of setup-java.
+     */
+    private static final String TOOL_CACHE_VOLUME = "quarkus-ci-toolcache";
+
+    private static final String TOOL_CACHE = "/opt/hostedtoolcache";
+
+    /**
+     * The start and outcome of the steps and jobs, and the cache outcomes, as reported by act.
+     */
+    private static final Pattern STEPS = Pattern
+            .compile("\u2B50 Run |\u2705 |\u274C |\uD83C\uDFC1 |Job (succeeded|failed)|Cache (restored|not found|saved)");
+
+    private static final List<String> DEFAULT_ACT_ARGS = List.of("-j", "build");
+
     @Parameters(arity = "0..*", paramLabel = "ACT_ARGS", description = "Arguments to pass to act (e.g., -l, -n, -W workflow.yml)")
-    List<String> actArgs = List.of("-j", "build");
+    List<String> actArgs = DEFAULT_ACT_ARGS;
 
     @Option(names = { "-h", "--help" }, usageHelp = true, description = "Display this help message.")
     public boolean help;
 
+    private final CacheReport cacheReport = new CacheReport(System.out);
+
+    private final PrintStream runnerOutput = new PrintStream(cacheReport, true);
+
+    private boolean coldCaches = false;
+
+    @Override
+    protected Pattern getStepPattern() {
+        return STEPS;
+    }
+
+    @Override
+    protected Timeline.Parser getTimelineParser() {
+        return new ActTimelineParser();
+    }
+
     @Override
     public String getContainerName() {
         return "quarkus-ci-act-runner";
@@ -32,9 +90,89 @@ public class GithubRunWorkflowCommand extends BaseRunCommand implements Callable
         return "quarkus-ci-act:latest";
     }
 
+    /**
+     * Get the images of the containers, services and Docker actions of the workflows, along with the images act runs
+     * the jobs in, that are the platforms given with {@code -P} or in an {@code .actrc} file for the runner labels of the
+     * workflows.
+     */
+    @Override
+    public Collection<String> getJobImages(Path projectRoot) {
+        List<Path> workflows = getWorkflows(projectRoot);
+        Set<String> images = new LinkedHashSet<>();
+        Set<String> labels = WorkflowImages.collectRunnerLabels(workflows);
+        try {
+            List<String> args = new ArrayList<>();
+            for (Path actrc : List.of(Path.of(System.getProperty("user.home"), ".actrc"), projectRoot.resolve(".actrc"))) {
+                if (Files.isRegularFile(actrc)) {
+                    Files.readAllLines(actrc).forEach(line -> args.addAll(List.of(line.strip().split("\\s+"))));
+                }
+            }
+            args.addAll(actArgs);
+            for (int i = 0; i < args.size() - 1; i++) {
+                if (args.get(i).equals("-P") || args.get(i).equals("--platform")) {
+                    String[] platform = args.get(i + 1).split("=", 2);
+                    if (platform.length == 2 && labels.contains(platform[0]) && !platform[1].startsWith("-")) {
+                        images.add(platform[1]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        images.addAll(WorkflowImages.collect(workflows));
+        return images;
+    }
+
+    @Override
+    protected List<NativeExecutor.Job> getNativeJobs(Path projectRoot) throws IOException {
+        return NativeWorkflow.getJobs(projectRoot, getWorkflows(projectRoot), actArgs);
+    }
+
+    private List<Path> getWorkflows(Path projectRoot) {
+        for (int i = 0; i < actArgs.size() - 1; i++) {
+            if (actArgs.get(i).equals("-W") || actArgs.get(i).equals("--workflows")) {
+                Path workflows = projectRoot.resolve(actArgs.get(i + 1));
+                if (Files.isRegularFile(workflows)) {
+                    return List.of(workflows);
+                }
+                return listWorkflows(workflows);
+            }
+        }
+        return listWorkflows(projectRoot.resolve(".github").resolve("workflows"));
+    }
+
+    private static List<Path> listWorkflows(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".yml") || file.toString().endsWith(".yaml"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Override
     public Integer call() throws Exception {
         Path projectRoot = findProjectRoot();
+        if (stopRunner) {
+            return stopWarmRunner(projectRoot);
+        }
+        if (cacheUsage || pruneCaches) {
+            return manageCaches();
+        }
+        if (nativeRun) {
+            Optional<Integer> exitCode = runNatively(projectRoot);
+            if (exitCode.isPresent()) {
+                return exitCode.get();
+            }
+        }
+        pullJobImages(projectRoot);
+        if (parallel > 1) {
+            return runInParallel(projectRoot);
+        }
 
         if (!forceDocker) {
             // Try to use act from PATH first
@@ -82,24 +220,125 @@ public class GithubRunWorkflowCommand extends BaseRunCommand implements Callable
         return Optional.empty();
     }
 
-    private Integer runActFromPath(String actPath, Path projectRoot) throws IOException, InterruptedException {
-        List<String> command = new ArrayList<>();
-        command.add(actPath);
-        command.addAll(actArgs);
+    private Integer runActFromPath(String actPath, Path projectRoot) {
+        int exitCode = runProcess(projectRoot, getActCommand(actPath, false, actArgs, null), null, runnerOutput);
+        cacheReport.print();
+        return exitCode;
+    }
 
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(projectRoot.toFile());
-        pb.inheritIO();
+    private Integer runActViaDocker(Path projectRoot) {
+        int exitCode = runInDocker(projectRoot, getActCommand("act", true, actArgs, null));
+        cacheReport.print();
+        return exitCode;
+    }
 
-        Process process = pb.start();
-        return process.waitFor();
+    /**
+     * Get the workflows, that are independent of each other, to run in parallel.
+     */
+    @Override
+    protected List<String> getParallelRuns(Path projectRoot) {
+        return getWorkflows(projectRoot).stream()
+                .map(workflow -> projectRoot.relativize(workflow).toString().replace('\\', '/'))
+                .toList();
     }
 
-    private Integer runActViaDocker(Path projectRoot) {
-        // Prepare command
+    @Override
+    protected Integer runInParallel(Path projectRoot) throws InterruptedException {
+        int exitCode = super.runInParallel(projectRoot);
+        cacheReport.print();
+        return exitCode;
+    }
+
+    @Override
+    protected Integer runParallel(Path projectRoot, String workflow, PrintStream output) {
+        // the default job selection only applies to a single run
+        List<String> args = new ArrayList<>();
+        List<String> given = actArgs.equals(DEFAULT_ACT_ARGS) ? List.of() : actArgs;
+        for (int i = 0; i < given.size(); i++) {
+            if (given.get(i).equals("-W") || given.get(i).equals("--workflows")) {
+                i++;
+            } else {
+                args.add(given.get(i));
+            }
+        }
+        args.addAll(List.of("-W", workflow));
+
+        Optional<String> actPath = forceDocker ? Optional.empty() : findActInPath();
+        if (actPath.isPresent()) {
+            return runProcess(projectRoot, getActCommand(actPath.get(), false, args, workflow), workflow, output);
+        }
+        return runInDocker(projectRoot, getActCommand("act", true, args, workflow), workflow, output);
+    }
+
+    /**
+     * Also run act without its cache server and tool cache, so that the {@code actions/cache} steps miss and the setup
+     * actions download their tools again.
+     */
+    @Override
+    public void useColdCaches() {
+        super.useColdCaches();
+        coldCaches = true;
+    }
+
+    @Override
+    protected List<Bind> getRunnerBinds() {
+        try {
+            Files.createDirectories(ACT_HOME);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return List.of(new Bind(ACT_HOME.toString(), new Volume(ACT_HOME_MOUNT)));
+    }
+
+    @Override
+    protected PrintStream getRunnerOutput() {
+        return runnerOutput;
+    }
+
+    /**
+     * Get the command that runs act.
+     *
+     * @param act the act executable
+     * @param container whether act runs in the runner container
+     * @param args the arguments given to act
+     * @param workflow the workflow of a run of {@code --parallel}, that gets a cache server directory of its own as the
+     *        cache server of act locks its directory, or {@code null} for a single run
+     */
+    private List<String> getActCommand(String act, boolean container, List<String> args, String workflow) {
         List<String> command = new ArrayList<>();
-        command.add("act");
-        command.addAll(actArgs);
-        return runInDocker(projectRoot, command);
+        command.add(act);
+        command.addAll(args);
+        // the container options given to act take precedence over the cache volumes
+        if (!args.contains("--container-options") && !isListOrDryRun(args)) {
+            Map<String, String> mounts = new LinkedHashMap<>(getCacheMounts());
+            if (!coldCaches) {
+                mounts.put(TOOL_CACHE_VOLUME, TOOL_CACHE);
+            }
+            if (!mounts.isEmpty()) {
+                command.add("--container-options");
+                command.add(mounts.entrySet().stream()
+                        .map(mount -> "-v " + mount.getKey() + ":" + mount.getValue())
+                        .collect(Collectors.joining(" ")));
+            }
+        }
+        String actHome = container ? ACT_HOME_MOUNT : ACT_HOME.toString();
+        if (coldCaches && !args.contains("--cache-server-path") && !args.contains("--no-cache-server")) {
+            command.add("--no-cache-server");
+        } else if (!args.contains("--cache-server-path") && !args.contains("--no-cache-server")) {
+            String cache = workflow == null ? "cache" : "cache-" + workflow.replaceAll("[^a-zA-Z0-9_.-]", "_");
+            command.addAll(List.of("--cache-server-path", actHome + "/" + cache));
+        }
+        if (!args.contains("--action-cache-path")) {
+            command.addAll(List.of("--action-cache-path", actHome + "/actions"));
+        }
+        return command;
+    }
+
+    /**
+     * Whether act only lists the jobs or runs them in dry run mode, without starting any container.
+     */
+    private static boolean isListOrDryRun(List<String> args) {
+        return args.stream().anyMatch(arg -> arg.equals("-l") || arg.equals("--list") || arg.equals("-n")
+                || arg.equals("--dryrun") || arg.equals("-g") || arg.equals("--graph"));
     }
 }
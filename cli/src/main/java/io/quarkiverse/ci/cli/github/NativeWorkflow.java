@@ -0,0 +1,310 @@
+package io.quarkiverse.ci.cli.github;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import io.quarkiverse.ci.cli.common.LocalJdks;
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.NativeExecutor.Condition;
+import io.quarkiverse.ci.cli.common.SimpleYaml;
+import io.quarkiverse.ci.common.JdkDistribution;
+
+/**
+ * Translates the jobs of the generated workflows to {@link NativeExecutor} jobs, as act would run them for a push.
+ * Only what the generated workflows use is supported: the {@code run} steps in bash, the checkout, cache and artifact
+ * actions, that are left out as the jobs run in the project with the caches of the host, the setup-java action, that
+ * selects an installed JDK, matrices of {@code include} entries, and the expressions on the workspace, the runner, the
+ * job, the event, the environment and the matrix. Anything else is rejected with an {@link IllegalArgumentException},
+ * so that the workflows run with act instead.
+ */
+final class NativeWorkflow {
+
+    private static final Set<String> WORKFLOW_KEYS = Set.of("name", "on", "env", "concurrency", "permissions", "jobs",
+            "run-name");
+    private static final Set<String> JOB_KEYS = Set.of("name", "runs-on", "timeout-minutes", "steps", "env", "needs",
+            "if", "continue-on-error", "permissions", "strategy");
+    private static final Set<String> STEP_KEYS = Set.of("name", "id", "uses", "with", "run", "if", "env", "shell",
+            "continue-on-error", "timeout-minutes");
+    private static final Set<String> SKIPPED_ACTIONS = Set.of("actions/checkout", "actions/cache", "actions/upload-artifact",
+            "actions/download-artifact");
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{\\{\\s*(.*?)\\s*}}");
+    private static final Pattern EVENT_CONDITION = Pattern.compile("^github\\.event_name\\s*(==|!=)\\s*'([^']*)'$");
+    private static final String EVENT = "push";
+
+    private NativeWorkflow() {
+    }
+
+    /**
+     * Get the jobs of workflows.
+     *
+     * @param projectRoot the root of the project
+     * @param workflows the workflow files
+     * @param actArgs the arguments given to act, of which only the job and workflow selection is supported
+     * @return the jobs, in the order of the workflows, each after the jobs it needs
+     * @throws IOException if a workflow cannot be read
+     */
+    static List<NativeExecutor.Job> getJobs(Path projectRoot, List<Path> workflows, List<String> actArgs)
+            throws IOException {
+        String selectedJob = null;
+        for (int i = 0; i < actArgs.size(); i++) {
+            String arg = actArgs.get(i);
+            if ((arg.equals("-j") || arg.equals("--job")) && i + 1 < actArgs.size()) {
+                selectedJob = actArgs.get(++i);
+            } else if ((arg.equals("-W") || arg.equals("--workflows")) && i + 1 < actArgs.size()) {
+                // the workflows are already resolved by the caller
+                i++;
+            } else {
+                throw new IllegalArgumentException("act argument " + arg + " is not supported");
+            }
+        }
+        List<NativeExecutor.Job> jobs = new ArrayList<>();
+        for (Path workflow : workflows) {
+            Map<String, Object> root = asMap(SimpleYaml.parse(Files.readString(workflow)), workflow.toString());
+            checkKeys(root, WORKFLOW_KEYS, "workflow " + workflow.getFileName());
+            Map<String, String> workflowEnv = getEnv(root.get("env"));
+            Map<String, Map<String, Object>> definitions = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> job : asMap(root.get("jobs"), "jobs").entrySet()) {
+                if (selectedJob == null || selectedJob.equals(job.getKey())) {
+                    definitions.put(job.getKey(), asMap(job.getValue(), job.getKey()));
+                }
+            }
+            // the names of the jobs of each job definition, one per matrix entry, for the jobs that need them
+            Map<String, Set<String>> names = new LinkedHashMap<>();
+            for (String id : orderByNeeds(definitions)) {
+                Set<String> needs = new LinkedHashSet<>();
+                getNeeds(definitions.get(id)).forEach(need -> needs.addAll(names.getOrDefault(need, Set.of())));
+                List<NativeExecutor.Job> translated = getJob(projectRoot, id, definitions.get(id), workflowEnv, needs);
+                names.put(id, translated.stream().map(NativeExecutor.Job::name).collect(Collectors.toSet()));
+                jobs.addAll(translated);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Order the job definitions of a workflow so that each comes after those it needs, as act runs them.
+     */
+    private static List<String> orderByNeeds(Map<String, Map<String, Object>> definitions) {
+        List<String> ordered = new ArrayList<>();
+        while (ordered.size() < definitions.size()) {
+            String next = definitions.keySet().stream()
+                    .filter(id -> !ordered.contains(id))
+                    .filter(id -> getNeeds(definitions.get(id)).stream()
+                            .allMatch(need -> ordered.contains(need) || !definitions.containsKey(need)))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("the needs of the jobs form a cycle"));
+            ordered.add(next);
+        }
+        return ordered;
+    }
+
+    private static List<String> getNeeds(Map<String, Object> definition) {
+        Object needs = definition.get("needs");
+        if (needs == null) {
+            return List.of();
+        }
+        return needs instanceof List ? asList(needs, "needs").stream().map(Object::toString).toList()
+                : List.of(needs.toString());
+    }
+
+    /**
+     * Get the jobs of a job definition, one per entry of its matrix.
+     */
+    private static List<NativeExecutor.Job> getJob(Path projectRoot, String id, Map<String, Object> definition,
+            Map<String, String> workflowEnv, Set<String> needs) {
+        checkKeys(definition, JOB_KEYS, "job " + id);
+        if (definition.containsKey("if") && getCondition(definition.get("if").toString()).isEmpty()) {
+            return List.of();
+        }
+        List<Map<String, String>> matrix = getMatrix(id, definition.get("strategy"));
+        List<NativeExecutor.Job> jobs = new ArrayList<>();
+        for (Map<String, String> entry : matrix) {
+            Map<String, String> env = new LinkedHashMap<>();
+            env.put("GITHUB_WORKSPACE", projectRoot.toString());
+            env.put("GITHUB_JOB", id);
+            env.put("GITHUB_EVENT_NAME", EVENT);
+            env.put("RUNNER_OS", getRunnerOs());
+            env.putAll(workflowEnv);
+            env.putAll(getEnv(definition.get("env")));
+            Path javaHome = null;
+            List<NativeExecutor.Step> steps = new ArrayList<>();
+            for (Object item : asList(definition.get("steps"), "steps of " + id)) {
+                Map<String, Object> step = asMap(item, "step of " + id);
+                checkKeys(step, STEP_KEYS, "step of " + id);
+                Optional<Condition> condition = step.containsKey("if")
+                        ? getCondition(step.get("if").toString())
+                        : Optional.of(Condition.SUCCESS);
+                if (condition.isEmpty()) {
+                    continue;
+                }
+                if (step.containsKey("uses")) {
+                    String action = step.get("uses").toString().split("@")[0];
+                    if (action.equals("actions/setup-java")) {
+                        javaHome = findJdk(asMap(step.getOrDefault("with", Map.of()), "with"));
+                    } else if (!SKIPPED_ACTIONS.contains(action)) {
+                        throw new IllegalArgumentException("action " + action + " is not supported");
+                    }
+                    continue;
+                }
+                Object shell = step.getOrDefault("shell", "bash");
+                if (!shell.equals("bash")) {
+                    throw new IllegalArgumentException("shell " + shell + " is not supported");
+                }
+                String script = substitute(asString(step.get("run"), "run"), entry);
+                String name = step.containsKey("name") ? substitute(step.get("name").toString(), entry)
+                        : script.lines().findFirst().orElse("run");
+                steps.add(new NativeExecutor.Step(name, script, condition.get(),
+                        "true".equals(step.get("continue-on-error")), getEnv(step.get("env"))));
+            }
+            String name = substitute(definition.getOrDefault("name", id).toString(), entry);
+            jobs.add(new NativeExecutor.Job(name, needs, javaHome, env, steps,
+                    "true".equals(definition.get("continue-on-error")), true));
+        }
+        return jobs;
+    }
+
+    /**
+     * Get the entries of the matrix of a job, a single empty entry without a matrix.
+     */
+    private static List<Map<String, String>> getMatrix(String id, Object strategy) {
+        if (strategy == null) {
+            return List.of(Map.of());
+        }
+        Map<String, Object> matrix = asMap(asMap(strategy, "strategy of " + id).get("matrix"), "matrix of " + id);
+        if (matrix.size() != 1 || !matrix.containsKey("include")) {
+            throw new IllegalArgumentException("matrix of " + id + " is not a list of include entries");
+        }
+        List<Map<String, String>> entries = new ArrayList<>();
+        for (Object include : asList(matrix.get("include"), "include of " + id)) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            asMap(include, "include of " + id).forEach((key, value) -> entry.put(key, asString(value, key)));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static Path findJdk(Map<String, Object> with) {
+        if (with.containsKey("java-version-file") || !with.containsKey("java-version")) {
+            throw new IllegalArgumentException("setup-java without a java-version is not supported");
+        }
+        String version = with.get("java-version").toString();
+        JdkDistribution distribution = JdkDistribution.fromString(String.valueOf(with.get("distribution")));
+        return LocalJdks.find(distribution, version)
+                .orElseThrow(() -> new IllegalArgumentException("no JDK " + version + " is installed"));
+    }
+
+    /**
+     * Evaluate the condition of a job or step.
+     *
+     * @return when the job or step runs, empty if it never runs for a push
+     */
+    private static Optional<Condition> getCondition(String condition) {
+        Matcher wrapped = EXPRESSION.matcher(condition.strip());
+        String expression = wrapped.matches() ? wrapped.group(1) : condition.strip();
+        Matcher event = EVENT_CONDITION.matcher(expression);
+        if (event.matches()) {
+            boolean equal = event.group(2).equals(EVENT);
+            return equal == event.group(1).equals("==") ? Optional.of(Condition.SUCCESS) : Optional.empty();
+        }
+        return switch (expression) {
+            case "success()" -> Optional.of(Condition.SUCCESS);
+            case "always()", "!cancelled()" -> Optional.of(Condition.ALWAYS);
+            case "failure()" -> Optional.of(Condition.FAILURE);
+            default -> throw new IllegalArgumentException("condition " + condition + " is not supported");
+        };
+    }
+
+    /**
+     * Replace the expressions of a script by the environment variables of the job, as they are set to the same values,
+     * or by the values of the matrix entry.
+     */
+    private static String substitute(String text, Map<String, String> matrix) {
+        Matcher matcher = EXPRESSION.matcher(text);
+        StringBuilder substituted = new StringBuilder();
+        while (matcher.find()) {
+            String expression = matcher.group(1);
+            String value = switch (expression) {
+                case "github.workspace" -> "${GITHUB_WORKSPACE}";
+                case "github.job" -> "${GITHUB_JOB}";
+                case "github.event_name" -> "${GITHUB_EVENT_NAME}";
+                case "runner.os" -> "${RUNNER_OS}";
+                case "runner.temp" -> "${RUNNER_TEMP}";
+                default -> {
+                    if (expression.matches("env\\.[A-Za-z_][A-Za-z0-9_]*")) {
+                        yield "${" + expression.substring("env.".length()) + "}";
+                    }
+                    if (expression.startsWith("matrix.") && matrix.containsKey(expression.substring("matrix.".length()))) {
+                        yield matrix.get(expression.substring("matrix.".length()));
+                    }
+                    throw new IllegalArgumentException("expression " + matcher.group() + " is not supported");
+                }
+            };
+            matcher.appendReplacement(substituted, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(substituted);
+        return substituted.toString();
+    }
+
+    private static Map<String, String> getEnv(Object env) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        if (env == null) {
+            return variables;
+        }
+        asMap(env, "env").forEach((name, value) -> {
+            String text = asString(value, name);
+            if (text.contains("${{")) {
+                throw new IllegalArgumentException("expression in env " + name + " is not supported");
+            }
+            variables.put(name, text);
+        });
+        return variables;
+    }
+
+    private static String getRunnerOs() {
+        String os = System.getProperty("os.name").toLowerCase();
+        return os.contains("mac") ? "macOS" : os.contains("win") ? "Windows" : "Linux";
+    }
+
+    private static void checkKeys(Map<String, Object> definition, Set<String> supported, String context) {
+        for (String key : definition.keySet()) {
+            if (!supported.contains(key)) {
+                throw new IllegalArgumentException(key + " in " + context + " is not supported");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value, String context) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(context + " is not a mapping");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value, String context) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(context + " is not a sequence");
+        }
+        return (List<Object>) value;
+    }
+
+    private static String asString(Object value, String context) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(context + " is not a scalar");
+        }
+        return (String) value;
+    }
+}
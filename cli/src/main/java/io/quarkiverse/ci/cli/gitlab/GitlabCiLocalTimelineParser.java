@@ -0,0 +1,46 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.quarkiverse.ci.cli.common.Timeline;
+
+/**
+ * Builds the timeline of a gitlab-ci-local run from its output, whose lines are prefixed with the job they belong to,
+ * as in {@code build $ mvn verify}. Each command of the script of a job is a step.
+ */
+class GitlabCiLocalTimelineParser implements Timeline.Parser {
+
+    private static final Pattern LINE = Pattern.compile("^([\\w.:/-]+)\\s+(.*)$");
+    private static final Pattern START = Pattern.compile("^starting \\S+");
+    private static final Pattern PULLED = Pattern.compile("^pulled (\\S+) in (.+)$");
+    private static final Pattern COMMAND = Pattern.compile("^\\$ (.+)$");
+    private static final Pattern FINISHED = Pattern.compile("^finished in .*?(FAIL)?\\s*$");
+    private static final Pattern OUTPUT = Pattern.compile("^>\\s?(.*)$");
+
+    @Override
+    public void parse(String line, long time, Timeline timeline) {
+        Matcher matcher = LINE.matcher(line);
+        if (!matcher.matches()) {
+            return;
+        }
+        String job = matcher.group(1);
+        String message = matcher.group(2);
+        Matcher pulled = PULLED.matcher(message);
+        Matcher command = COMMAND.matcher(message);
+        Matcher finished = FINISHED.matcher(message);
+        Matcher output = OUTPUT.matcher(message);
+        if (START.matcher(message).find()) {
+            timeline.startJob(job, time);
+        } else if (pulled.find()) {
+            // the pull is only reported once over, along with its duration
+            timeline.event(job, "pull", pulled.group(1) + " in " + pulled.group(2), time);
+        } else if (command.find()) {
+            timeline.startStep(job, command.group(1), time);
+        } else if (finished.find()) {
+            timeline.endJob(job, time, finished.group(1) == null ? "succeeded" : "failed");
+        } else if (output.find()) {
+            timeline.output(job, output.group(1), time);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import java.nio.file.Path;
+import java.util.Properties;
+
+import picocli.CommandLine.Command;
+
+@Command(name = "generate-image", sortOptions = false, mixinStandardHelpOptions = false, header = "Generate GitLab CI pipeline along with the Dockerfile of a CI image for the current Quarkus project.", headerHeading = "%n", commandListHeading = "%nCommands:%n", synopsisHeading = "%nUsage: ", optionListHeading = "%nOptions:%n")
+public class GitlabGenerateImageCommand extends GitlabGeneratePipelineCommand {
+
+    @Override
+    public Properties getBuildSystemProperties(Path outputDir) {
+        Properties buildSystemProperties = super.getBuildSystemProperties(outputDir);
+        buildSystemProperties.put("quarkus.gitlab-ci.ci-image.enabled", "true");
+        return buildSystemProperties;
+    }
+}
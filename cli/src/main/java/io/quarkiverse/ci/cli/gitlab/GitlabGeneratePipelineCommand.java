@@ -15,6 +15,7 @@ import java.util.concurrent.Callable;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import io.quarkiverse.ci.cli.common.BaseRunCommand;
 import io.quarkiverse.ci.gitlab.spi.GeneratedGitlabCiResourceBuildItem;
 import io.quarkus.bootstrap.BootstrapAppModelFactory;
 import io.quarkus.bootstrap.BootstrapException;
@@ -37,10 +38,17 @@ public class GitlabGeneratePipelineCommand implements Callable<Integer> {
     private static final ArtifactDependency QUARKUS_GITLAB_CI = new ArtifactDependency("io.quarkiverse.ci",
             "quarkus-ci-gitlab", null,
             "jar", GitlabGeneratePipelineCommand.getVersion());
+    private static final String PREFERRED_IMAGES_PROPERTY = "quarkus.gitlab-ci.image-selection.preferred-images";
 
     @Parameters(arity = "0..1", paramLabel = "GENERATION_PATH", description = " The path to generate the GitLab CI pipeline files. Default is current directory.")
     Optional<String> generationPath = Optional.of(".");
 
+    @Option(names = "--prefer-image", paramLabel = "IMAGE", description = "An image already cached on the runners, preferred by the pull-cost image selection. Can be repeated.")
+    List<String> preferredImages = new ArrayList<>();
+
+    @Option(names = "--prefer-local-images", description = "Also prefer the images of the local Docker store, for a pipeline run on this machine with run-pipeline. The generated pipeline then depends on the images of this machine.")
+    boolean preferLocalImages;
+
     @Option(names = { "-h", "--help" }, usageHelp = true, description = "Display this help message.")
     public boolean help;
 
@@ -64,6 +72,13 @@ public class GitlabGeneratePipelineCommand implements Callable<Integer> {
             }
         }
         buildSystemProperties.put("quarkus.gitlab-ci.generation.enabled", "true");
+        List<String> images = new ArrayList<>(preferredImages);
+        if (preferLocalImages) {
+            images.addAll(BaseRunCommand.listLocalImages());
+        }
+        if (!images.isEmpty()) {
+            buildSystemProperties.put(PREFERRED_IMAGES_PROPERTY, String.join(",", images));
+        }
         return buildSystemProperties;
     }
 
@@ -144,6 +159,7 @@ public class GitlabGeneratePipelineCommand implements Callable<Integer> {
 
     protected void writeStringSafe(Path p, String content) {
         try {
+            Files.createDirectories(p.toAbsolutePath().getParent());
             Files.writeString(p, content);
         } catch (IOException e) {
             throw new RuntimeException(e);
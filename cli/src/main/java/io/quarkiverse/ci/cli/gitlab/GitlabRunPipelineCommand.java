@@ -1,30 +1,114 @@
 package io.quarkiverse.ci.cli.gitlab;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.github.dockerjava.api.DockerClient;
 
 import io.quarkiverse.ci.cli.common.BaseRunCommand;
+import io.quarkiverse.ci.cli.common.Directories;
+import io.quarkiverse.ci.cli.common.JobResultCache;
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.SimpleYaml;
+import io.quarkiverse.ci.cli.common.Timeline;
+import io.quarkiverse.ci.cli.common.WorkflowImages;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.ExitCode;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 @Command(name = "run-pipeline", sortOptions = false, mixinStandardHelpOptions = false, header = "Run GitLab CI pipeline locally using gitlab-ci-local.", headerHeading = "%n", commandListHeading = "%nCommands:%n", synopsisHeading = "%nUsage: ", optionListHeading = "%nOptions:%n")
 public class GitlabRunPipelineCommand extends BaseRunCommand implements Callable<Integer> {
 
+    /**
+     * The start, script commands and end of the jobs, as reported by gitlab-ci-local.
+     */
+    private static final Pattern STEPS = Pattern.compile(" starting | \\$ | finished in |(PASS|FAIL|WARN)\\s");
+
+    private static final Set<String> KEYWORDS = Set.of("default", "include", "stages", "variables", "workflow", "image",
+            "services", "cache", "before_script", "after_script");
+
+    /**
+     * The directory of the state directories of the jobs that gitlab-ci-local from the PATH runs in parallel.
+     */
+    private static final Path PARALLEL_STATE_DIRECTORY = Paths.get(".gitlab-ci-local", "parallel");
+
     @Parameters(arity = "0..*", paramLabel = "JOB_NAME", description = "Job name to run (default: runs all jobs)")
     List<String> jobNames = new ArrayList<>();
 
+    @Option(names = {
+            "--cache-results" }, description = "Skip the jobs whose definition, image and input files are unchanged since their last successful run, and restore their artifacts instead. Needs --native or gitlab-ci-local on the PATH.")
+    public boolean cacheResults = false;
+
+    @Option(names = {
+            "--result-inputs" }, paramLabel = "PATHSPEC", description = "Git pathspec of the files the jobs depend on with --cache-results, can be repeated (default: the sources and build files of the modules).")
+    public List<String> resultInputs = new ArrayList<>();
+
     @Option(names = { "-h", "--help" }, usageHelp = true, description = "Display this help message.")
     public boolean help;
 
+    private Map<String, Set<String>> parallelNeeds;
+
     @Override
     public Integer call() throws Exception {
         Path projectRoot = findProjectRoot();
+        if (stopRunner) {
+            return stopWarmRunner(projectRoot);
+        }
+        if (cacheUsage || pruneCaches) {
+            return manageCaches();
+        }
+        if (!nativeRun) {
+            pullJobImages(projectRoot);
+        }
+        Map<String, String> fingerprints = Map.of();
+        if (cacheResults) {
+            if (!runsInProjectDirectory(projectRoot)) {
+                System.err.println("--cache-results needs --native or gitlab-ci-local on the PATH: gitlab-ci-local in"
+                        + " Docker runs the jobs in the runner workspace, where the artifacts are neither restored nor"
+                        + " recorded.");
+                return ExitCode.USAGE;
+            }
+            Optional<Map<String, String>> changed = skipUnchangedJobs(projectRoot);
+            if (changed.isEmpty()) {
+                System.out.println("All the jobs are unchanged since their last successful run.");
+                return ExitCode.OK;
+            }
+            fingerprints = changed.get();
+        }
+        int exitCode = runJobs(projectRoot);
+        if (exitCode == ExitCode.OK && !fingerprints.isEmpty()) {
+            storeResults(projectRoot, fingerprints);
+        }
+        return exitCode;
+    }
+
+    private Integer runJobs(Path projectRoot) throws InterruptedException {
+        if (nativeRun) {
+            Optional<Integer> exitCode = runNatively(projectRoot);
+            if (exitCode.isPresent()) {
+                return exitCode.get();
+            }
+            pullJobImages(projectRoot);
+        }
+        if (parallel > 1) {
+            return runInParallel(projectRoot);
+        }
 
         if (!forceDocker) {
             // Try to use gitlab-ci-local from PATH first
@@ -40,6 +124,72 @@ public class GitlabRunPipelineCommand extends BaseRunCommand implements Callable
         return runGitlabCiLocalViaDocker(projectRoot);
     }
 
+    @Override
+    protected List<NativeExecutor.Job> getNativeJobs(Path projectRoot) throws IOException {
+        return NativePipeline.getJobs(projectRoot, jobNames);
+    }
+
+    /**
+     * Whether the jobs run in the project directory, natively or with gitlab-ci-local from the PATH, rather than in the
+     * workspace of gitlab-ci-local in Docker, which only gets the files of the project that are not ignored.
+     */
+    boolean runsInProjectDirectory(Path projectRoot) {
+        if (nativeRun) {
+            try {
+                getNativeJobs(projectRoot);
+                return true;
+            } catch (IllegalArgumentException | IOException e) {
+                // the pipeline runs with gitlab-ci-local instead
+            }
+        }
+        return !forceDocker && findGitlabCiLocalInPath().isPresent();
+    }
+
+    /**
+     * Skip the jobs to run whose fingerprint has a recorded successful run, and restore their artifacts.
+     *
+     * @return the fingerprints of the jobs left to run, empty if every job was skipped
+     */
+    private Optional<Map<String, String>> skipUnchangedJobs(Path projectRoot) throws IOException {
+        List<String> jobs = getParallelRuns(projectRoot);
+        Map<String, Object> pipeline = readPipeline(projectRoot);
+        JobResultCache cache = new JobResultCache(projectRoot,
+                resultInputs.isEmpty() ? JobResultCache.DEFAULT_INPUTS : resultInputs);
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        try (DockerClient dockerClient = createDockerClient()) {
+            for (String job : jobs) {
+                String fingerprint = cache.fingerprint(getJobDefinition(pipeline, job),
+                        JobResultCache.getImageId(dockerClient, getJobImage(pipeline, job)));
+                if (cache.restore(fingerprint)) {
+                    System.out.println("Skipping job " + job + ", unchanged since its last successful run.");
+                } else {
+                    fingerprints.put(job, fingerprint);
+                }
+            }
+        }
+        if (!jobs.isEmpty() && fingerprints.isEmpty()) {
+            return Optional.empty();
+        }
+        if (fingerprints.size() < jobs.size()) {
+            // the jobs left run on their own, as with --job, rather than as the whole pipeline
+            jobNames = new ArrayList<>(fingerprints.keySet());
+            parallelNeeds = null;
+        }
+        return Optional.of(fingerprints);
+    }
+
+    /**
+     * Record the successful run of the jobs, along with the artifacts they left in the project directory.
+     */
+    private void storeResults(Path projectRoot, Map<String, String> fingerprints) throws IOException {
+        Map<String, Object> pipeline = readPipeline(projectRoot);
+        JobResultCache cache = new JobResultCache(projectRoot,
+                resultInputs.isEmpty() ? JobResultCache.DEFAULT_INPUTS : resultInputs);
+        for (Map.Entry<String, String> job : fingerprints.entrySet()) {
+            cache.store(job.getKey(), job.getValue(), getArtifactPaths(pipeline, job.getKey()));
+        }
+    }
+
     private Path findProjectRoot() {
         Path current = getWorkingDirectory();
         while (current != null && !current.getRoot().equals(current)) {
@@ -72,25 +222,11 @@ public class GitlabRunPipelineCommand extends BaseRunCommand implements Callable
         return Optional.empty();
     }
 
-    private Integer runGitlabCiLocalFromPath(String gitlabCiLocalPath, Path projectRoot)
-            throws IOException, InterruptedException {
+    private Integer runGitlabCiLocalFromPath(String gitlabCiLocalPath, Path projectRoot) {
         List<String> command = new ArrayList<>();
         command.add(gitlabCiLocalPath);
-
-        // Add job names if specified
-        if (!jobNames.isEmpty()) {
-            for (String jobName : jobNames) {
-                command.add("--job");
-                command.add(jobName);
-            }
-        }
-
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(projectRoot.toFile());
-        pb.inheritIO();
-
-        Process process = pb.start();
-        return process.waitFor();
+        command.addAll(getGitlabCiLocalArgs(jobNames));
+        return runProcess(projectRoot, command, null, getRunnerOutput());
     }
 
     private Integer runGitlabCiLocalViaDocker(Path projectRoot) {
@@ -101,14 +237,230 @@ public class GitlabRunPipelineCommand extends BaseRunCommand implements Callable
     private Integer runGitlabCiLocalJobViaDocker(Path projectRoot) {
         List<String> command = new ArrayList<>();
         command.add("gitlab-ci-local");
+        command.addAll(getGitlabCiLocalArgs(jobNames));
+        return runInDocker(projectRoot, command);
+    }
+
+    /**
+     * Get the jobs to run in parallel, that are the given jobs, or all the jobs of the pipeline, in the order of their
+     * stages.
+     */
+    @Override
+    protected List<String> getParallelRuns(Path projectRoot) {
+        return List.copyOf(getParallelNeeds(projectRoot).keySet());
+    }
 
-        if (!jobNames.isEmpty()) {
-            for (String jobName : jobNames) {
-                command.add("--job");
-                command.add(jobName);
+    /**
+     * Get the jobs each job to run in parallel needs among the jobs to run: those of its {@code needs}, or else those of
+     * the earlier stages.
+     */
+    @Override
+    protected Map<String, Set<String>> getParallelNeeds(Path projectRoot) {
+        if (parallelNeeds == null) {
+            try {
+                Map<String, Object> pipeline = readPipeline(projectRoot);
+                List<String> jobs = !jobNames.isEmpty() ? jobNames
+                        : pipeline.entrySet().stream()
+                                .filter(entry -> entry.getValue() instanceof Map)
+                                .map(Map.Entry::getKey)
+                                .filter(key -> !key.startsWith(".") && !KEYWORDS.contains(key))
+                                .toList();
+                parallelNeeds = NativePipeline.getNeeds(pipeline, jobs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
-        return runInDocker(projectRoot, command);
+        return parallelNeeds;
+    }
+
+    /**
+     * Run a job on its own. gitlab-ci-local from the PATH runs it with a state directory of its own, holding the
+     * artifacts of the jobs it needs, and without copying its artifacts to the project, where the concurrent jobs would
+     * overwrite each other's: they are copied once all the jobs are over. gitlab-ci-local in Docker runs it in a
+     * workspace of its own, without the artifacts of the other runs, so it runs the jobs it needs again.
+     */
+    @Override
+    protected Integer runParallel(Path projectRoot, String jobName, PrintStream output) {
+        List<String> args = getGitlabCiLocalArgs(List.of(jobName));
+        Set<String> needs = getParallelNeeds(projectRoot).getOrDefault(jobName, Set.of());
+        Optional<String> gitlabCiLocalPath = forceDocker ? Optional.empty() : findGitlabCiLocalInPath();
+        if (gitlabCiLocalPath.isPresent()) {
+            Path stateDirectory = getStateDirectory(projectRoot, jobName);
+            try {
+                Directories.delete(stateDirectory);
+                for (String need : needs) {
+                    Path artifacts = getArtifactsDirectory(getStateDirectory(projectRoot, need), need);
+                    if (Files.isDirectory(artifacts)) {
+                        Directories.copy(artifacts, getArtifactsDirectory(stateDirectory, need));
+                    }
+                }
+            } catch (IOException e) {
+                output.println("Error: " + e.getMessage());
+                return ExitCode.SOFTWARE;
+            }
+            List<String> command = new ArrayList<>();
+            command.add(gitlabCiLocalPath.get());
+            command.addAll(args);
+            command.add("--state-dir");
+            command.add(projectRoot.relativize(stateDirectory).toString());
+            command.add("--no-artifacts-to-source");
+            return runProcess(projectRoot, command, jobName, output);
+        }
+        List<String> command = new ArrayList<>();
+        command.add("gitlab-ci-local");
+        command.addAll(args);
+        if (!needs.isEmpty()) {
+            command.add("--needs");
+        }
+        return runInDocker(projectRoot, command, jobName, output);
+    }
+
+    /**
+     * Copy the artifacts of the jobs run by gitlab-ci-local from the PATH to the project once they are all over, in the
+     * order of their stages, as the pipeline would have left them.
+     */
+    @Override
+    protected Integer runInParallel(Path projectRoot) throws InterruptedException {
+        int exitCode = super.runInParallel(projectRoot);
+        if (forceDocker || findGitlabCiLocalInPath().isEmpty()) {
+            return exitCode;
+        }
+        for (String job : getParallelRuns(projectRoot)) {
+            Path artifacts = getArtifactsDirectory(getStateDirectory(projectRoot, job), job);
+            try {
+                if (Files.isDirectory(artifacts)) {
+                    Directories.copy(artifacts, projectRoot);
+                }
+            } catch (IOException e) {
+                System.err.println("Could not copy the artifacts of " + job + ": " + e.getMessage());
+                return ExitCode.SOFTWARE;
+            }
+        }
+        return exitCode;
+    }
+
+    /**
+     * Get the gitlab-ci-local state directory of a job run in parallel.
+     */
+    private static Path getStateDirectory(Path projectRoot, String job) {
+        return projectRoot.resolve(PARALLEL_STATE_DIRECTORY).resolve(getSafeJobName(job));
+    }
+
+    /**
+     * Get the directory gitlab-ci-local keeps the artifacts of a job in, in a state directory.
+     */
+    private static Path getArtifactsDirectory(Path stateDirectory, String job) {
+        return stateDirectory.resolve("artifacts").resolve(getSafeJobName(job));
+    }
+
+    private static String getSafeJobName(String job) {
+        return job.replaceAll("[^\\w-]+", "-");
+    }
+
+    private List<String> getGitlabCiLocalArgs(List<String> jobs) {
+        List<String> args = new ArrayList<>();
+
+        // Add job names if specified
+        for (String jobName : jobs) {
+            args.add("--job");
+            args.add(jobName);
+        }
+        getCacheMounts().forEach((volume, path) -> {
+            args.add("--volume");
+            args.add(volume + ":" + path);
+        });
+        return args;
+    }
+
+    /**
+     * Read the pipeline of a project.
+     *
+     * @return the top-level entries of the pipeline, empty if there is none
+     * @throws IllegalArgumentException if the pipeline uses YAML that {@link SimpleYaml} does not support
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readPipeline(Path projectRoot) throws IOException {
+        Path file = projectRoot.resolve(".gitlab-ci.yml");
+        if (!Files.isRegularFile(file)) {
+            return Map.of();
+        }
+        try {
+            return SimpleYaml.parse(Files.readString(file)) instanceof Map<?, ?> pipeline
+                    ? (Map<String, Object>) pipeline
+                    : Map.of();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the definition of a job as GitLab runs it, with the anchors, aliases and hidden jobs it extends resolved, along
+     * with the keywords of the pipeline, that apply to every job. The keys are sorted and the comments left out, so that
+     * the definition only changes when what the job does changes.
+     */
+    static String getJobDefinition(Map<String, Object> pipeline, String job) {
+        Map<String, Object> definition = new LinkedHashMap<>();
+        for (String keyword : KEYWORDS) {
+            if (pipeline.containsKey(keyword)) {
+                definition.put(keyword, pipeline.get(keyword));
+            }
+        }
+        definition.put(job, NativePipeline.getDefinition(pipeline, job));
+        return canonical(definition);
+    }
+
+    private static String canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return map.entrySet().stream()
+                    .sorted(Comparator.comparing(entry -> entry.getKey().toString()))
+                    .map(entry -> canonical(entry.getKey()) + ": " + canonical(entry.getValue()))
+                    .collect(Collectors.joining(", ", "{", "}"));
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(GitlabRunPipelineCommand::canonical).collect(Collectors.joining(", ", "[", "]"));
+        }
+        return "\"" + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Get the image a job runs in: its own, or the default image of the pipeline.
+     */
+    private static String getJobImage(Map<String, Object> pipeline, String job) {
+        Object image = NativePipeline.getDefinition(pipeline, job).get("image");
+        if (image == null && pipeline.get("default") instanceof Map<?, ?> defaults) {
+            image = defaults.get("image");
+        }
+        if (image == null) {
+            image = pipeline.get("image");
+        }
+        Object name = image instanceof Map<?, ?> map ? map.get("name") : image;
+        return name instanceof String ? (String) name : null;
+    }
+
+    /**
+     * Get the {@code artifacts:paths} of a job.
+     */
+    private static List<String> getArtifactPaths(Map<String, Object> pipeline, String job) {
+        if (NativePipeline.getDefinition(pipeline, job).get("artifacts") instanceof Map<?, ?> artifacts
+                && artifacts.get("paths") instanceof List<?> paths) {
+            return paths.stream().filter(String.class::isInstance).map(String.class::cast).toList();
+        }
+        return List.of();
+    }
+
+    @Override
+    public Collection<String> getJobImages(Path projectRoot) {
+        return WorkflowImages.collect(List.of(projectRoot.resolve(".gitlab-ci.yml")));
+    }
+
+    @Override
+    protected Pattern getStepPattern() {
+        return STEPS;
+    }
+
+    @Override
+    protected Timeline.Parser getTimelineParser() {
+        return new GitlabCiLocalTimelineParser();
     }
 
     @Override
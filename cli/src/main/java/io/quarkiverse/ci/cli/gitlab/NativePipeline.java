@@ -0,0 +1,473 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import io.quarkiverse.ci.cli.common.Git;
+import io.quarkiverse.ci.cli.common.LocalJdks;
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.NativeExecutor.Condition;
+import io.quarkiverse.ci.cli.common.SimpleYaml;
+import io.quarkiverse.ci.common.JdkDistribution;
+
+/**
+ * Translates the jobs of the generated pipeline to {@link NativeExecutor} jobs, as a push pipeline would run them.
+ * Only what the generated pipeline uses is supported: the scripts of the jobs and of the defaults, the variables, the
+ * hidden jobs they extend, the stages, and the rules on variables, of the jobs and of the workflow. The rules on
+ * {@code changes} pass, as the pipeline runs for the changes of the working tree. The image of a job selects an installed JDK
+ * of the
+ * same distribution and version, and the caches and artifacts are left out as the jobs run in the project with the
+ * caches of the host. Anything else, such as services or includes, is rejected with an
+ * {@link IllegalArgumentException}, so that the pipeline runs with gitlab-ci-local instead.
+ */
+final class NativePipeline {
+
+    private static final Set<String> GLOBAL_KEYS = Set.of("image", "variables", "before_script", "after_script", "default",
+            "stages", "cache", "workflow");
+    private static final Set<String> UNSUPPORTED_GLOBAL_KEYS = Set.of("include", "services");
+    private static final Set<String> DEFAULT_KEYS = Set.of("image", "before_script", "after_script", "cache",
+            "interruptible", "timeout", "tags", "artifacts");
+    private static final Set<String> JOB_KEYS = Set.of("stage", "needs", "extends", "script", "before_script",
+            "after_script", "image", "variables", "interruptible", "timeout", "allow_failure", "artifacts", "cache",
+            "dependencies", "when", "rules", "tags", "coverage");
+    private static final List<String> DEFAULT_STAGES = List.of("build", "test", "deploy");
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$(?:\\{(\\w+)}|(\\w+))");
+    private static final Pattern COMPARISON = Pattern.compile("^(\\S+)\\s*(==|!=)\\s*(\\S+)$");
+    private static final String PIPELINE_SOURCE = "push";
+    private static final String MERGE_REQUEST_EVENT = "merge_request_event";
+
+    private NativePipeline() {
+    }
+
+    /**
+     * Get the jobs of a pipeline.
+     *
+     * @param projectRoot the root of the project
+     * @param jobNames the jobs to run, or empty for all of them
+     * @return the jobs whose rules pass, in the order of their stages
+     * @throws IOException if the pipeline cannot be read
+     */
+    static List<NativeExecutor.Job> getJobs(Path projectRoot, List<String> jobNames) throws IOException {
+        return getJobs(projectRoot, jobNames, PIPELINE_SOURCE);
+    }
+
+    /**
+     * Get the jobs of a pipeline run for an event.
+     *
+     * @param projectRoot the root of the project
+     * @param jobNames the jobs to run, or empty for all of them
+     * @param pipelineSource the {@code CI_PIPELINE_SOURCE} of the pipeline, {@code push} or
+     *        {@code merge_request_event} for a merge request of the current branch into the default branch
+     * @return the jobs whose rules pass, in the order of their stages, or none if the rules of the workflow do not
+     * @throws IOException if the pipeline cannot be read
+     */
+    static List<NativeExecutor.Job> getJobs(Path projectRoot, List<String> jobNames, String pipelineSource)
+            throws IOException {
+        Path file = projectRoot.resolve(".gitlab-ci.yml");
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException(file + " does not exist");
+        }
+        Map<String, Object> pipeline = asMap(SimpleYaml.parse(Files.readString(file)), file.toString());
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> definitions = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : pipeline.entrySet()) {
+            String key = entry.getKey();
+            if (UNSUPPORTED_GLOBAL_KEYS.contains(key)) {
+                throw new IllegalArgumentException(key + " is not supported");
+            } else if (key.equals("default")) {
+                Map<String, Object> defaultKeys = asMap(entry.getValue(), key);
+                checkKeys(defaultKeys, DEFAULT_KEYS, key);
+                defaults.putAll(defaultKeys);
+            } else if (GLOBAL_KEYS.contains(key)) {
+                if (Set.of("image", "before_script", "after_script").contains(key)) {
+                    defaults.putIfAbsent(key, entry.getValue());
+                }
+            } else {
+                definitions.put(key, asMap(entry.getValue(), key));
+            }
+        }
+        List<String> stages = getStages(pipeline);
+
+        Map<String, String> predefined = getPredefinedVariables(projectRoot, pipelineSource);
+        List<String> names = jobNames.isEmpty()
+                ? definitions.keySet().stream().filter(name -> !name.startsWith(".")).toList()
+                : jobNames;
+        List<Map.Entry<String, Map<String, Object>>> selected = new ArrayList<>();
+        for (String name : names) {
+            if (!definitions.containsKey(name) || name.startsWith(".")) {
+                throw new IllegalArgumentException("job " + name + " is not defined");
+            }
+            selected.add(Map.entry(name, resolve(name, definitions, new ArrayList<>())));
+        }
+        selected.sort(Comparator.comparingInt(job -> getStage(job.getKey(), job.getValue(), stages)));
+
+        Map<String, String> globalVariables = getVariables(pipeline.get("variables"), predefined);
+        Map<String, String> workflowVariables = new LinkedHashMap<>(predefined);
+        workflowVariables.putAll(globalVariables);
+        if (pipeline.containsKey("workflow")
+                && !isIncluded("workflow", asMap(pipeline.get("workflow"), "workflow"), workflowVariables)) {
+            return List.of();
+        }
+        List<NativeExecutor.Job> jobs = new ArrayList<>();
+        Map<String, Integer> included = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> job : selected) {
+            String name = job.getKey();
+            Map<String, Object> definition = job.getValue();
+            Map<String, String> variables = new LinkedHashMap<>(predefined);
+            variables.put("CI_JOB_NAME", name);
+            variables.put("CI_JOB_STAGE", definition.getOrDefault("stage", "test").toString());
+            variables.putAll(globalVariables);
+            variables.putAll(getVariables(definition.get("variables"), variables));
+            // the rules decide whether the job is part of the pipeline, before its keys are looked at
+            if (!isIncluded(name, definition, variables)) {
+                continue;
+            }
+            checkKeys(definition, JOB_KEYS, "job " + name);
+            int stage = getStage(name, definition, stages);
+            jobs.add(getJob(name, getNeeds(definition, stage, included), definition, defaults, variables));
+            included.put(name, stage);
+        }
+        return jobs;
+    }
+
+    /**
+     * Get the definition of a job of a pipeline, with the hidden jobs it extends merged in.
+     *
+     * @param pipeline the pipeline, as parsed by {@link SimpleYaml}
+     * @param job the name of the job
+     * @return the definition of the job
+     * @throws IllegalArgumentException if the job, or a job it extends, is not defined
+     */
+    static Map<String, Object> getDefinition(Map<String, Object> pipeline, String job) {
+        Map<String, Map<String, Object>> definitions = new LinkedHashMap<>();
+        pipeline.forEach((key, value) -> {
+            if (!GLOBAL_KEYS.contains(key) && !UNSUPPORTED_GLOBAL_KEYS.contains(key) && value instanceof Map) {
+                definitions.put(key, asMap(value, key));
+            }
+        });
+        return resolve(job, definitions, new ArrayList<>());
+    }
+
+    /**
+     * Get the jobs a job of a pipeline needs among the given jobs, without evaluating their rules.
+     *
+     * @param pipeline the pipeline, as parsed by {@link SimpleYaml}
+     * @param jobNames the jobs
+     * @return the jobs each job needs, in the order of their stages
+     * @throws IllegalArgumentException if a job, or a job it extends, or its stage is not defined
+     */
+    static Map<String, Set<String>> getNeeds(Map<String, Object> pipeline, List<String> jobNames) {
+        List<String> stages = getStages(pipeline);
+        List<Map.Entry<String, Map<String, Object>>> selected = new ArrayList<>();
+        for (String name : jobNames) {
+            selected.add(Map.entry(name, getDefinition(pipeline, name)));
+        }
+        selected.sort(Comparator.comparingInt(job -> getStage(job.getKey(), job.getValue(), stages)));
+        Map<String, Set<String>> needs = new LinkedHashMap<>();
+        Map<String, Integer> included = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> job : selected) {
+            int stage = getStage(job.getKey(), job.getValue(), stages);
+            needs.put(job.getKey(), getNeeds(job.getValue(), stage, included));
+            included.put(job.getKey(), stage);
+        }
+        return needs;
+    }
+
+    private static List<String> getStages(Map<String, Object> pipeline) {
+        List<String> stages = new ArrayList<>(List.of(".pre"));
+        stages.addAll(pipeline.containsKey("stages") ? asStrings(pipeline.get("stages"), "stages") : DEFAULT_STAGES);
+        stages.add(".post");
+        return stages;
+    }
+
+    private static int getStage(String name, Map<String, Object> definition, List<String> stages) {
+        int stage = stages.indexOf(definition.getOrDefault("stage", "test").toString());
+        if (stage < 0) {
+            throw new IllegalArgumentException("stage of " + name + " is not defined");
+        }
+        return stage;
+    }
+
+    /**
+     * Get the jobs a job needs among the jobs before it: those of its {@code needs}, or else those of the earlier stages.
+     */
+    private static Set<String> getNeeds(Map<String, Object> definition, int stage, Map<String, Integer> included) {
+        Set<String> needs = new LinkedHashSet<>();
+        if (!definition.containsKey("needs")) {
+            included.forEach((name, jobStage) -> {
+                if (jobStage < stage) {
+                    needs.add(name);
+                }
+            });
+            return needs;
+        }
+        for (Object need : asList(definition.get("needs"), "needs")) {
+            String name = need instanceof Map<?, ?> map ? String.valueOf(map.get("job")) : need.toString();
+            if (included.containsKey(name)) {
+                needs.add(name);
+            }
+        }
+        return needs;
+    }
+
+    private static NativeExecutor.Job getJob(String name, Set<String> needs, Map<String, Object> definition,
+            Map<String, Object> defaults, Map<String, String> variables) {
+        List<String> script = new ArrayList<>(
+                getScript(definition.getOrDefault("before_script", defaults.get("before_script")), name));
+        script.addAll(getScript(definition.get("script"), name));
+        if (script.isEmpty()) {
+            throw new IllegalArgumentException("job " + name + " has no script");
+        }
+        List<NativeExecutor.Step> steps = new ArrayList<>();
+        // the before_script and script run in the same shell, so that they share their variables
+        steps.add(new NativeExecutor.Step("script", String.join("\n", script) + "\n", Condition.SUCCESS, false, Map.of()));
+        List<String> afterScript = getScript(definition.getOrDefault("after_script", defaults.get("after_script")), name);
+        if (!afterScript.isEmpty()) {
+            steps.add(new NativeExecutor.Step("after_script", String.join("\n", afterScript) + "\n", Condition.ALWAYS,
+                    true, Map.of()));
+        }
+        Object image = definition.getOrDefault("image", defaults.get("image"));
+        return new NativeExecutor.Job(name, needs, findJdk(image, variables), variables, steps,
+                "true".equals(definition.get("allow_failure")), false);
+    }
+
+    /**
+     * Find an installed JDK of the distribution and version of the image of a job, or the JDK of the host if the image
+     * does not tell.
+     */
+    private static Path findJdk(Object image, Map<String, String> variables) {
+        if (image == null) {
+            return null;
+        }
+        String name = expand(image instanceof Map<?, ?> map ? String.valueOf(map.get("name")) : image.toString(), variables);
+        JdkDistribution distribution = LocalJdks.getImageDistribution(name).orElse(null);
+        Optional<String> version = LocalJdks.getImageVersion(name);
+        if (version.isEmpty()) {
+            return distribution == null ? null : LocalJdks.find(distribution, null).orElse(null);
+        }
+        return LocalJdks.find(distribution, version.get())
+                .orElseThrow(() -> new IllegalArgumentException("no JDK " + version.get() + " is installed for " + name));
+    }
+
+    /**
+     * Merge the hidden jobs a job extends into its definition, as GitLab does: the mappings are merged, the other values
+     * of the job replace those it extends.
+     */
+    private static Map<String, Object> resolve(String name, Map<String, Map<String, Object>> definitions,
+            List<String> visited) {
+        if (visited.contains(name)) {
+            throw new IllegalArgumentException("job " + name + " extends itself");
+        }
+        visited.add(name);
+        Map<String, Object> definition = definitions.get(name);
+        if (definition == null) {
+            throw new IllegalArgumentException("job " + name + " is not defined");
+        }
+        Object extended = definition.get("extends");
+        if (extended == null) {
+            return definition;
+        }
+        Map<String, Object> resolved = new LinkedHashMap<>();
+        for (String parent : extended instanceof List ? asStrings(extended, "extends") : List.of(extended.toString())) {
+            resolved = merge(resolved, resolve(parent, definitions, new ArrayList<>(visited)));
+        }
+        resolved = merge(resolved, definition);
+        resolved.remove("extends");
+        return resolved;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> merge(Map<String, Object> base, Map<String, Object> overrides) {
+        Map<String, Object> merged = new LinkedHashMap<>(base);
+        overrides.forEach((key, value) -> merged.merge(key, value, (before, after) -> before instanceof Map
+                && after instanceof Map
+                        ? merge((Map<String, Object>) before, (Map<String, Object>) after)
+                        : after));
+        return merged;
+    }
+
+    /**
+     * Evaluate the rules and {@code when} of a job, or the rules of the workflow.
+     */
+    private static boolean isIncluded(String name, Map<String, Object> definition, Map<String, String> variables) {
+        if (!definition.containsKey("rules")) {
+            return isIncluded(name, definition.getOrDefault("when", "on_success").toString());
+        }
+        for (Object item : asList(definition.get("rules"), "rules of " + name)) {
+            Map<String, Object> rule = asMap(item, "rule of " + name);
+            checkKeys(rule, Set.of("if", "when", "allow_failure", "changes"), "rule of " + name);
+            if (!rule.containsKey("if") || evaluate(rule.get("if").toString(), variables)) {
+                return isIncluded(name, rule.getOrDefault("when", definition.getOrDefault("when", "on_success")).toString());
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIncluded(String name, String when) {
+        return switch (when) {
+            case "on_success", "always" -> true;
+            case "never", "manual", "delayed" -> false;
+            default -> throw new IllegalArgumentException("when " + when + " of " + name + " is not supported");
+        };
+    }
+
+    /**
+     * Evaluate the {@code if} of a rule, made of comparisons of variables and strings, and of whether variables are
+     * set, joined by {@code &&} and {@code ||}.
+     */
+    private static boolean evaluate(String expression, Map<String, String> variables) {
+        if (expression.contains("(") || expression.contains("=~") || expression.contains("!~")) {
+            throw new IllegalArgumentException("rule " + expression + " is not supported");
+        }
+        for (String alternative : expression.split("\\|\\|")) {
+            boolean all = true;
+            for (String condition : alternative.split("&&")) {
+                Matcher comparison = COMPARISON.matcher(condition.strip());
+                if (comparison.matches()) {
+                    boolean equal = Objects.equals(getOperand(comparison.group(1), variables),
+                            getOperand(comparison.group(3), variables));
+                    all &= equal == comparison.group(2).equals("==");
+                } else {
+                    String value = getOperand(condition.strip(), variables);
+                    all &= value != null && !value.isEmpty();
+                }
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getOperand(String operand, Map<String, String> variables) {
+        if (operand.startsWith("$")) {
+            return variables.get(operand.substring(1).replaceAll("^\\{|}$", ""));
+        }
+        if (operand.length() >= 2 && (operand.startsWith("\"") && operand.endsWith("\"")
+                || operand.startsWith("'") && operand.endsWith("'"))) {
+            return operand.substring(1, operand.length() - 1);
+        }
+        if (operand.equals("null")) {
+            return null;
+        }
+        throw new IllegalArgumentException("operand " + operand + " is not supported");
+    }
+
+    /**
+     * Get the variables of a job as GitLab sets them for a pipeline of the current branch: a merge request pipeline
+     * has the variables of the merge request into the default branch instead of {@code CI_COMMIT_BRANCH}.
+     */
+    private static Map<String, String> getPredefinedVariables(Path projectRoot, String pipelineSource) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("CI", "true");
+        variables.put("GITLAB_CI", "true");
+        variables.put("CI_PROJECT_DIR", projectRoot.toString());
+        variables.put("CI_PIPELINE_SOURCE", pipelineSource);
+        String branch = Git.run(projectRoot, "rev-parse", "--abbrev-ref", "HEAD").orElse("HEAD");
+        variables.put("CI_COMMIT_REF_NAME", branch);
+        String defaultBranch = Git.run(projectRoot, "symbolic-ref", "--short", "refs/remotes/origin/HEAD")
+                .map(head -> head.substring(head.indexOf('/') + 1))
+                .orElse("main");
+        if (pipelineSource.equals(MERGE_REQUEST_EVENT)) {
+            variables.put("CI_MERGE_REQUEST_SOURCE_BRANCH_NAME", branch);
+            variables.put("CI_MERGE_REQUEST_TARGET_BRANCH_NAME", defaultBranch);
+            Git.run(projectRoot, "merge-base", "HEAD", "origin/" + defaultBranch)
+                    .ifPresent(base -> variables.put("CI_MERGE_REQUEST_DIFF_BASE_SHA", base));
+        } else if (!branch.equals("HEAD")) {
+            variables.put("CI_COMMIT_BRANCH", branch);
+        }
+        Git.run(projectRoot, "rev-parse", "HEAD").ifPresent(commit -> variables.put("CI_COMMIT_SHA", commit));
+        variables.put("CI_DEFAULT_BRANCH", defaultBranch);
+        return variables;
+    }
+
+    /**
+     * Get variables, whose references to the variables before them are expanded as GitLab does.
+     */
+    private static Map<String, String> getVariables(Object definition, Map<String, String> defined) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        if (definition == null) {
+            return variables;
+        }
+        Map<String, String> known = new LinkedHashMap<>(defined);
+        asMap(definition, "variables").forEach((name, value) -> {
+            Object text = value instanceof Map<?, ?> map ? map.get("value") : value;
+            if (!(text instanceof String)) {
+                throw new IllegalArgumentException("variable " + name + " is not a string");
+            }
+            String expanded = expand((String) text, known);
+            variables.put(name, expanded);
+            known.put(name, expanded);
+        });
+        return variables;
+    }
+
+    /**
+     * Expand the references to variables, the unknown ones to nothing.
+     */
+    private static String expand(String text, Map<String, String> variables) {
+        Matcher matcher = VARIABLE.matcher(text);
+        StringBuilder expanded = new StringBuilder();
+        while (matcher.find()) {
+            String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            matcher.appendReplacement(expanded, Matcher.quoteReplacement(variables.getOrDefault(name, "")));
+        }
+        matcher.appendTail(expanded);
+        return expanded.toString();
+    }
+
+    private static List<String> getScript(Object script, String job) {
+        if (script == null) {
+            return List.of();
+        }
+        return script instanceof String line ? List.of(line) : asStrings(script, "script of " + job);
+    }
+
+    private static void checkKeys(Map<String, Object> definition, Set<String> supported, String context) {
+        for (String key : definition.keySet()) {
+            if (!supported.contains(key)) {
+                throw new IllegalArgumentException(key + " in " + context + " is not supported");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value, String context) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException(context + " is not a mapping");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object value, String context) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException(context + " is not a sequence");
+        }
+        return (List<Object>) value;
+    }
+
+    private static List<String> asStrings(Object value, String context) {
+        List<String> strings = new ArrayList<>();
+        for (Object item : asList(value, context)) {
+            if (!(item instanceof String)) {
+                throw new IllegalArgumentException(context + " is not a sequence of strings");
+            }
+            strings.add((String) item);
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,56 @@
+package io.quarkiverse.ci.cli.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelRunsTest {
+
+    private static final List<String> RUNS = List.of("build", "lint", "test", "deploy");
+    private static final Map<String, Set<String>> NEEDS = Map.of("lint", Set.of("build"), "test", Set.of("build"),
+            "deploy", Set.of("lint", "test"));
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    void testRunsStartOnceTheirNeedsAreOver() throws InterruptedException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        assertEquals(0, run((name, out) -> {
+            events.add("start " + name);
+            events.add("end " + name);
+            return 0;
+        }));
+        assertEquals(List.of("start build", "end build"), events.subList(0, 2));
+        assertEquals(List.of("start deploy", "end deploy"), events.subList(6, 8));
+        String summary = output.toString(StandardCharsets.UTF_8);
+        assertTrue(summary.contains("deploy  passed"), summary);
+    }
+
+    @Test
+    void testRunsAreSkippedWhenTheirNeedsFail() throws InterruptedException {
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        assertEquals(2, run((name, out) -> {
+            started.add(name);
+            return name.equals("lint") ? 2 : 0;
+        }));
+        // deploy needs lint, that failed
+        assertEquals(Set.of("build", "lint", "test"), Set.copyOf(started));
+        String summary = output.toString(StandardCharsets.UTF_8);
+        assertTrue(summary.contains("lint    failed (2)"), summary);
+        assertTrue(summary.contains("deploy  skipped"), summary);
+    }
+
+    private int run(BiFunction<String, PrintStream, Integer> run) throws InterruptedException {
+        return ParallelRuns.run(RUNS, NEEDS, 4, new PrintStream(output, true, StandardCharsets.UTF_8), run);
+    }
+}
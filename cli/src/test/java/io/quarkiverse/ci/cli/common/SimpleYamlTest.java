@@ -0,0 +1,147 @@
+package io.quarkiverse.ci.cli.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class SimpleYamlTest {
+
+    @Test
+    void testBlockCollections() {
+        Object parsed = SimpleYaml.parse("""
+                ---
+                # a comment
+                name: Build
+                on:
+                  push:
+                    branches:
+                    - main
+                jobs:
+                  build:
+                    steps:
+                      - name: Checkout
+                        uses: actions/checkout@v4
+                      - run: mvn verify # runs the tests
+                      -
+                        run: echo done
+                """);
+        assertEquals(Map.of("name", "Build",
+                "on", Map.of("push", Map.of("branches", List.of("main"))),
+                "jobs", Map.of("build", Map.of("steps", List.of(
+                        Map.of("name", "Checkout", "uses", "actions/checkout@v4"),
+                        Map.of("run", "mvn verify"),
+                        Map.of("run", "echo done"))))),
+                parsed);
+        assertEquals(List.of("name", "on", "jobs"), List.copyOf(((Map<?, ?>) parsed).keySet()));
+    }
+
+    @Test
+    void testScalars() {
+        Object parsed = SimpleYaml.parse("""
+                plain: mvn -B verify
+                single: 'it''s # not a comment'
+                double: "a\\tb\\n\\"c\\""
+                "quoted key": value
+                url: docker://alpine:3.20
+                empty:
+                flow: [ build, "test", 'deploy' ]
+                none: []
+                """);
+        assertEquals(Map.of("plain", "mvn -B verify", "single", "it's # not a comment", "double", "a\tb\n\"c\"",
+                "quoted key", "value", "url", "docker://alpine:3.20", "empty", "",
+                "flow", List.of("build", "test", "deploy"), "none", List.of()), parsed);
+    }
+
+    @Test
+    void testLiteralBlocks() {
+        Object parsed = SimpleYaml.parse("""
+                script: |
+                  mvn verify
+
+                  echo done
+                strip: |-
+                  echo strip
+                keep: |+
+                  echo keep
+                after: value
+                """);
+        assertEquals(Map.of("script", "mvn verify\n\necho done\n", "strip", "echo strip", "keep", "echo keep\n",
+                "after", "value"), parsed);
+    }
+
+    @Test
+    void testEmptyDocument() {
+        assertEquals(Map.of(), SimpleYaml.parse(""));
+        assertEquals(Map.of(), SimpleYaml.parse("---\n# only a comment\n"));
+        assertEquals(List.of("a", "b"), SimpleYaml.parse("- a\n- b\n"));
+    }
+
+    @Test
+    void testAnchorsAndAliases() {
+        Object parsed = SimpleYaml.parse("""
+                variables: &variables
+                  MAVEN_OPTS: -Xmx1g
+                image: &image maven:3.9
+                build:
+                  image: *image
+                  variables: *variables
+                  services:
+                    - &db postgres:17
+                    - *db
+                """);
+        Map<String, Object> variables = Map.of("MAVEN_OPTS", "-Xmx1g");
+        assertEquals(Map.of("variables", variables, "image", "maven:3.9",
+                "build", Map.of("image", "maven:3.9", "variables", variables,
+                        "services", List.of("postgres:17", "postgres:17"))),
+                parsed);
+    }
+
+    @Test
+    void testMergeKeys() {
+        Object parsed = SimpleYaml.parse("""
+                .maven: &maven
+                  image: maven:3.9
+                  script: mvn verify
+                .cache: &cache
+                  cache:
+                    key: m2
+                  image: maven:3.8
+                build:
+                  script: mvn package
+                  <<: [*maven, *cache]
+                test:
+                  <<: *maven
+                """);
+        Map<?, ?> pipeline = (Map<?, ?>) parsed;
+        // the keys of a mapping take precedence over the merged ones, the first merged mappings over the next ones
+        assertEquals(Map.of("script", "mvn package", "image", "maven:3.9", "cache", Map.of("key", "m2")),
+                pipeline.get("build"));
+        assertEquals(Map.of("image", "maven:3.9", "script", "mvn verify"), pipeline.get("test"));
+    }
+
+    @Test
+    void testFlowCollections() {
+        Object parsed = SimpleYaml.parse("""
+                image: { name: "maven:3.9", entrypoint: [""] }
+                needs: [build, { job: test, artifacts: false }]
+                empty: {}
+                """);
+        assertEquals(Map.of("image", Map.of("name", "maven:3.9", "entrypoint", List.of("")),
+                "needs", List.of("build", Map.of("job", "test", "artifacts", "false")),
+                "empty", Map.of()), parsed);
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("build:\n  image: *unknown\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("script: !reference [.setup, script]\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("script: >\n  folded\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("needs: [build,\n  test]\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("build:\n  <<: [a]\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("a: 1\n  b: 2\n"));
+        assertThrows(IllegalArgumentException.class, () -> SimpleYaml.parse("a: 1\nno key\n"));
+    }
+}
@@ -0,0 +1,79 @@
+package io.quarkiverse.ci.cli.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkflowImagesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testCollectPipelineImages() throws IOException {
+        Path pipeline = dir.resolve(".gitlab-ci.yml");
+        Files.writeString(pipeline, """
+                image: maven:3.9-eclipse-temurin-21 # the default image
+                .db: &db
+                  services:
+                    - postgres:17
+                    - name: "docker:dind"
+                build:
+                  <<: *db
+                  image: { name: "registry.example.com/ci:latest", entrypoint: [""] }
+                test:
+                  image: $CI_REGISTRY_IMAGE/ci:latest
+                """);
+        assertEquals(Set.of("maven:3.9-eclipse-temurin-21", "postgres:17", "docker:dind",
+                "registry.example.com/ci:latest"), WorkflowImages.collect(List.of(pipeline)));
+    }
+
+    @Test
+    void testCollectWorkflowImages() throws IOException {
+        Path workflow = dir.resolve("build.yml");
+        Files.writeString(workflow, """
+                name: Build
+                on: [push]
+                jobs:
+                  build:
+                    runs-on: ubuntu-latest
+                    container:
+                      image: eclipse-temurin:21
+                    services:
+                      db:
+                        image: postgres:17
+                    steps:
+                      - uses: docker://alpine:3.20
+                      - run: mvn verify
+                  matrix:
+                    runs-on: ${{ matrix.os }}
+                    steps:
+                      - run: mvn verify
+                """);
+        assertEquals(Set.of("eclipse-temurin:21", "postgres:17", "alpine:3.20"),
+                WorkflowImages.collect(List.of(workflow)));
+        assertEquals(Set.of("ubuntu-latest"), WorkflowImages.collectRunnerLabels(List.of(workflow)));
+    }
+
+    @Test
+    void testSkipUnsupportedFiles() throws IOException {
+        Path pipeline = dir.resolve(".gitlab-ci.yml");
+        Files.writeString(pipeline, "build:\n  image: maven:3.9\n  script: !reference [.setup, script]\n");
+        assertEquals(Set.of(), WorkflowImages.collect(List.of(pipeline, dir.resolve("missing.yml"))));
+    }
+
+    @Test
+    void testPullReference() {
+        assertEquals("maven:latest", WorkflowImages.pullReference("maven"));
+        assertEquals("localhost:5000/ci:latest", WorkflowImages.pullReference("localhost:5000/ci"));
+        assertEquals("maven:3.9", WorkflowImages.pullReference("maven:3.9"));
+        assertEquals("maven@sha256:abc", WorkflowImages.pullReference("maven@sha256:abc"));
+    }
+}
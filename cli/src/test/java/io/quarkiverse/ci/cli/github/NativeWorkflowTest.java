@@ -0,0 +1,151 @@
+package io.quarkiverse.ci.cli.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.NativeExecutor.Condition;
+
+class NativeWorkflowTest {
+
+    private static final String WORKFLOW = """
+            name: Build
+            on:
+              push:
+            env:
+              MAVEN_ARGS: -B
+            jobs:
+              report:
+                runs-on: ubuntu-latest
+                needs: [test]
+                steps:
+                  - run: echo report
+              test:
+                name: Test ${{ matrix.module }}
+                runs-on: ubuntu-latest
+                needs: build
+                strategy:
+                  matrix:
+                    include:
+                      - module: core
+                      - module: cli
+                steps:
+                  - uses: actions/checkout@v4
+                  - name: Test ${{ matrix.module }}
+                    run: mvn verify -pl ${{ matrix.module }}
+                  - if: failure()
+                    run: echo failed
+                  - if: always()
+                    run: echo always
+              build:
+                runs-on: ubuntu-latest
+                env:
+                  MAVEN_OPTS: -Xmx1g
+                steps:
+                  - uses: actions/cache@v4
+                  - run: |
+                      mvn package -Dworkspace=${{ github.workspace }}
+                    continue-on-error: true
+              pull-request:
+                runs-on: ubuntu-latest
+                if: github.event_name == 'pull_request'
+                steps:
+                  - run: echo pull request
+            """;
+
+    @TempDir
+    Path projectRoot;
+
+    @Test
+    void testJobsOrderedByNeeds() throws IOException {
+        List<NativeExecutor.Job> jobs = getJobs(WORKFLOW, List.of());
+        assertEquals(List.of("build", "Test core", "Test cli", "report"),
+                jobs.stream().map(NativeExecutor.Job::name).toList());
+        assertEquals(Set.of(), jobs.get(0).needs());
+        assertEquals(Set.of("build"), jobs.get(1).needs());
+        // a job that needs a matrix job needs every job of its matrix
+        assertEquals(Set.of("Test core", "Test cli"), jobs.get(3).needs());
+    }
+
+    @Test
+    void testMatrix() throws IOException {
+        NativeExecutor.Job cli = getJobs(WORKFLOW, List.of()).get(2);
+        assertEquals(List.of(
+                new NativeExecutor.Step("Test cli", "mvn verify -pl cli", Condition.SUCCESS, false, Map.of()),
+                new NativeExecutor.Step("echo failed", "echo failed", Condition.FAILURE, false, Map.of()),
+                new NativeExecutor.Step("echo always", "echo always", Condition.ALWAYS, false, Map.of())),
+                cli.steps());
+        assertEquals("test", cli.env().get("GITHUB_JOB"));
+    }
+
+    @Test
+    void testStepsAndEnv() throws IOException {
+        NativeExecutor.Job build = getJobs(WORKFLOW, List.of()).get(0);
+        assertEquals(1, build.steps().size());
+        assertEquals("mvn package -Dworkspace=${GITHUB_WORKSPACE}\n", build.steps().get(0).script());
+        assertTrue(build.steps().get(0).continueOnError());
+        assertEquals("-B", build.env().get("MAVEN_ARGS"));
+        assertEquals("-Xmx1g", build.env().get("MAVEN_OPTS"));
+        assertEquals(projectRoot.toString(), build.env().get("GITHUB_WORKSPACE"));
+        assertEquals("push", build.env().get("GITHUB_EVENT_NAME"));
+    }
+
+    @Test
+    void testJobSelection() throws IOException {
+        List<NativeExecutor.Job> jobs = getJobs(WORKFLOW, List.of("-j", "test", "-W", "build.yml"));
+        assertEquals(List.of("Test core", "Test cli"), jobs.stream().map(NativeExecutor.Job::name).toList());
+        // the jobs it needs are not selected, so it runs on its own
+        assertEquals(Set.of(), jobs.get(0).needs());
+        assertEquals(List.of(), getJobs(WORKFLOW, List.of("-j", "pull-request")));
+        assertThrows(IllegalArgumentException.class, () -> getJobs(WORKFLOW, List.of("-l")));
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThrows(IllegalArgumentException.class, () -> getJobs("""
+                jobs:
+                  build:
+                    steps:
+                      - uses: docker/login-action@v3
+                """, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("""
+                jobs:
+                  build:
+                    steps:
+                      - run: echo ${{ secrets.TOKEN }}
+                """, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("""
+                jobs:
+                  build:
+                    strategy:
+                      matrix:
+                        java: [17, 21]
+                    steps:
+                      - run: echo
+                """, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("""
+                jobs:
+                  a:
+                    needs: b
+                    steps: []
+                  b:
+                    needs: a
+                    steps: []
+                """, List.of()));
+    }
+
+    private List<NativeExecutor.Job> getJobs(String workflow, List<String> actArgs) throws IOException {
+        Path file = projectRoot.resolve("build.yml");
+        Files.writeString(file, workflow);
+        return NativeWorkflow.getJobs(projectRoot, List.of(file), actArgs);
+    }
+}
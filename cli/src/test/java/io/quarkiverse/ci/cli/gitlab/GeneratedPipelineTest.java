@@ -0,0 +1,141 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkiverse.ci.cli.common.Git;
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkus.qute.Engine;
+
+/**
+ * Runs the pipeline generated by the GitLab extension as GitLab would for a push and for a merge request.
+ */
+class GeneratedPipelineTest {
+
+    @TempDir
+    Path projectRoot;
+
+    @TempDir
+    Path bin;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        assertTrue(Git.run(projectRoot, "init", "-q", "-b", "feature").isPresent());
+        assertTrue(Git.run(projectRoot, "-c", "user.name=ci", "-c", "user.email=ci@example.com", "commit", "-q",
+                "--allow-empty", "-m", "init").isPresent());
+        Files.writeString(projectRoot.resolve(".gitlab-ci.yml"), render());
+        // the analysis finds no impacted test, and the base of the merge request is already fetched
+        stub("java", "echo NONE");
+        stub("git", "exit 0");
+    }
+
+    @Test
+    void testMergeRequestRunsImpactedTests() throws IOException, InterruptedException {
+        List<NativeExecutor.Job> jobs = NativePipeline.getJobs(projectRoot, List.of(), "merge_request_event");
+        assertEquals(List.of("build", "test", "quarantine"), jobs.stream().map(NativeExecutor.Job::name).toList());
+        assertEquals("No test is impacted by the changes.", runScript(jobs.get(1)));
+    }
+
+    @Test
+    void testPushRunsAllTests() throws IOException, InterruptedException {
+        List<NativeExecutor.Job> jobs = NativePipeline.getJobs(projectRoot, List.of());
+        assertEquals(List.of("build", "test", "quarantine"), jobs.stream().map(NativeExecutor.Job::name).toList());
+        assertEquals("mvn test", runScript(jobs.get(1)));
+    }
+
+    @Test
+    void testFlakyReportIsShared() throws IOException {
+        for (NativeExecutor.Job job : NativePipeline.getJobs(projectRoot, List.of("test", "quarantine"))) {
+            assertEquals("after_script", job.steps().get(1).name());
+            assertTrue(job.steps().get(1).script().contains("xargs -r cp -t flaky-tests"), job.steps().get(1).script());
+        }
+    }
+
+    @Test
+    void testDetachedHeadRunsNoPipeline() throws IOException {
+        assertTrue(Git.run(projectRoot, "checkout", "-q", "--detach").isPresent());
+        assertEquals(List.of(), NativePipeline.getJobs(projectRoot, List.of()));
+    }
+
+    private String runScript(NativeExecutor.Job job) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder("bash", "-c", job.steps().get(0).script())
+                .directory(projectRoot.toFile())
+                .redirectErrorStream(true);
+        builder.environment().putAll(job.env());
+        builder.environment().put("PATH", bin + ":" + System.getenv("PATH"));
+        Process process = builder.start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
+    private void stub(String command, String script) throws IOException {
+        Path file = bin.resolve(command);
+        Files.writeString(file, "#!/bin/sh\n" + script + "\n");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+    }
+
+    private static String render() throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "app");
+        params.put("image", "registry.example.com/ci:latest");
+        params.put("ciImage", false);
+        params.put("ciImageName", "ci");
+        params.put("ciImageDockerfile", ".gitlab/ci-image.Dockerfile");
+        params.put("prebaked", false);
+        params.put("mavenRepository", ".m2/repository");
+        params.put("gradleUserHome", "$CI_PROJECT_DIR/.gradle");
+        params.put("cacheKey", "maven");
+        params.put("cachePaths", "- .m2/repository");
+        params.put("artifactPaths", List.of("target/"));
+        params.put("artifactsExpireIn", "1 day");
+        params.put("compressionLevel", "fast");
+        params.put("buildCommand", "mvn package -DskipTests");
+        params.put("testCommand", "echo mvn test");
+        params.put("singleInvocation", false);
+        params.put("gradleProfile", false);
+        params.put("gradleInitScript", List.of());
+        params.put("shards", List.of(Map.of("name", "test", "args", "")));
+        params.put("sharded", false);
+        params.put("testImpact", true);
+        params.put("testImpactProgram", List.of("class TestImpact {", "}"));
+        params.put("testImpactTool", "maven");
+        params.put("noTests", "NONE");
+        params.put("quarantinedTests", "");
+        params.put("quarantineCommand", "echo mvn quarantine");
+        params.put("flakyReport", true);
+        params.put("flakyReportDir", "flaky-tests");
+        params.put("flakyReportPattern", "<flaky(Failure|Error)");
+        params.put("lanes", false);
+        params.put("heavyOnMerge", false);
+        params.put("heavyOnSchedule", false);
+        params.put("heavyCommand", "");
+        params.put("heavyTimeout", 60);
+        params.put("interruptible", true);
+        params.put("failFast", false);
+        params.put("buildTimeout", 30);
+        params.put("testTimeout", 30);
+        params.put("changes", List.of("src/**/*"));
+        params.put("devServices", false);
+        params.put("docker", false);
+        params.put("devServicesReuse", false);
+        params.put("dependencyProxy", false);
+        try (InputStream is = GeneratedPipelineTest.class.getClassLoader().getResourceAsStream("gitlab-ci.yml.qute")) {
+            String template = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            return Engine.builder().addDefaults().build().parse(template).data(params).render();
+        }
+    }
+}
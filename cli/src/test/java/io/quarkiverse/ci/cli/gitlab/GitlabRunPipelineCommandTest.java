@@ -0,0 +1,116 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkiverse.ci.cli.common.Git;
+import io.quarkiverse.ci.cli.common.JobResultCache;
+import io.quarkiverse.ci.cli.common.SimpleYaml;
+
+class GitlabRunPipelineCommandTest {
+
+    private static final String PIPELINE = """
+            image: maven:3.9
+            .settings: &settings
+              variables:
+                MAVEN_OPTS: -Xmx1g
+            .maven:
+              before_script:
+                - mvn -v
+            .unused:
+              script: echo unused
+            build:
+              <<: *settings
+              script: mvn package
+            test:
+              extends: .maven
+              script: mvn verify
+            """;
+
+    @TempDir
+    Path projectRoot;
+
+    private JobResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        assertTrue(Git.run(projectRoot, "init", "-q").isPresent());
+        cache = new JobResultCache(projectRoot, JobResultCache.DEFAULT_INPUTS);
+    }
+
+    @Test
+    void testFingerprintIgnoresLayout() throws IOException {
+        String reformatted = PIPELINE.replace("script: mvn package", "script: \"mvn package\" # packages")
+                .replace("            .unused:", "\n            # not extended\n            .unused:");
+        assertEquals(fingerprint(PIPELINE, "build"), fingerprint(reformatted, "build"));
+        assertEquals(fingerprint(PIPELINE, "test"), fingerprint(reformatted, "test"));
+    }
+
+    @Test
+    void testFingerprintFollowsAnchors() throws IOException {
+        String changed = PIPELINE.replace("-Xmx1g", "-Xmx2g");
+        assertNotEquals(fingerprint(PIPELINE, "build"), fingerprint(changed, "build"));
+        assertEquals(fingerprint(PIPELINE, "test"), fingerprint(changed, "test"));
+    }
+
+    @Test
+    void testFingerprintFollowsExtends() throws IOException {
+        String changed = PIPELINE.replace("mvn -v", "mvn -version");
+        assertNotEquals(fingerprint(PIPELINE, "test"), fingerprint(changed, "test"));
+        assertEquals(fingerprint(PIPELINE, "build"), fingerprint(changed, "build"));
+    }
+
+    @Test
+    void testFingerprintIgnoresUnusedHiddenJobs() throws IOException {
+        String changed = PIPELINE.replace("echo unused", "echo still unused");
+        assertEquals(fingerprint(PIPELINE, "build"), fingerprint(changed, "build"));
+        assertEquals(fingerprint(PIPELINE, "test"), fingerprint(changed, "test"));
+    }
+
+    @Test
+    void testFingerprintFollowsKeywords() throws IOException {
+        String changed = PIPELINE.replace("image: maven:3.9", "image: maven:3.8");
+        assertNotEquals(fingerprint(PIPELINE, "build"), fingerprint(changed, "build"));
+        assertNotEquals(fingerprint(PIPELINE, "test"), fingerprint(changed, "test"));
+    }
+
+    @Test
+    void testJobDefinitionIsResolved() {
+        String definition = GitlabRunPipelineCommand.getJobDefinition(parse(PIPELINE), "test");
+        assertTrue(definition.contains("\"before_script\": [\"mvn -v\"]"), definition);
+        assertFalse(definition.contains("extends"), definition);
+        assertFalse(definition.contains("unused"), definition);
+    }
+
+    @Test
+    void testResultsAreNotCachedInDocker() throws IOException {
+        Files.writeString(projectRoot.resolve(".gitlab-ci.yml"), "build:\n  script: mvn package\n  services:\n"
+                + "    - postgres:17\n");
+        GitlabRunPipelineCommand command = new GitlabRunPipelineCommand();
+        command.forceDocker = true;
+        // the artifacts restored in the project directory would never reach the workspace of the runner
+        assertFalse(command.runsInProjectDirectory(projectRoot));
+        // nor when the pipeline cannot run natively and falls back to the runner
+        command.nativeRun = true;
+        assertFalse(command.runsInProjectDirectory(projectRoot));
+        Files.writeString(projectRoot.resolve(".gitlab-ci.yml"), "build:\n  script: mvn package\n");
+        assertTrue(command.runsInProjectDirectory(projectRoot));
+    }
+
+    private String fingerprint(String pipeline, String job) throws IOException {
+        return cache.fingerprint(GitlabRunPipelineCommand.getJobDefinition(parse(pipeline), job), "image");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String pipeline) {
+        return (Map<String, Object>) SimpleYaml.parse(pipeline);
+    }
+}
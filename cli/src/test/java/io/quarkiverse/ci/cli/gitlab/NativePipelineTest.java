@@ -0,0 +1,141 @@
+package io.quarkiverse.ci.cli.gitlab;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkiverse.ci.cli.common.NativeExecutor;
+import io.quarkiverse.ci.cli.common.NativeExecutor.Condition;
+import io.quarkiverse.ci.cli.common.SimpleYaml;
+
+class NativePipelineTest {
+
+    private static final String PIPELINE = """
+            stages:
+              - build
+              - test
+              - deploy
+            variables:
+              MAVEN_ARGS: -B
+            default:
+              before_script:
+                - echo default
+            .maven:
+              before_script:
+                - mvn -v
+              variables:
+                MAVEN_OPTS: -Xmx1g
+            deploy:
+              stage: deploy
+              script: mvn deploy
+            lint:
+              stage: test
+              needs: [build]
+              script: mvn checkstyle:check
+            test:
+              stage: test
+              extends: .maven
+              variables:
+                TEST_ARGS: $MAVEN_ARGS -Dtest=*IT
+              script:
+                - mvn verify $TEST_ARGS
+              after_script:
+                - echo cleanup
+            build:
+              stage: build
+              script: mvn package
+            release:
+              stage: deploy
+              script: mvn release:perform
+              rules:
+                - if: $CI_PIPELINE_SOURCE == "merge_request_event"
+                - if: $CI_COMMIT_TAG
+            manual:
+              stage: deploy
+              when: manual
+              script: echo manual
+            """;
+
+    @TempDir
+    Path projectRoot;
+
+    @Test
+    void testJobsOrderedByStage() throws IOException {
+        List<NativeExecutor.Job> jobs = getJobs(PIPELINE, List.of());
+        assertEquals(List.of("build", "lint", "test", "deploy"), jobs.stream().map(NativeExecutor.Job::name).toList());
+    }
+
+    @Test
+    void testNeeds() throws IOException {
+        List<NativeExecutor.Job> jobs = getJobs(PIPELINE, List.of());
+        assertEquals(Set.of(), jobs.get(0).needs());
+        // the needs of a job, or else the jobs of the earlier stages
+        assertEquals(Set.of("build"), jobs.get(1).needs());
+        assertEquals(Set.of("build"), jobs.get(2).needs());
+        assertEquals(Set.of("build", "lint", "test"), jobs.get(3).needs());
+    }
+
+    @Test
+    void testNeedsWithoutRules() {
+        Map<String, Set<String>> needs = NativePipeline.getNeeds(parse(PIPELINE), List.of("release", "test", "build"));
+        // the rules are left to the runner, that runs each job on its own
+        assertEquals(List.of("build", "test", "release"), List.copyOf(needs.keySet()));
+        assertEquals(Set.of(), needs.get("build"));
+        assertEquals(Set.of("build"), needs.get("test"));
+        assertEquals(Set.of("build", "test"), needs.get("release"));
+    }
+
+    @Test
+    void testJobSelection() throws IOException {
+        List<NativeExecutor.Job> jobs = getJobs(PIPELINE, List.of("test", "build"));
+        assertEquals(List.of("build", "test"), jobs.stream().map(NativeExecutor.Job::name).toList());
+        assertEquals(Set.of("build"), jobs.get(1).needs());
+        // the jobs run on their own, without the jobs they need that are not selected
+        assertEquals(Set.of(), getJobs(PIPELINE, List.of("lint")).get(0).needs());
+        assertThrows(IllegalArgumentException.class, () -> getJobs(PIPELINE, List.of("missing")));
+        assertThrows(IllegalArgumentException.class, () -> getJobs(PIPELINE, List.of(".maven")));
+    }
+
+    @Test
+    void testExtendsAndVariables() throws IOException {
+        NativeExecutor.Job test = getJobs(PIPELINE, List.of("test")).get(0);
+        assertEquals(List.of(new NativeExecutor.Step("script", "mvn -v\nmvn verify $TEST_ARGS\n", Condition.SUCCESS,
+                false, Map.of()),
+                new NativeExecutor.Step("after_script", "echo cleanup\n", Condition.ALWAYS, true, Map.of())),
+                test.steps());
+        assertEquals("-Xmx1g", test.env().get("MAVEN_OPTS"));
+        assertEquals("-B -Dtest=*IT", test.env().get("TEST_ARGS"));
+        assertEquals("test", test.env().get("CI_JOB_NAME"));
+        assertEquals("push", test.env().get("CI_PIPELINE_SOURCE"));
+        assertEquals("echo default\nmvn package\n", getJobs(PIPELINE, List.of("build")).get(0).steps().get(0).script());
+    }
+
+    @Test
+    void testUnsupported() {
+        assertThrows(IllegalArgumentException.class,
+                () -> getJobs("build:\n  script: mvn package\n  services:\n    - postgres:17\n", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("include: ci.yml\n", List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> getJobs("build:\n  script: mvn package\n  rules:\n    - if: $A =~ /b/\n", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("build:\n  stage: lint\n  script: mvn\n", List.of()));
+        assertThrows(IllegalArgumentException.class, () -> getJobs("a:\n  extends: b\nb:\n  extends: a\n", List.of()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String pipeline) {
+        return (Map<String, Object>) SimpleYaml.parse(pipeline);
+    }
+
+    private List<NativeExecutor.Job> getJobs(String pipeline, List<String> jobNames) throws IOException {
+        Files.writeString(projectRoot.resolve(".gitlab-ci.yml"), pipeline);
+        return NativePipeline.getJobs(projectRoot, jobNames);
+    }
+}
@@ -0,0 +1,315 @@
+package io.quarkiverse.ci.common;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.quarkiverse.ci.common.TestGroups.TestGroup;
+import io.quarkus.devtools.project.BuildTool;
+import io.quarkus.devtools.project.QuarkusProjectHelper;
+
+/**
+ * The commands and timeouts of the jobs of a generated workflow or pipeline, derived from the build tool of the project
+ * and the settings of the generator.
+ *
+ * @param projectDir the root directory of the project
+ * @param parallelism the parallelism settings of the runner
+ * @param tests the test settings
+ * @param gradle the Gradle settings
+ * @param lanes the lane settings
+ */
+public record BuildCommands(Path projectDir, BuildParallelism parallelism, Tests tests, Gradle gradle, Lanes lanes) {
+
+    /**
+     * The timeout of the test jobs, in minutes.
+     */
+    public static final int TEST_TIMEOUT_MINUTES = 30;
+
+    /**
+     * The timeout of the heavy lane, in minutes.
+     */
+    public static final int HEAVY_TIMEOUT_MINUTES = 60;
+
+    /**
+     * The test settings.
+     *
+     * @param shards the number of shards to split the tests across
+     * @param groupByProfile whether to group the tests by Quarkus test profile and test resources
+     * @param impactAnalysis whether to only run the tests impacted by the changes
+     * @param retries the number of reruns of a failing test
+     * @param quarantine the quarantined test classes
+     */
+    public record Tests(int shards, boolean groupByProfile, boolean impactAnalysis, int retries, List<String> quarantine) {
+    }
+
+    /**
+     * The Gradle settings.
+     *
+     * @param configurationCache whether to use the configuration cache
+     * @param buildCache whether to use the build cache
+     * @param profile whether to profile the build
+     */
+    public record Gradle(boolean configurationCache, boolean buildCache, boolean profile) {
+    }
+
+    /**
+     * The lane settings.
+     *
+     * @param enabled whether the integration tests run in a heavy lane of their own
+     * @param nativeBuild whether the heavy lane builds and tests the native executable
+     * @param containerImage whether the heavy lane builds the container image
+     */
+    public record Lanes(boolean enabled, boolean nativeBuild, boolean containerImage) {
+    }
+
+    /**
+     * @return the build tool of the project
+     */
+    public BuildTool buildTool() {
+        return QuarkusProjectHelper.detectExistingBuildTool(projectDir);
+    }
+
+    /**
+     * @return whether the project is built with Gradle
+     */
+    public boolean isGradle() {
+        return buildTool() == BuildTool.GRADLE;
+    }
+
+    /**
+     * @return whether only the impacted tests run, which is ignored when the tests are sharded
+     */
+    public boolean testImpact() {
+        return tests.impactAnalysis() && tests.shards() <= 1;
+    }
+
+    /**
+     * Gradle builds run the tests as part of {@code build}, so unless the tests are sharded or split into lanes, a
+     * separate test invocation would only configure the project a second time.
+     *
+     * @return whether the project is built and tested in a single invocation
+     */
+    public boolean singleInvocation() {
+        return isGradle() && tests.shards() <= 1 && !testImpact() && !lanes.enabled();
+    }
+
+    /**
+     * The tests of a shard are selected on the command line, which replaces the exclusion of the quarantined tests, so
+     * they are left out of the selections. Only the first shard runs the integration tests.
+     *
+     * @return the test shards, with their {@code index}, {@code name} and test selection {@code args}, or an empty list
+     *         if the tests are to be sharded but no compiled test classes are found
+     */
+    public List<Map<String, Object>> testShards() {
+        if (tests.shards() <= 1) {
+            return List.of(singleTestShard());
+        }
+        BuildTool buildTool = buildTool();
+        String orderingArgs = orderingArgs();
+
+        List<TestGroup> groups = TestGroups.scan(TestGroups.getTestClassesDirs(projectDir, buildTool)).stream()
+                .map(g -> new TestGroup(g.key(),
+                        g.testClasses().stream().filter(c -> !tests.quarantine().contains(c)).toList()))
+                .filter(g -> !g.testClasses().isEmpty())
+                .toList();
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+        if (!tests.groupByProfile()) {
+            groups = groups.stream()
+                    .flatMap(g -> g.testClasses().stream().map(c -> new TestGroup(c, List.of(c))))
+                    .toList();
+        }
+
+        List<Map<String, Object>> shards = new ArrayList<>();
+        for (List<String> testClasses : TestGroups.assign(groups, tests.shards())) {
+            if (testClasses.isEmpty()) {
+                continue;
+            }
+            int index = shards.size() + 1;
+            String selectionArgs = switch (buildTool) {
+                case MAVEN -> "-Dtest=" + String.join(",", testClasses) + " -Dsurefire.failIfNoSpecifiedTests=false"
+                        + (index > 1 ? " -DskipITs=true" : "");
+                case GRADLE -> testClasses.stream().map(c -> "--tests " + c).collect(Collectors.joining(" "));
+                default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+            };
+            shards.add(testShard(index, "test-" + index,
+                    orderingArgs.isEmpty() ? selectionArgs : selectionArgs + " " + orderingArgs));
+        }
+        return shards;
+    }
+
+    /**
+     * @return the shard that runs all the tests, when they are not sharded
+     */
+    public Map<String, Object> singleTestShard() {
+        return testShard(1, "test", orderingArgs());
+    }
+
+    /**
+     * @return the command that builds the project, along with its tests when built in a single invocation
+     */
+    public String buildCommand() {
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> mvn() + " clean package -DskipTests=true " + parallelism.mavenBuildArgs();
+            case GRADLE -> gradlew() + " " + gradleBuildTasks() + " " + parallelism.gradleArgs() + gradleArgs();
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * @return the command that runs the tests, without the quarantined tests nor, with lanes, the integration tests
+     */
+    public String testCommand() {
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> join(mvn() + " verify " + parallelism.mavenTestArgs(Projects.hasArgLine(projectDir)),
+                    lanes.enabled() ? "-DskipITs=true" : "",
+                    FlakyTests.mavenRetryArgs(tests.retries()),
+                    FlakyTests.mavenExcludeArgs(tests.quarantine()));
+            case GRADLE -> gradlew() + " test " + parallelism.gradleArgs() + gradleArgs();
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * The heavy lane only runs the integration tests, as the unit tests run in the fast lane. Surefire has no switch of
+     * its own to skip the unit tests, so it is given a test selection that matches none of them.
+     *
+     * @return the command of the heavy lane
+     */
+    public String heavyCommand() {
+        String imageArgs = lanes.containerImage() ? " -Dquarkus.container-image.build=true" : "";
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> join(mvn() + " verify " + parallelism.mavenTestArgs(Projects.hasArgLine(projectDir)),
+                    FlakyTests.mavenRetryArgs(tests.retries()),
+                    FlakyTests.mavenExcludeArgs(tests.quarantine()),
+                    "-DskipITs=false -Dtest=None -Dsurefire.failIfNoSpecifiedTests=false")
+                    + (lanes.nativeBuild() ? " -Dnative -Dquarkus.native.container-build=true" : "")
+                    + imageArgs;
+            case GRADLE -> gradlew()
+                    + (lanes.nativeBuild()
+                            ? " testNative -Dquarkus.native.enabled=true -Dquarkus.native.container-build=true"
+                            : " quarkusIntTest")
+                    + imageArgs + " " + parallelism.gradleArgs() + gradleArgs();
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * The quarantined tests run on their own, without the exclusions that keep them out of the other test jobs.
+     *
+     * @return the command that only runs the quarantined tests, empty if there are none
+     */
+    public String quarantineCommand() {
+        if (tests.quarantine().isEmpty()) {
+            return "";
+        }
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> join(mvn() + " verify " + parallelism.mavenTestArgs(Projects.hasArgLine(projectDir)),
+                    FlakyTests.mavenRetryArgs(tests.retries()),
+                    FlakyTests.mavenQuarantineArgs(tests.quarantine()));
+            case GRADLE -> FlakyTests.QUARANTINE_ENV + "=true " + gradlew() + " test "
+                    + FlakyTests.gradleQuarantineArgs(tests.quarantine()) + " " + parallelism.gradleArgs() + gradleArgs();
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * @return the lines of the Gradle init script that applies the test forks, reruns and exclusions, empty for Maven
+     */
+    public List<String> gradleInitScript() {
+        if (!isGradle()) {
+            return List.of();
+        }
+        Map<String, String> systemProperties = tests.groupByProfile()
+                ? Map.of(TestGroups.CLASS_ORDER_PROPERTY, TestGroups.PROFILE_AWARE_ORDERER)
+                : Map.of();
+        String flakyTestsScript = FlakyTests.gradleInitScript(tests.retries(), tests.quarantine());
+        return (flakyTestsScript + parallelism.gradleInitScript(systemProperties)).lines().toList();
+    }
+
+    /**
+     * @return the timeout, in minutes, of a job that only builds the project
+     */
+    public int buildTimeoutMinutes() {
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> 20;
+            case GRADLE -> 15;
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * @return the timeout, in minutes, of a job that both builds and tests the project
+     */
+    public int jobTimeoutMinutes() {
+        BuildTool buildTool = buildTool();
+        return switch (buildTool) {
+            case MAVEN -> 45;
+            case GRADLE -> 40;
+            default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+        };
+    }
+
+    /**
+     * The test impact analysis reads the compiled test classes, so they are compiled with the application.
+     */
+    private String gradleBuildTasks() {
+        if (singleInvocation()) {
+            return "build";
+        }
+        return testImpact() ? "assemble testClasses" : "assemble";
+    }
+
+    /**
+     * Gradle applies the test class orderer through the system properties of its init script instead.
+     */
+    private String orderingArgs() {
+        return buildTool() == BuildTool.MAVEN && tests.groupByProfile()
+                ? "-D" + TestGroups.CLASS_ORDER_PROPERTY + "=" + TestGroups.PROFILE_AWARE_ORDERER
+                : "";
+    }
+
+    private String gradleArgs() {
+        StringBuilder args = new StringBuilder();
+        if (gradle.configurationCache()) {
+            args.append(" --configuration-cache");
+        }
+        if (gradle.buildCache()) {
+            args.append(" --build-cache");
+        }
+        if (gradle.profile()) {
+            args.append(" --profile");
+        }
+        return args.toString();
+    }
+
+    private String mvn() {
+        return projectDir.resolve("mvnw").toFile().exists() ? "./mvnw" : "mvn";
+    }
+
+    private String gradlew() {
+        return projectDir.resolve("gradlew").toFile().exists() ? "./gradlew" : "gradle";
+    }
+
+    private static Map<String, Object> testShard(int index, String name, String args) {
+        return Map.of("index", index, "name", name, "args", args);
+    }
+
+    private static String join(String command, String... args) {
+        StringBuilder joined = new StringBuilder(command);
+        for (String arg : args) {
+            if (!arg.isEmpty()) {
+                joined.append(' ').append(arg);
+            }
+        }
+        return joined.toString();
+    }
+}
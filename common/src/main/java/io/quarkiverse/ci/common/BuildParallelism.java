@@ -0,0 +1,98 @@
+package io.quarkiverse.ci.common;
+
+import java.util.Map;
+
+/**
+ * The parallelism settings of a build, derived from the size of the runner it runs on.
+ *
+ * @param cores the number of cores of the runner, used to build modules (Maven) or run tasks (Gradle) concurrently
+ * @param threads the number of modules tested concurrently (Maven)
+ * @param forks the number of test JVMs forked concurrently per module or project
+ * @param testHeapMegabytes the maximum heap of each forked test JVM
+ */
+public record BuildParallelism(int cores, int threads, int forks, long testHeapMegabytes) {
+
+    /**
+     * Memory kept aside for the build tool JVM and the operating system.
+     */
+    private static final long RESERVED_MEGABYTES = 1536;
+    private static final long MIN_TEST_HEAP_MEGABYTES = 256;
+    private static final long MAX_TEST_HEAP_MEGABYTES = 4096;
+
+    /**
+     * The property holding the heap option of the test JVMs, for the projects that set their own {@code argLine} to
+     * reference, as {@code ${ci.testHeap}}.
+     */
+    public static final String TEST_HEAP_PROPERTY = "ci.testHeap";
+
+    /**
+     * Derive the parallelism settings for the specified runner.
+     * Every core builds modules when compiling and packaging. When testing, each module tested concurrently forks its
+     * own test JVMs, so the cores are split between the modules and their forks, about the square root of the cores
+     * each, so that no more test JVMs than cores run at once. The memory left after the build tool is shared evenly
+     * among these test JVMs.
+     *
+     * @param size the runner size
+     * @return the parallelism settings
+     */
+    public static BuildParallelism of(RunnerSize size) {
+        int cores = Math.max(1, size.cores());
+        int threads = Math.max(1, (int) Math.sqrt(cores));
+        int forks = Math.max(1, cores / threads);
+        long available = Math.max(0, size.memoryMegabytes() - RESERVED_MEGABYTES);
+        long heap = available / ((long) threads * forks);
+        return new BuildParallelism(cores, threads, forks,
+                Math.max(MIN_TEST_HEAP_MEGABYTES, Math.min(MAX_TEST_HEAP_MEGABYTES, heap)));
+    }
+
+    /**
+     * @return the Maven arguments for compiling and packaging
+     */
+    public String mavenBuildArgs() {
+        return "-T " + cores;
+    }
+
+    /**
+     * The heap of the test JVMs is given through {@code argLine}, unless the project sets its own, which the command line
+     * would replace. It is then only given through {@link #TEST_HEAP_PROPERTY}.
+     *
+     * @param projectArgLine whether the project sets its own {@code argLine}
+     * @return the Maven arguments for running tests with surefire and failsafe
+     */
+    public String mavenTestArgs(boolean projectArgLine) {
+        String heap = "-Xmx" + testHeapMegabytes + "m";
+        return "-T " + threads + " -DforkCount=" + forks + " -DreuseForks=true -D" + TEST_HEAP_PROPERTY + "=" + heap
+                + (projectArgLine ? "" : " -DargLine=" + heap);
+    }
+
+    /**
+     * The workers bound both the tasks and the test JVMs that run at once, so there are as many as cores.
+     *
+     * @return the Gradle arguments for running tasks in parallel
+     */
+    public String gradleArgs() {
+        return "--parallel --max-workers=" + cores;
+    }
+
+    /**
+     * Test forks and their heap cannot be set from the Gradle command line, so they are applied through an init script
+     * placed in the {@code init.d} directory of the Gradle user home. The script also lets the tests selected with
+     * {@code --tests} be missing from some of the projects, as they are when sharded or selected by impact.
+     *
+     * @param systemProperties additional system properties for the test JVMs
+     * @return the content of the Gradle init script
+     */
+    public String gradleInitScript(Map<String, String> systemProperties) {
+        StringBuilder script = new StringBuilder();
+        script.append("allprojects {\n");
+        script.append("    tasks.withType(Test).configureEach {\n");
+        script.append("        maxParallelForks = ").append(forks).append("\n");
+        script.append("        maxHeapSize = '").append(testHeapMegabytes).append("m'\n");
+        script.append("        filter.failOnNoMatchingTests = false\n");
+        systemProperties.forEach((name, value) -> script.append("        systemProperty '").append(name).append("', '")
+                .append(value).append("'\n"));
+        script.append("    }\n");
+        script.append("}\n");
+        return script.toString();
+    }
+}
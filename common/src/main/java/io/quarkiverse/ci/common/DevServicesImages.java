@@ -0,0 +1,147 @@
+package io.quarkiverse.ci.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The container images started by the Dev Services of Quarkus extensions.
+ * The images match the defaults of the Dev Services for the Quarkus version of the project, unless configured, so they
+ * are the ones pulled when tests run on CI.
+ */
+public final class DevServicesImages {
+
+    /**
+     * The image Testcontainers starts next to every container, to clean them up.
+     */
+    public static final String RYUK_IMAGE = "docker.io/testcontainers/ryuk:0.11.0";
+
+    private static final Pattern VERSION = Pattern.compile("^(\\d+)\\.(\\d+)");
+
+    private static final String DATASOURCE_IMAGE = "quarkus.datasource.devservices.image-name";
+
+    private static final DevService POSTGRESQL = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "docker.io/postgres:14", "3.19", "docker.io/postgres:17"));
+    private static final DevService MYSQL = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "docker.io/mysql:8.0", "3.19", "docker.io/mysql:8.4"));
+    private static final DevService MARIADB = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "docker.io/mariadb:10.11", "3.19", "docker.io/mariadb:11.4"));
+    private static final DevService MSSQL = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "mcr.microsoft.com/mssql/server:2022-latest"));
+    private static final DevService DB2 = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "icr.io/db2_community/db2:11.5.9.0"));
+    private static final DevService ORACLE = new DevService(DATASOURCE_IMAGE,
+            images("3.0", "docker.io/gvenzl/oracle-free:23-slim-faststart"));
+    private static final DevService KAFKA = new DevService("quarkus.kafka.devservices.image-name",
+            images("3.0", "docker.io/redpandadata/redpanda:v24.1.2"));
+    private static final DevService AMQP = new DevService("quarkus.amqp.devservices.image-name",
+            images("3.0", "quay.io/artemiscloud/activemq-artemis-broker:1.0.25"));
+    private static final DevService RABBITMQ = new DevService("quarkus.rabbitmq.devservices.image-name",
+            images("3.0", "docker.io/rabbitmq:3.12-management"));
+    private static final DevService MONGODB = new DevService("quarkus.mongodb.devservices.image-name",
+            images("3.0", "docker.io/mongo:4.4", "3.19", "docker.io/mongo:7.0"));
+    private static final DevService REDIS = new DevService("quarkus.redis.devservices.image-name",
+            images("3.0", "docker.io/redis:7"));
+    private static final DevService KEYCLOAK = new DevService("quarkus.keycloak.devservices.image-name",
+            images("3.0", "quay.io/keycloak/keycloak:24.0", "3.19", "quay.io/keycloak/keycloak:26.2"));
+    private static final DevService ELASTICSEARCH = new DevService("quarkus.elasticsearch.devservices.image-name",
+            images("3.0", "docker.elastic.co/elasticsearch/elasticsearch:8.13.4", "3.19",
+                    "docker.elastic.co/elasticsearch/elasticsearch:9.0.2"));
+
+    private static final Map<String, DevService> SERVICES = new LinkedHashMap<>();
+
+    static {
+        SERVICES.put("quarkus-jdbc-postgresql", POSTGRESQL);
+        SERVICES.put("quarkus-reactive-pg-client", POSTGRESQL);
+        SERVICES.put("quarkus-jdbc-mysql", MYSQL);
+        SERVICES.put("quarkus-reactive-mysql-client", MYSQL);
+        SERVICES.put("quarkus-jdbc-mariadb", MARIADB);
+        SERVICES.put("quarkus-jdbc-mssql", MSSQL);
+        SERVICES.put("quarkus-reactive-mssql-client", MSSQL);
+        SERVICES.put("quarkus-jdbc-db2", DB2);
+        SERVICES.put("quarkus-reactive-db2-client", DB2);
+        SERVICES.put("quarkus-jdbc-oracle", ORACLE);
+        SERVICES.put("quarkus-reactive-oracle-client", ORACLE);
+        SERVICES.put("quarkus-kafka-client", KAFKA);
+        SERVICES.put("quarkus-messaging-kafka", KAFKA);
+        SERVICES.put("quarkus-kafka-streams", KAFKA);
+        SERVICES.put("quarkus-messaging-amqp", AMQP);
+        SERVICES.put("quarkus-messaging-rabbitmq", RABBITMQ);
+        SERVICES.put("quarkus-mongodb-client", MONGODB);
+        SERVICES.put("quarkus-redis-client", REDIS);
+        SERVICES.put("quarkus-oidc", KEYCLOAK);
+        SERVICES.put("quarkus-elasticsearch-rest-client", ELASTICSEARCH);
+    }
+
+    /**
+     * The Dev Service of an extension.
+     *
+     * @param imageProperty the configuration property that overrides the image of the Dev Service
+     * @param images the default images, by the Quarkus version (major * 1000 + minor) they are the default since
+     */
+    private record DevService(String imageProperty, NavigableMap<Integer, String> images) {
+
+        String getImage(String quarkusVersion, Function<String, Optional<String>> config) {
+            return config.apply(imageProperty).orElseGet(() -> {
+                Map.Entry<Integer, String> entry = images.floorEntry(toKey(quarkusVersion));
+                return entry == null ? images.firstEntry().getValue() : entry.getValue();
+            });
+        }
+    }
+
+    private DevServicesImages() {
+    }
+
+    /**
+     * Get the images the Dev Services of the specified extensions start.
+     * The image of a Dev Service is read from its {@code image-name} configuration property when set, for example
+     * {@code quarkus.datasource.devservices.image-name}, and is otherwise the default of the Quarkus version of the
+     * project. When at least one image is found, the Testcontainers Ryuk image is included too.
+     *
+     * @param artifactIds the artifact ids of the extensions of the project
+     * @param quarkusVersion the Quarkus version of the project, the latest defaults are used when it is unknown
+     * @param config the configuration of the project, by property name
+     * @return the distinct images, in a stable order
+     */
+    public static List<String> getImages(Collection<String> artifactIds, String quarkusVersion,
+            Function<String, Optional<String>> config) {
+        List<String> images = new ArrayList<>();
+        for (Map.Entry<String, DevService> entry : SERVICES.entrySet()) {
+            if (!artifactIds.contains(entry.getKey())) {
+                continue;
+            }
+            String image = entry.getValue().getImage(quarkusVersion, config);
+            if (!images.contains(image)) {
+                images.add(image);
+            }
+        }
+        if (!images.isEmpty()) {
+            images.add(RYUK_IMAGE);
+        }
+        return images;
+    }
+
+    private static NavigableMap<Integer, String> images(String... versionsAndImages) {
+        NavigableMap<Integer, String> images = new TreeMap<>();
+        for (int i = 0; i < versionsAndImages.length; i += 2) {
+            images.put(toKey(versionsAndImages[i]), versionsAndImages[i + 1]);
+        }
+        return images;
+    }
+
+    private static int toKey(String version) {
+        Matcher matcher = VERSION.matcher(version == null ? "" : version);
+        if (!matcher.find()) {
+            return Integer.MAX_VALUE;
+        }
+        return Integer.parseInt(matcher.group(1)) * 1000 + Integer.parseInt(matcher.group(2));
+    }
+}
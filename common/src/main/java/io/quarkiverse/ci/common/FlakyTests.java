@@ -0,0 +1,157 @@
+package io.quarkiverse.ci.common;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Support for flaky tests: failing tests are rerun in place instead of rerunning the whole job, and known flaky tests are
+ * quarantined, that is kept out of the blocking test jobs and run in a job of their own whose failures are tolerated.
+ */
+public final class FlakyTests {
+
+    /**
+     * The environment variable set by the quarantine job, so that the Gradle init script does not exclude the
+     * quarantined tests from it.
+     */
+    public static final String QUARANTINE_ENV = "CI_QUARANTINE";
+
+    /**
+     * The directory the reports of the flaky tests are copied to, to be kept as an artifact.
+     */
+    public static final String REPORT_DIR = "flaky-tests";
+
+    /**
+     * The extended regular expression that matches the XML test reports of the tests that only passed once rerun, whose
+     * failed runs Surefire and Failsafe record as flaky failures. The Gradle init script makes the test-retry plugin
+     * reports do the same, instead of listing every run of a test as a test case of its own.
+     */
+    public static final String REPORT_PATTERN = "<flaky(Failure|Error)";
+
+    private static final String TEST_RETRY_PLUGIN = "org.gradle:test-retry-gradle-plugin:1.6.2";
+
+    private FlakyTests() {
+    }
+
+    /**
+     * Read the quarantined tests from a project file, that lists a fully qualified test class name per line.
+     * Blank lines and lines starting with {@code #} are ignored.
+     *
+     * @param file the quarantine file
+     * @return the quarantined test classes, empty if the file does not exist
+     */
+    public static List<String> readQuarantine(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(file).stream()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .distinct()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the Maven arguments that rerun the failing unit and integration tests.
+     *
+     * @param retries the number of reruns of a failing test
+     * @return the arguments, empty if there are no reruns
+     */
+    public static String mavenRetryArgs(int retries) {
+        return retries <= 0 ? ""
+                : "-Dsurefire.rerunFailingTestsCount=" + retries + " -Dfailsafe.rerunFailingTestsCount=" + retries;
+    }
+
+    /**
+     * Get the Maven arguments that exclude the quarantined tests. They only apply until another test selection is given
+     * on the command line, so test selections must leave the quarantined tests out on their own. A module whose tests are
+     * all quarantined is left without tests, which is not a failure.
+     *
+     * @param quarantine the quarantined test classes
+     * @return the arguments, empty if there are no quarantined tests
+     */
+    public static String mavenExcludeArgs(List<String> quarantine) {
+        if (quarantine.isEmpty()) {
+            return "";
+        }
+        String exclusions = quarantine.stream().map(test -> "!" + test).collect(Collectors.joining(","));
+        return "-Dtest=" + exclusions + " -Dit.test=" + exclusions
+                + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false";
+    }
+
+    /**
+     * Get the Maven arguments that only run the quarantined tests.
+     *
+     * @param quarantine the quarantined test classes
+     * @return the arguments
+     */
+    public static String mavenQuarantineArgs(List<String> quarantine) {
+        String selection = String.join(",", quarantine);
+        return "-Dtest=" + selection + " -Dit.test=" + selection
+                + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false";
+    }
+
+    /**
+     * Get the Gradle arguments that only run the quarantined tests.
+     *
+     * @param quarantine the quarantined test classes
+     * @return the arguments
+     */
+    public static String gradleQuarantineArgs(List<String> quarantine) {
+        return quarantine.stream().map(test -> "--tests " + test).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Gradle has no command line option to rerun failing tests or exclude tests, so the test-retry plugin and the
+     * exclusions are applied through an init script. The runs of a rerun test are merged in the XML reports, with the
+     * failed runs of a test that passed as flaky failures, as {@link #REPORT_PATTERN} expects. Its {@code initscript} block
+     * must come first, so the script has to
+     * be placed before any other init script content.
+     *
+     * @param retries the number of reruns of a failing test
+     * @param quarantine the quarantined test classes, excluded unless {@value #QUARANTINE_ENV} is set
+     * @return the content of the Gradle init script, empty if there is nothing to apply
+     */
+    public static String gradleInitScript(int retries, List<String> quarantine) {
+        if (retries <= 0 && quarantine.isEmpty()) {
+            return "";
+        }
+        StringBuilder script = new StringBuilder();
+        if (retries > 0) {
+            script.append("initscript {\n");
+            script.append("    repositories {\n");
+            script.append("        gradlePluginPortal()\n");
+            script.append("    }\n");
+            script.append("    dependencies {\n");
+            script.append("        classpath '").append(TEST_RETRY_PLUGIN).append("'\n");
+            script.append("    }\n");
+            script.append("}\n");
+        }
+        script.append("allprojects {\n");
+        if (retries > 0) {
+            script.append("    apply plugin: org.gradle.testretry.TestRetryPlugin\n");
+        }
+        script.append("    tasks.withType(Test).configureEach {\n");
+        if (retries > 0) {
+            script.append("        retry {\n");
+            script.append("            maxRetries = ").append(retries).append("\n");
+            script.append("        }\n");
+            script.append("        reports.junitXml.mergeReruns = true\n");
+        }
+        if (!quarantine.isEmpty()) {
+            script.append("        if (System.getenv('").append(QUARANTINE_ENV).append("') == null) {\n");
+            quarantine.forEach(test -> script.append("            filter.excludeTestsMatching '").append(test).append("'\n"));
+            script.append("        }\n");
+        }
+        script.append("    }\n");
+        script.append("}\n");
+        return script.toString();
+    }
+}
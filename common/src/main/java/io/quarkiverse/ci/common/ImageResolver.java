@@ -0,0 +1,128 @@
+package io.quarkiverse.ci.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import io.quarkus.devtools.project.BuildTool;
+
+/**
+ * Selects the image a pipeline runs in by its expected pull cost, among the images that provide the JDK distribution and
+ * version of the project, including their slim and Alpine variants.
+ * An image already cached where the build runs costs nothing to pull, any other image costs its size.
+ */
+public final class ImageResolver {
+
+    /**
+     * How the image of a pipeline is selected.
+     */
+    public enum Strategy {
+
+        /**
+         * The image of the build tool for the JDK distribution, as returned by
+         * {@link JdkDistribution#getDockerImage(JdkDistribution, Optional, Optional)}.
+         */
+        DEFAULT,
+
+        /**
+         * The image with the lowest expected pull cost.
+         */
+        PULL_COST
+    }
+
+    /**
+     * An image that can run the build.
+     *
+     * @param image the image reference
+     * @param megabytes the approximate compressed size of the linux/amd64 image, in megabytes
+     * @param alpine whether the image is based on Alpine Linux, whose musl libc some build plugins do not support
+     * @param requiresWrapper whether the image only provides the JDK, so that the build needs a wrapper
+     */
+    public record Candidate(String image, int megabytes, boolean alpine, boolean requiresWrapper) {
+    }
+
+    private static final String CANDIDATES = "image-candidates.txt";
+    private static final String JAVA_VERSION = "{java}";
+
+    private ImageResolver() {
+    }
+
+    /**
+     * Get the images that can run a build, in order of preference, as listed with their sizes in the
+     * {@value #CANDIDATES} resource. The images of the {@code openjdk} distribution are deprecated, so it has none.
+     *
+     * @param jdk the JDK distribution
+     * @param javaVersion the Java version
+     * @param buildTool the build tool of the project
+     * @return the candidates
+     */
+    public static List<Candidate> getCandidates(JdkDistribution jdk, String javaVersion, BuildTool buildTool) {
+        String tool = switch (buildTool) {
+            case MAVEN -> "maven";
+            case GRADLE, GRADLE_KOTLIN_DSL -> "gradle";
+            default -> "";
+        };
+        List<Candidate> candidates = new ArrayList<>();
+        for (String line : readCandidates()) {
+            String[] columns = line.split("\\s+");
+            if ((columns[0].equals(tool) || columns[0].equals("jdk")) && columns[1].equals(jdk.name())) {
+                candidates.add(new Candidate(columns[2].replace(JAVA_VERSION, javaVersion), Integer.parseInt(columns[3]),
+                        columns.length > 4 && columns[4].equals("alpine"), columns[0].equals("jdk")));
+            }
+        }
+        return candidates;
+    }
+
+    private static List<String> readCandidates() {
+        try (InputStream is = ImageResolver.class.getResourceAsStream(CANDIDATES)) {
+            if (is == null) {
+                throw new IllegalStateException("Image candidates not found: " + CANDIDATES);
+            }
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the image with the lowest expected pull cost that can run a build.
+     *
+     * @param jdk the JDK distribution
+     * @param javaVersion the Java version
+     * @param buildTool the build tool of the project
+     * @param wrapper whether the project has a wrapper of its build tool, so that images that only provide the JDK can
+     *        run the build
+     * @param allowAlpine whether Alpine based images can be selected
+     * @param preferredImages the images already cached where the build runs, which cost nothing to pull
+     * @return the image, empty if no image satisfies the constraints
+     */
+    public static Optional<String> resolve(JdkDistribution jdk, String javaVersion, BuildTool buildTool, boolean wrapper,
+            boolean allowAlpine, Collection<String> preferredImages) {
+        Set<String> preferred = preferredImages.stream().map(ImageResolver::normalize).collect(Collectors.toSet());
+        return getCandidates(jdk, javaVersion, buildTool).stream()
+                .filter(candidate -> wrapper || !candidate.requiresWrapper())
+                .filter(candidate -> allowAlpine || !candidate.alpine())
+                .min(Comparator.comparingInt(candidate -> preferred.contains(normalize(candidate.image())) ? 0
+                        : candidate.megabytes()))
+                .map(Candidate::image);
+    }
+
+    /**
+     * Docker Hub images are listed with or without their registry and {@code library/} namespace.
+     */
+    private static String normalize(String image) {
+        String normalized = image.startsWith("docker.io/") ? image.substring("docker.io/".length()) : image;
+        return normalized.startsWith("library/") ? normalized.substring("library/".length()) : normalized;
+    }
+}
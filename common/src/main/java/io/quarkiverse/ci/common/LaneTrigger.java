@@ -0,0 +1,23 @@
+package io.quarkiverse.ci.common;
+
+/**
+ * When the heavy lane of a pipeline runs, that is the integration tests and the native and container image builds that
+ * are kept out of the fast-feedback lane.
+ */
+public enum LaneTrigger {
+
+    /**
+     * The heavy lane runs on every pipeline, next to the fast lane.
+     */
+    PARALLEL,
+
+    /**
+     * The heavy lane only runs on the default branch, once the fast lane passed.
+     */
+    MERGE,
+
+    /**
+     * The heavy lane only runs on scheduled pipelines.
+     */
+    SCHEDULE
+}
@@ -1,12 +1,27 @@
 package io.quarkiverse.ci.common;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import io.quarkus.devtools.project.BuildTool;
 
 public class Projects {
 
     private static final String[] BUILD_FILES = { "pom.xml", "build.gradle", "build.gradle.kts" };
     private static final String[] SCM_ROOT_FILES = { ".git", ".hg", ".svn" };
+    private static final String[] MAVEN_ROOT_FILES = { ".mvn", "mvnw", "mvnw.cmd" };
+    private static final String[] GRADLE_ROOT_FILES = { "settings.gradle", "settings.gradle.kts", "gradle.properties",
+            "gradle", "gradlew", "gradlew.bat" };
+    private static final String[] CONFIG_FILES = { "lombok.config", "config" };
+    private static final Set<String> NON_MODULE_DIRS = Set.of("src", "target", "build", "node_modules");
+    private static final Set<String> OUTPUT_DIRS = Set.of("target", "build", "node_modules");
 
     public static Path getProjectRoot() {
         return getProjectRoot(Paths.get(System.getProperty("user.dir")));
@@ -36,6 +51,197 @@ public class Projects {
         return dir;
     }
 
+    /**
+     * Get the modules of the project, as paths relative to the project root.
+     * A module is any directory that contains a build file. The project root itself is returned as an empty path.
+     *
+     * @param projectRoot the root directory of the project
+     * @return the relative paths of the modules
+     */
+    public static List<Path> getModules(Path projectRoot) {
+        List<Path> modules = new ArrayList<>();
+        collectModules(projectRoot, projectRoot, modules);
+        return modules;
+    }
+
+    /**
+     * Get the path patterns that affect the build of the project.
+     * These are the build files and source roots (including resources) of every module, along with the
+     * wrapper and settings files of the build tool.
+     *
+     * @param projectRoot the root directory of the project
+     * @param buildTool the build tool of the project
+     * @return the path patterns, relative to the project root
+     */
+    public static List<String> getBuildPaths(Path projectRoot, BuildTool buildTool) {
+        List<String> paths = new ArrayList<>();
+        for (String rootFile : getRootFiles(buildTool)) {
+            Path file = projectRoot.resolve(rootFile);
+            if (Files.isDirectory(file)) {
+                paths.add(rootFile + "/**/*");
+            } else if (Files.exists(file)) {
+                paths.add(rootFile);
+            }
+        }
+        for (Path module : getModules(projectRoot)) {
+            String prefix = module.toString().isEmpty() ? "" : toPattern(module) + "/";
+            Path moduleDir = projectRoot.resolve(module);
+            for (String buildFile : BUILD_FILES) {
+                if (Files.exists(moduleDir.resolve(buildFile))) {
+                    paths.add(prefix + buildFile);
+                }
+            }
+            if (Files.isDirectory(moduleDir.resolve("src"))) {
+                paths.add(prefix + "src/**/*");
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Check whether a Maven project sets the {@code argLine} of its test JVMs, either as a property or in the
+     * configuration of surefire or failsafe, in the POM of any module.
+     *
+     * @param projectRoot the root directory of the project
+     * @return whether the project sets its own {@code argLine}
+     */
+    public static boolean hasArgLine(Path projectRoot) {
+        for (Path module : getModules(projectRoot)) {
+            Path pom = projectRoot.resolve(module).resolve("pom.xml");
+            try {
+                if (Files.exists(pom) && Files.readString(pom).contains("<argLine>")) {
+                    return true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the build output directories of every module, that is what later jobs of a pipeline consume from the build.
+     *
+     * @param projectRoot the root directory of the project
+     * @param buildTool the build tool of the project
+     * @return the directories, relative to the project root and ending with a slash
+     */
+    public static List<String> getOutputPaths(Path projectRoot, BuildTool buildTool) {
+        String outputDir = buildTool == BuildTool.GRADLE ? "build/" : "target/";
+        List<String> paths = new ArrayList<>();
+        for (Path module : getModules(projectRoot)) {
+            paths.add(module.toString().isEmpty() ? outputDir : toPattern(module) + "/" + outputDir);
+        }
+        return paths;
+    }
+
+    /**
+     * Get the path patterns of the entries of the project that do not affect its build,
+     * for example documentation or container image directories that are not modules.
+     * Only the direct children of each module are considered. Hidden entries are never included,
+     * as they usually hold build or CI configuration, and neither are the configuration files read by the build or
+     * the tests, such as {@code lombok.config} or the {@code config} directory of Quarkus.
+     *
+     * @param projectRoot the root directory of the project
+     * @param buildTool the build tool of the project
+     * @return the path patterns, relative to the project root
+     */
+    public static List<String> getNonBuildPaths(Path projectRoot, BuildTool buildTool) {
+        List<String> rootFiles = List.of(getRootFiles(buildTool));
+        List<String> buildFiles = List.of(BUILD_FILES);
+        List<String> configFiles = List.of(CONFIG_FILES);
+        List<Path> modules = getModules(projectRoot);
+
+        List<String> paths = new ArrayList<>();
+        for (Path module : modules) {
+            Path moduleDir = projectRoot.resolve(module);
+            try (Stream<Path> entries = Files.list(moduleDir)) {
+                entries.sorted().forEach(entry -> {
+                    String name = entry.getFileName().toString();
+                    Path relative = projectRoot.relativize(entry);
+                    if (name.startsWith(".") || NON_MODULE_DIRS.contains(name) || buildFiles.contains(name)
+                            || configFiles.contains(name) || (module.toString().isEmpty() && rootFiles.contains(name))
+                            || modules.stream().anyMatch(m -> m.startsWith(relative))) {
+                        return;
+                    }
+                    paths.add(Files.isDirectory(entry) ? toPattern(relative) + "/**/*" : toPattern(relative));
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Get the path patterns of the entries of the project that may affect its build, that is every entry but the
+     * non-build paths and the build outputs, for the CI systems that only filter the changes with an allow-list.
+     * The directories that hold modules are expanded, so that their non-build paths are left out as well.
+     *
+     * @param projectRoot the root directory of the project
+     * @param buildTool the build tool of the project
+     * @return the path patterns, relative to the project root
+     * @see #getNonBuildPaths(Path, BuildTool)
+     */
+    public static List<String> getChangePaths(Path projectRoot, BuildTool buildTool) {
+        List<String> nonBuildPaths = getNonBuildPaths(projectRoot, buildTool);
+        List<Path> modules = getModules(projectRoot);
+        List<String> paths = new ArrayList<>();
+        collectChangePaths(projectRoot, projectRoot, modules, nonBuildPaths, paths);
+        return paths;
+    }
+
+    private static void collectChangePaths(Path projectRoot, Path dir, List<Path> modules, List<String> nonBuildPaths,
+            List<String> paths) {
+        List<String> scmFiles = List.of(SCM_ROOT_FILES);
+        try (Stream<Path> entries = Files.list(dir)) {
+            for (Path entry : entries.sorted().toList()) {
+                String name = entry.getFileName().toString();
+                Path relative = projectRoot.relativize(entry);
+                boolean directory = Files.isDirectory(entry);
+                String pattern = directory ? toPattern(relative) + "/**/*" : toPattern(relative);
+                if (scmFiles.contains(name) || (directory && OUTPUT_DIRS.contains(name))
+                        || nonBuildPaths.contains(pattern)) {
+                    continue;
+                }
+                if (directory && !name.startsWith(".") && modules.stream().anyMatch(m -> m.startsWith(relative))) {
+                    collectChangePaths(projectRoot, entry, modules, nonBuildPaths, paths);
+                } else {
+                    paths.add(pattern);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void collectModules(Path projectRoot, Path dir, List<Path> modules) {
+        if (hasBuildFile(dir)) {
+            modules.add(projectRoot.relativize(dir));
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            children.filter(Files::isDirectory)
+                    .filter(child -> !child.getFileName().toString().startsWith("."))
+                    .filter(child -> !NON_MODULE_DIRS.contains(child.getFileName().toString()))
+                    .sorted()
+                    .forEach(child -> collectModules(projectRoot, child, modules));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String[] getRootFiles(BuildTool buildTool) {
+        return switch (buildTool) {
+            case MAVEN -> MAVEN_ROOT_FILES;
+            case GRADLE, GRADLE_KOTLIN_DSL -> GRADLE_ROOT_FILES;
+            default -> new String[0];
+        };
+    }
+
+    private static String toPattern(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+
     private static boolean isScmRoot(Path dir) {
         for (String scmRootFile : SCM_ROOT_FILES) {
             if (dir.resolve(scmRootFile).toFile().exists()) {
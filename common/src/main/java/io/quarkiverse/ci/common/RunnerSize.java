@@ -0,0 +1,48 @@
+package io.quarkiverse.ci.common;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The resources available to a CI runner.
+ *
+ * @param cores the number of CPU cores
+ * @param memory the amount of memory in bytes
+ */
+public record RunnerSize(int cores, long memory) {
+
+    private static final long GB = 1024L * 1024 * 1024;
+    private static final long MEMORY_PER_CORE = 4 * GB;
+    private static final Pattern CORES_LABEL = Pattern.compile("(\\d+)[-_]?cores?");
+
+    /**
+     * The size of a standard hosted runner, used when nothing more specific is known.
+     */
+    public static final RunnerSize DEFAULT = new RunnerSize(2, 7 * GB);
+
+    /**
+     * Get the size of a runner from its label.
+     * Larger runners are usually labelled after their number of cores (e.g. {@code ubuntu-latest-8-cores}),
+     * in which case the memory is assumed to scale with the cores.
+     *
+     * @param label the runner label
+     * @return the size of the runner, or empty if the label does not tell
+     */
+    public static Optional<RunnerSize> fromLabel(String label) {
+        if (label == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = CORES_LABEL.matcher(label.toLowerCase(Locale.ROOT));
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        int cores = Integer.parseInt(matcher.group(1));
+        return Optional.of(new RunnerSize(cores, cores * MEMORY_PER_CORE));
+    }
+
+    public long memoryMegabytes() {
+        return memory / (1024 * 1024);
+    }
+}
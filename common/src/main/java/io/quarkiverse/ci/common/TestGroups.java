@@ -0,0 +1,217 @@
+package io.quarkiverse.ci.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.AnnotationValue;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.jboss.jandex.Type;
+
+import io.quarkus.devtools.project.BuildTool;
+
+/**
+ * Groups the test classes of a project by the Quarkus application they start.
+ * Quarkus restarts the application whenever a test uses a different {@code @TestProfile} or set of test resources than
+ * the previous one, so tests that share them should run together, on the same runner.
+ */
+public final class TestGroups {
+
+    /**
+     * The JUnit class orderer of Quarkus, that runs the test classes of the same profile one after the other.
+     */
+    public static final String PROFILE_AWARE_ORDERER = "io.quarkus.test.junit.util.QuarkusTestProfileAwareClassOrderer";
+    public static final String CLASS_ORDER_PROPERTY = "junit.jupiter.testclass.order.default";
+
+    private static final DotName QUARKUS_TEST = DotName.createSimple("io.quarkus.test.junit.QuarkusTest");
+    private static final DotName TEST_PROFILE = DotName.createSimple("io.quarkus.test.junit.TestProfile");
+    private static final DotName QUARKUS_TEST_RESOURCE = DotName.createSimple("io.quarkus.test.common.QuarkusTestResource");
+    private static final DotName WITH_TEST_RESOURCE = DotName.createSimple("io.quarkus.test.common.WithTestResource");
+    private static final List<DotName> TEST_METHOD_ANNOTATIONS = List.of(
+            DotName.createSimple("org.junit.jupiter.api.Test"),
+            DotName.createSimple("org.junit.jupiter.params.ParameterizedTest"),
+            DotName.createSimple("org.junit.jupiter.api.RepeatedTest"),
+            DotName.createSimple("org.junit.jupiter.api.TestFactory"),
+            DotName.createSimple("org.junit.jupiter.api.TestTemplate"));
+
+    /**
+     * The weight of starting an application, relative to running a single test class.
+     */
+    private static final int RESTART_WEIGHT = 5;
+
+    /**
+     * A set of test classes that start the same application.
+     *
+     * @param key the profile and test resources the classes share, empty for tests that do not start an application
+     * @param testClasses the names of the test classes
+     */
+    public record TestGroup(String key, List<String> testClasses) {
+
+        int weight() {
+            return testClasses.size() + (key.isEmpty() ? 0 : RESTART_WEIGHT);
+        }
+    }
+
+    private TestGroups() {
+    }
+
+    /**
+     * Get the directories that hold the compiled test classes of the modules of the project.
+     *
+     * @param projectRoot the root directory of the project
+     * @param buildTool the build tool of the project
+     * @return the existing test classes directories
+     */
+    public static List<Path> getTestClassesDirs(Path projectRoot, BuildTool buildTool) {
+        List<String> candidates = switch (buildTool) {
+            case MAVEN -> List.of("target/test-classes");
+            case GRADLE, GRADLE_KOTLIN_DSL -> List.of("build/classes/java/test", "build/classes/kotlin/test");
+            default -> List.of();
+        };
+        List<Path> dirs = new ArrayList<>();
+        for (Path module : Projects.getModules(projectRoot)) {
+            for (String candidate : candidates) {
+                Path dir = projectRoot.resolve(module).resolve(candidate);
+                if (Files.isDirectory(dir)) {
+                    dirs.add(dir);
+                }
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Scan the compiled test classes and group them by the application they start.
+     *
+     * @param testClassesDirs the directories of the compiled test classes
+     * @return the groups, sorted by key
+     */
+    public static List<TestGroup> scan(List<Path> testClassesDirs) {
+        Index index = index(testClassesDirs);
+
+        Set<DotName> classesWithTests = new HashSet<>();
+        for (DotName annotation : TEST_METHOD_ANNOTATIONS) {
+            for (AnnotationInstance instance : index.getAnnotations(annotation)) {
+                if (instance.target().kind() == AnnotationTarget.Kind.METHOD) {
+                    classesWithTests.add(instance.target().asMethod().declaringClass().name());
+                }
+            }
+        }
+
+        Map<String, List<String>> groups = new TreeMap<>();
+        for (ClassInfo classInfo : index.getKnownClasses()) {
+            if (Modifier.isAbstract(classInfo.flags()) || classInfo.nestingType() != ClassInfo.NestingType.TOP_LEVEL
+                    || hierarchy(classInfo, index).stream().noneMatch(c -> classesWithTests.contains(c.name()))) {
+                continue;
+            }
+            groups.computeIfAbsent(groupKey(classInfo, index), k -> new ArrayList<>()).add(classInfo.name().toString());
+        }
+
+        List<TestGroup> result = new ArrayList<>();
+        groups.forEach((key, classes) -> result.add(new TestGroup(key, classes.stream().sorted().toList())));
+        return result;
+    }
+
+    /**
+     * Assign the groups to shards, keeping each group on a single shard and balancing the shards by weight.
+     *
+     * @param groups the test groups
+     * @param shards the number of shards
+     * @return the test classes of each shard, ordered by group
+     */
+    public static List<List<String>> assign(List<TestGroup> groups, int shards) {
+        List<List<String>> assignments = new ArrayList<>();
+        int[] weights = new int[shards];
+        for (int i = 0; i < shards; i++) {
+            assignments.add(new ArrayList<>());
+        }
+        groups.stream()
+                .sorted(Comparator.comparingInt(TestGroup::weight).reversed().thenComparing(TestGroup::key))
+                .forEach(group -> {
+                    int lightest = 0;
+                    for (int i = 1; i < shards; i++) {
+                        if (weights[i] < weights[lightest]) {
+                            lightest = i;
+                        }
+                    }
+                    assignments.get(lightest).addAll(group.testClasses());
+                    weights[lightest] += group.weight();
+                });
+        return assignments;
+    }
+
+    private static String groupKey(ClassInfo classInfo, Index index) {
+        List<ClassInfo> hierarchy = hierarchy(classInfo, index);
+        if (findAnnotation(hierarchy, QUARKUS_TEST).isEmpty()) {
+            return "";
+        }
+        String profile = findAnnotation(hierarchy, TEST_PROFILE)
+                .map(a -> a.value().asClass().name().toString())
+                .orElse("default");
+        Set<String> resources = new TreeSet<>();
+        for (ClassInfo c : hierarchy) {
+            for (DotName annotation : List.of(QUARKUS_TEST_RESOURCE, WITH_TEST_RESOURCE)) {
+                for (AnnotationInstance instance : c.declaredAnnotationsWithRepeatable(annotation, index)) {
+                    AnnotationValue value = instance.value();
+                    if (value != null) {
+                        resources.add(value.asClass().name().toString());
+                    }
+                }
+            }
+        }
+        return resources.isEmpty() ? profile : profile + resources;
+    }
+
+    private static Optional<AnnotationInstance> findAnnotation(List<ClassInfo> hierarchy, DotName annotation) {
+        return hierarchy.stream()
+                .map(c -> c.declaredAnnotation(annotation))
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    private static List<ClassInfo> hierarchy(ClassInfo classInfo, Index index) {
+        List<ClassInfo> hierarchy = new ArrayList<>();
+        ClassInfo current = classInfo;
+        while (current != null) {
+            hierarchy.add(current);
+            Type superClass = current.superClassType();
+            current = superClass == null ? null : index.getClassByName(superClass.name());
+        }
+        return hierarchy;
+    }
+
+    private static Index index(List<Path> dirs) {
+        Indexer indexer = new Indexer();
+        for (Path dir : dirs) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".class")).toList()) {
+                    try (InputStream is = Files.newInputStream(file)) {
+                        indexer.index(is);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return indexer.complete();
+    }
+}
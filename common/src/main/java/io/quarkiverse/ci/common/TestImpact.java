@@ -0,0 +1,47 @@
+package io.quarkiverse.ci.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Test impact analysis, run on CI to only run the tests impacted by the changes of a pull request.
+ * The analysis is a single-file Java program, launched with {@code java TestImpact.java (maven|gradle) BASE}, that
+ * maps every test to the classes it depends on by reading the class files compiled by the build, so that the map is
+ * always up to date and does not need to be cached between runs. The Quarkus tests start the whole application of their
+ * module, so they are mapped to all the main classes of their module as well.
+ */
+public final class TestImpact {
+
+    /**
+     * The file name the program must be written to, to be launched as a single-file program.
+     */
+    public static final String FILE_NAME = "TestImpact.java";
+
+    /**
+     * The output of the program when none of the tests is impacted by the changes.
+     */
+    public static final String NO_TESTS = "NONE";
+
+    private TestImpact() {
+    }
+
+    /**
+     * Get the source of the test impact analysis program.
+     *
+     * @return the lines of the program
+     */
+    public static List<String> getProgram() {
+        // the program is a resource next to this class, left out of the filtering of the resources
+        try (InputStream is = TestImpact.class.getResourceAsStream(FILE_NAME)) {
+            if (is == null) {
+                throw new IllegalStateException("Test impact analysis program not found: " + FILE_NAME);
+            }
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
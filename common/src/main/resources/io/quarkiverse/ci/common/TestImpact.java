@@ -0,0 +1,207 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Selects the tests impacted by the changes since a base revision, generated by Quarkus CI.
+ * Usage: java TestImpact.java (maven|gradle) BASE_REVISION [EXCLUDED_TEST...]
+ * Prints the arguments that select the impacted tests, nothing when all tests should run, or NONE when no test is
+ * impacted.
+ */
+public class TestImpact {
+
+    private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([\\w/$]+);");
+    private static final Pattern SOURCE = Pattern.compile("(?:^|/)src/\\w+/(?:java|kotlin)/(.+)\\.(?:java|kt)$");
+    private static final Pattern BUILD_FILE = Pattern.compile(
+            "(?:^|/)(?:pom\\.xml|build\\.gradle(?:\\.kts)?|settings\\.gradle(?:\\.kts)?|gradle\\.properties|mvnw|gradlew)$|(?:^|/)src/|^\\.mvn/|^gradle/");
+    private static final Pattern MAVEN_MAIN = Pattern.compile("/target/classes/");
+    private static final Pattern MAVEN_TEST = Pattern.compile("/target/test-classes/");
+    private static final Pattern GRADLE_MAIN = Pattern.compile("/build/classes/[^/]+/main/");
+    private static final Pattern GRADLE_TEST = Pattern.compile("/build/classes/[^/]+/test/");
+    private static final Set<String> QUARKUS_TESTS = Set.of("io.quarkus.test.junit.QuarkusTest",
+            "io.quarkus.test.junit.QuarkusIntegrationTest", "io.quarkus.test.junit.main.QuarkusMainTest");
+    private static final Pattern TEST_NAME = Pattern.compile("(?:^Test.*|.*Tests?|.*TestCase|^IT.*|.*IT|.*ITCase)$");
+
+    public static void main(String[] args) throws IOException {
+        List<String> changes = changedFiles(args[1]);
+        if (changes == null) {
+            return;
+        }
+        select(Paths.get("."), "maven".equals(args[0]), changes, List.of(args).subList(2, args.length))
+                .ifPresent(System.out::println);
+    }
+
+    /**
+     * Select the tests impacted by changes. A test is impacted when it depends on a changed class, directly or through
+     * other classes. The Quarkus tests start the whole application of their module, so they also depend on every main
+     * class of their module.
+     *
+     * @param root the root directory of the compiled project
+     * @param maven whether the project is built with Maven, or else Gradle
+     * @param changes the changed files, relative to the root
+     * @param excluded the tests never selected
+     * @return the arguments that select the impacted tests, NONE when no test is impacted, or empty when all tests
+     *         should run
+     */
+    static Optional<String> select(Path root, boolean maven, List<String> changes, List<String> excluded)
+            throws IOException {
+        Set<String> changedClasses = new HashSet<>();
+        for (String change : changes) {
+            Matcher source = SOURCE.matcher(change);
+            if (source.find()) {
+                changedClasses.add(source.group(1).replace('/', '.'));
+            } else if (BUILD_FILE.matcher(change).find()) {
+                return Optional.empty();
+            }
+        }
+
+        Map<String, Set<String>> dependents = new HashMap<>();
+        Set<String> classes = new HashSet<>();
+        Map<String, String> mainModules = new HashMap<>();
+        Map<String, String> quarkusTestModules = new HashMap<>();
+        Set<String> tests = new TreeSet<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".class")).toList()) {
+                String path = "/" + root.relativize(file).toString().replace('\\', '/');
+                Matcher test = (maven ? MAVEN_TEST : GRADLE_TEST).matcher(path);
+                Matcher main = (maven ? MAVEN_MAIN : GRADLE_MAIN).matcher(path);
+                boolean isTest = test.find();
+                if (!isTest && !main.find()) {
+                    continue;
+                }
+                String module = path.substring(0, isTest ? test.start() : main.start());
+                ClassFile classFile = ClassFile.read(file);
+                String name = topLevel(classFile.name);
+                classes.add(name);
+                for (String dependency : classFile.dependencies) {
+                    dependents.computeIfAbsent(topLevel(dependency), k -> new HashSet<>()).add(name);
+                }
+                if (!isTest) {
+                    mainModules.put(name, module);
+                } else if (TEST_NAME.matcher(name.substring(name.lastIndexOf('.') + 1)).matches()) {
+                    tests.add(name);
+                    if (classFile.dependencies.stream().anyMatch(QUARKUS_TESTS::contains)) {
+                        quarkusTestModules.put(name, module);
+                    }
+                }
+            }
+        }
+
+        if (!classes.containsAll(changedClasses)) {
+            // a changed class was not compiled here, or was removed: its dependents are unknown
+            return Optional.empty();
+        }
+
+        Set<String> impacted = new HashSet<>(changedClasses);
+        Deque<String> queue = new ArrayDeque<>(changedClasses);
+        while (!queue.isEmpty()) {
+            for (String dependent : dependents.getOrDefault(queue.poll(), Set.of())) {
+                if (impacted.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        Set<String> impactedModules = impacted.stream()
+                .map(mainModules::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<String> selected = tests.stream()
+                .filter(t -> impacted.contains(t) || impactedModules.contains(quarkusTestModules.get(t)))
+                .filter(t -> !excluded.contains(t))
+                .toList();
+        if (selected.isEmpty()) {
+            return Optional.of("NONE");
+        } else if (maven) {
+            String list = String.join(",", selected);
+            return Optional.of("-Dtest=" + list + " -Dit.test=" + list
+                    + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false");
+        } else {
+            return Optional.of(selected.stream().map(t -> "--tests " + t).collect(Collectors.joining(" ")));
+        }
+    }
+
+    private static List<String> changedFiles(String base) {
+        try {
+            Process process = new ProcessBuilder("git", "diff", "--name-only", base, "HEAD")
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            List<String> files = new String(process.getInputStream().readAllBytes()).lines().toList();
+            return process.waitFor() == 0 ? files : null;
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String topLevel(String className) {
+        int nested = className.indexOf('$');
+        return nested < 0 ? className : className.substring(0, nested);
+    }
+
+    /**
+     * The name of a class and the classes it references, read from the constant pool of its class file.
+     */
+    private record ClassFile(String name, Set<String> dependencies) {
+
+        static ClassFile read(Path file) throws IOException {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                in.readInt();
+                in.readUnsignedShort();
+                in.readUnsignedShort();
+                int count = in.readUnsignedShort();
+                Map<Integer, String> utf8 = new HashMap<>();
+                Map<Integer, Integer> classes = new HashMap<>();
+                for (int i = 1; i < count; i++) {
+                    int tag = in.readUnsignedByte();
+                    switch (tag) {
+                        case 1 -> utf8.put(i, in.readUTF());
+                        case 7 -> classes.put(i, in.readUnsignedShort());
+                        case 8, 16, 19, 20 -> in.skipBytes(2);
+                        case 15 -> in.skipBytes(3);
+                        case 3, 4, 9, 10, 11, 12, 17, 18 -> in.skipBytes(4);
+                        case 5, 6 -> {
+                            in.skipBytes(8);
+                            i++;
+                        }
+                        default -> throw new IOException("Unexpected constant pool tag " + tag + " in " + file);
+                    }
+                }
+                in.readUnsignedShort();
+                String name = utf8.get(classes.get(in.readUnsignedShort())).replace('/', '.');
+
+                Set<String> dependencies = new HashSet<>();
+                for (int nameIndex : classes.values()) {
+                    String dependency = utf8.get(nameIndex);
+                    if (!dependency.startsWith("[")) {
+                        dependencies.add(dependency.replace('/', '.'));
+                    }
+                }
+                for (String value : utf8.values()) {
+                    Matcher matcher = DESCRIPTOR_CLASS.matcher(value);
+                    while (matcher.find()) {
+                        dependencies.add(matcher.group(1).replace('/', '.'));
+                    }
+                }
+                return new ClassFile(name, dependencies);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BuildCommandsTest {
+
+    private static final BuildParallelism PARALLELISM = new BuildParallelism(4, 2, 2, 1024);
+    private static final BuildCommands.Gradle GRADLE = new BuildCommands.Gradle(true, false, false);
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void testMavenCommands() throws IOException {
+        Files.createFile(projectDir.resolve("pom.xml"));
+        Files.createFile(projectDir.resolve("mvnw"));
+        BuildCommands commands = new BuildCommands(projectDir, PARALLELISM,
+                new BuildCommands.Tests(1, false, false, 2, List.of("org.acme.FlakyTest")), GRADLE,
+                new BuildCommands.Lanes(true, false, false));
+
+        assertEquals("./mvnw clean package -DskipTests=true -T 4", commands.buildCommand());
+        assertEquals("./mvnw verify -T 2 -DforkCount=2 -DreuseForks=true -Dci.testHeap=-Xmx1024m -DargLine=-Xmx1024m"
+                + " -DskipITs=true -Dsurefire.rerunFailingTestsCount=2 -Dfailsafe.rerunFailingTestsCount=2"
+                + " -Dtest=!org.acme.FlakyTest -Dit.test=!org.acme.FlakyTest"
+                + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false",
+                commands.testCommand());
+        assertTrue(commands.heavyCommand().endsWith("-DskipITs=false -Dtest=None -Dsurefire.failIfNoSpecifiedTests=false"));
+        assertTrue(commands.quarantineCommand().contains("-Dtest=org.acme.FlakyTest -Dit.test=org.acme.FlakyTest"));
+        assertEquals(List.of(Map.of("index", 1, "name", "test", "args", "")), commands.testShards());
+        assertFalse(commands.singleInvocation());
+        assertTrue(commands.gradleInitScript().isEmpty());
+        assertEquals(20, commands.buildTimeoutMinutes());
+    }
+
+    @Test
+    void testGradleSingleInvocation() throws IOException {
+        Files.createFile(projectDir.resolve("build.gradle"));
+        BuildCommands commands = new BuildCommands(projectDir, PARALLELISM,
+                new BuildCommands.Tests(1, true, false, 0, List.of()), GRADLE, new BuildCommands.Lanes(false, false, false));
+
+        assertTrue(commands.singleInvocation());
+        assertEquals("gradle build --parallel --max-workers=4 --configuration-cache", commands.buildCommand());
+        assertEquals("", commands.quarantineCommand());
+        assertTrue(commands.gradleInitScript().contains("        maxParallelForks = 2"));
+        assertEquals(15, commands.buildTimeoutMinutes());
+    }
+
+    @Test
+    void testImpactAnalysisCompilesTests() throws IOException {
+        Files.createFile(projectDir.resolve("build.gradle"));
+        BuildCommands commands = new BuildCommands(projectDir, PARALLELISM,
+                new BuildCommands.Tests(1, true, true, 0, List.of()), GRADLE, new BuildCommands.Lanes(false, false, false));
+
+        assertTrue(commands.testImpact());
+        assertFalse(commands.singleInvocation());
+        assertTrue(commands.buildCommand().startsWith("gradle assemble testClasses "));
+    }
+
+    @Test
+    void testShardsWithoutCompiledTests() throws IOException {
+        Files.createFile(projectDir.resolve("pom.xml"));
+        BuildCommands commands = new BuildCommands(projectDir, PARALLELISM,
+                new BuildCommands.Tests(3, true, true, 0, List.of()), GRADLE, new BuildCommands.Lanes(false, false, false));
+
+        assertFalse(commands.testImpact());
+        assertTrue(commands.testShards().isEmpty());
+        assertEquals(Map.of("index", 1, "name", "test", "args",
+                "-D" + TestGroups.CLASS_ORDER_PROPERTY + "=" + TestGroups.PROFILE_AWARE_ORDERER), commands.singleTestShard());
+    }
+}
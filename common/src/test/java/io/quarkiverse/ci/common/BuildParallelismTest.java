@@ -0,0 +1,55 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class BuildParallelismTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    void testRunnerSizeFromLabel() {
+        assertEquals(new RunnerSize(8, 32 * GB), RunnerSize.fromLabel("ubuntu-latest-8-cores").orElseThrow());
+        assertEquals(new RunnerSize(16, 64 * GB), RunnerSize.fromLabel("ubuntu-22.04-16core").orElseThrow());
+        assertTrue(RunnerSize.fromLabel("ubuntu-latest").isEmpty());
+        assertTrue(RunnerSize.fromLabel(null).isEmpty());
+    }
+
+    @Test
+    void testDefaultRunner() {
+        BuildParallelism parallelism = BuildParallelism.of(RunnerSize.DEFAULT);
+        assertEquals(new BuildParallelism(2, 1, 2, 2816), parallelism);
+        assertEquals("-T 2", parallelism.mavenBuildArgs());
+        assertEquals("-T 1 -DforkCount=2 -DreuseForks=true -Dci.testHeap=-Xmx2816m -DargLine=-Xmx2816m",
+                parallelism.mavenTestArgs(false));
+        assertEquals("--parallel --max-workers=2", parallelism.gradleArgs());
+    }
+
+    @Test
+    void testProjectArgLineIsKept() {
+        assertEquals("-T 1 -DforkCount=2 -DreuseForks=true -Dci.testHeap=-Xmx2816m",
+                BuildParallelism.of(RunnerSize.DEFAULT).mavenTestArgs(true));
+    }
+
+    @Test
+    void testLargeRunner() {
+        BuildParallelism parallelism = BuildParallelism.of(new RunnerSize(16, 64 * GB));
+        // no more test JVMs than cores run at once
+        assertEquals(new BuildParallelism(16, 4, 4, 4000), parallelism);
+        assertEquals("-T 16", parallelism.mavenBuildArgs());
+        assertEquals("--parallel --max-workers=16", parallelism.gradleArgs());
+        String script = parallelism.gradleInitScript(Map.of("foo", "bar"));
+        assertTrue(script.contains("maxParallelForks = 4"));
+        assertTrue(script.contains("maxHeapSize = '4000m'"));
+        assertTrue(script.contains("systemProperty 'foo', 'bar'"));
+        assertTrue(script.contains("filter.failOnNoMatchingTests = false"));
+    }
+
+    @Test
+    void testSmallRunnerKeepsMinimumHeap() {
+        assertEquals(new BuildParallelism(1, 1, 1, 256), BuildParallelism.of(new RunnerSize(1, GB)));
+    }
+}
@@ -0,0 +1,50 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class DevServicesImagesTest {
+
+    private static final List<String> EXTENSIONS = List.of("quarkus-rest", "quarkus-jdbc-postgresql",
+            "quarkus-reactive-pg-client", "quarkus-messaging-kafka");
+
+    @Test
+    void testGetImages() {
+        List<String> images = DevServicesImages.getImages(EXTENSIONS, "3.24.1", name -> Optional.empty());
+        assertEquals(List.of("docker.io/postgres:17", "docker.io/redpandadata/redpanda:v24.1.2", DevServicesImages.RYUK_IMAGE),
+                images);
+    }
+
+    @Test
+    void testGetImagesOfOlderQuarkusVersion() {
+        List<String> images = DevServicesImages.getImages(EXTENSIONS, "3.8.6", name -> Optional.empty());
+        assertEquals(List.of("docker.io/postgres:14", "docker.io/redpandadata/redpanda:v24.1.2", DevServicesImages.RYUK_IMAGE),
+                images);
+    }
+
+    @Test
+    void testGetImagesOfUnknownQuarkusVersion() {
+        assertEquals("docker.io/postgres:17",
+                DevServicesImages.getImages(EXTENSIONS, null, name -> Optional.empty()).get(0));
+    }
+
+    @Test
+    void testGetConfiguredImages() {
+        Map<String, String> config = Map.of("quarkus.datasource.devservices.image-name", "docker.io/postgres:16-alpine");
+        List<String> images = DevServicesImages.getImages(EXTENSIONS, "3.24.1",
+                name -> Optional.ofNullable(config.get(name)));
+        assertEquals(List.of("docker.io/postgres:16-alpine", "docker.io/redpandadata/redpanda:v24.1.2",
+                DevServicesImages.RYUK_IMAGE), images);
+    }
+
+    @Test
+    void testGetImagesWithoutDevServicesImages() {
+        assertTrue(DevServicesImages.getImages(List.of("quarkus-rest", "quarkus-arc"), "3.24.1", name -> Optional.empty())
+                .isEmpty());
+    }
+}
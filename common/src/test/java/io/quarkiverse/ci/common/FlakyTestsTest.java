@@ -0,0 +1,48 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FlakyTestsTest {
+
+    @TempDir
+    Path projectRoot;
+
+    @Test
+    void testReadQuarantine() throws IOException {
+        Path file = projectRoot.resolve("quarantined-tests");
+        Files.writeString(file, "# flaky since the upgrade\norg.acme.FooTest\n\n  org.acme.BarIT  \norg.acme.FooTest\n");
+        assertEquals(List.of("org.acme.FooTest", "org.acme.BarIT"), FlakyTests.readQuarantine(file));
+        assertEquals(List.of(), FlakyTests.readQuarantine(projectRoot.resolve("missing")));
+    }
+
+    @Test
+    void testMavenArgs() {
+        assertEquals("", FlakyTests.mavenRetryArgs(0));
+        assertEquals("-Dsurefire.rerunFailingTestsCount=2 -Dfailsafe.rerunFailingTestsCount=2",
+                FlakyTests.mavenRetryArgs(2));
+        assertEquals("", FlakyTests.mavenExcludeArgs(List.of()));
+        assertEquals("-Dtest=!a.FooTest,!a.BarIT -Dit.test=!a.FooTest,!a.BarIT"
+                + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false",
+                FlakyTests.mavenExcludeArgs(List.of("a.FooTest", "a.BarIT")));
+    }
+
+    @Test
+    void testGradleInitScript() {
+        assertEquals("", FlakyTests.gradleInitScript(0, List.of()));
+        String script = FlakyTests.gradleInitScript(3, List.of("a.FooTest"));
+        assertTrue(script.startsWith("initscript {"));
+        assertTrue(script.contains("maxRetries = 3"));
+        // the failed runs of the tests that passed are reported as flaky failures, as with Surefire
+        assertTrue(script.contains("reports.junitXml.mergeReruns = true"));
+        assertTrue(script.contains("filter.excludeTestsMatching 'a.FooTest'"));
+        assertFalse(FlakyTests.gradleInitScript(0, List.of("a.FooTest")).contains("initscript"));
+    }
+}
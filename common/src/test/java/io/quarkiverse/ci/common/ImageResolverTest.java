@@ -0,0 +1,53 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.devtools.project.BuildTool;
+
+class ImageResolverTest {
+
+    @Test
+    void testSmallestImageWithoutWrapper() {
+        assertEquals(Optional.of("maven:3.9.11-eclipse-temurin-21"),
+                ImageResolver.resolve(JdkDistribution.TEMURIN, "21", BuildTool.MAVEN, false, false, List.of()));
+        assertEquals(Optional.of("maven:3.9.11-eclipse-temurin-21-alpine"),
+                ImageResolver.resolve(JdkDistribution.TEMURIN, "21", BuildTool.MAVEN, false, true, List.of()));
+    }
+
+    @Test
+    void testSmallestImageWithWrapper() {
+        assertEquals(Optional.of("eclipse-temurin:21-jdk"),
+                ImageResolver.resolve(JdkDistribution.TEMURIN, "21", BuildTool.MAVEN, true, false, List.of()));
+        assertEquals(Optional.of("amazoncorretto:21-alpine"),
+                ImageResolver.resolve(JdkDistribution.CORRETTO, "21", BuildTool.GRADLE, true, true, List.of()));
+    }
+
+    @Test
+    void testLocalImageIsPreferred() {
+        assertEquals(Optional.of("gradle:8.7-jdk21"),
+                ImageResolver.resolve(JdkDistribution.TEMURIN, "21", BuildTool.GRADLE, true, true,
+                        List.of("docker.io/library/gradle:8.7-jdk21", "postgres:17")));
+    }
+
+    @Test
+    void testCandidatesAreAvailableImages() {
+        List<ImageResolver.Candidate> candidates = ImageResolver.getCandidates(JdkDistribution.TEMURIN, "21",
+                BuildTool.GRADLE);
+        assertEquals(List.of("gradle:8.7-jdk21", "gradle:8.7-jdk21-alpine", "eclipse-temurin:21-jdk",
+                "eclipse-temurin:21-jdk-alpine"), candidates.stream().map(ImageResolver.Candidate::image).toList());
+        assertEquals(new ImageResolver.Candidate("eclipse-temurin:21-jdk-alpine", 160, true, true), candidates.get(3));
+        // the openjdk images are deprecated
+        assertEquals(List.of(), ImageResolver.getCandidates(JdkDistribution.OPENJDK, "21", BuildTool.MAVEN));
+    }
+
+    @Test
+    void testNoCandidate() {
+        assertEquals(Optional.empty(),
+                ImageResolver.resolve(JdkDistribution.ZULU, "21", BuildTool.MAVEN, false, false, List.of()));
+    }
+}
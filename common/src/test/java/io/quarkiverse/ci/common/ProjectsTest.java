@@ -0,0 +1,78 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.devtools.project.BuildTool;
+
+class ProjectsTest {
+
+    @TempDir
+    Path projectRoot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        touch("pom.xml");
+        touch("mvnw");
+        touch(".mvn/wrapper/maven-wrapper.properties");
+        touch("README.md");
+        touch("lombok.config");
+        touch(".gitlab/ci-image.Dockerfile");
+        touch("images/act/Dockerfile");
+        touch("core/pom.xml");
+        touch("core/src/main/java/Foo.java");
+        touch("core/target/classes/Foo.class");
+        touch("docs/pom.xml");
+        touch("docs/modules/ROOT/pages/index.adoc");
+    }
+
+    @Test
+    void testGetModules() {
+        assertEquals(List.of(Path.of(""), Path.of("core"), Path.of("docs")), Projects.getModules(projectRoot));
+    }
+
+    @Test
+    void testGetBuildPaths() {
+        assertEquals(List.of(".mvn/**/*", "mvnw", "pom.xml", "core/pom.xml", "core/src/**/*", "docs/pom.xml"),
+                Projects.getBuildPaths(projectRoot, BuildTool.MAVEN));
+    }
+
+    @Test
+    void testGetOutputPaths() {
+        assertEquals(List.of("target/", "core/target/", "docs/target/"),
+                Projects.getOutputPaths(projectRoot, BuildTool.MAVEN));
+    }
+
+    @Test
+    void testGetNonBuildPaths() {
+        assertEquals(List.of("README.md", "images/**/*", "docs/modules/**/*"),
+                Projects.getNonBuildPaths(projectRoot, BuildTool.MAVEN));
+    }
+
+    @Test
+    void testGetChangePaths() {
+        assertEquals(List.of(".gitlab/**/*", ".mvn/**/*", "core/pom.xml", "core/src/**/*", "docs/pom.xml", "lombok.config",
+                "mvnw", "pom.xml"), Projects.getChangePaths(projectRoot, BuildTool.MAVEN));
+    }
+
+    @Test
+    void testHasArgLine() throws IOException {
+        assertFalse(Projects.hasArgLine(projectRoot));
+        Files.writeString(projectRoot.resolve("core/pom.xml"), "<properties><argLine>-Dfoo=bar</argLine></properties>");
+        assertTrue(Projects.hasArgLine(projectRoot));
+    }
+
+    private void touch(String path) throws IOException {
+        Path file = projectRoot.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.createFile(file);
+    }
+}
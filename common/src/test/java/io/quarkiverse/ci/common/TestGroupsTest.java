@@ -0,0 +1,33 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkiverse.ci.common.TestGroups.TestGroup;
+
+class TestGroupsTest {
+
+    @Test
+    void testAssignKeepsGroupsTogether() {
+        List<TestGroup> groups = List.of(
+                new TestGroup("", List.of("UnitA", "UnitB")),
+                new TestGroup("default", List.of("DefaultA", "DefaultB", "DefaultC")),
+                new TestGroup("com.acme.MockProfile", List.of("MockA")));
+
+        List<List<String>> shards = TestGroups.assign(groups, 2);
+
+        assertEquals(List.of(List.of("DefaultA", "DefaultB", "DefaultC"), List.of("MockA", "UnitA", "UnitB")), shards);
+    }
+
+    @Test
+    void testAssignSingleShard() {
+        List<TestGroup> groups = List.of(
+                new TestGroup("", List.of("UnitA")),
+                new TestGroup("default", List.of("DefaultA")));
+
+        assertEquals(List.of(List.of("DefaultA", "UnitA")), TestGroups.assign(groups, 1));
+    }
+}
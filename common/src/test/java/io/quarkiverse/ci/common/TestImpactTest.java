@@ -0,0 +1,130 @@
+package io.quarkiverse.ci.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestImpactTest {
+
+    @TempDir
+    Path dir;
+
+    private Path project;
+    private Method select;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        project = dir.resolve("project");
+        Path lib = dir.resolve("lib");
+        compile(lib, lib, Map.of("io/quarkus/test/junit/QuarkusTest.java", """
+                package io.quarkus.test.junit;
+                public @interface QuarkusTest {
+                }
+                """));
+        compile(project.resolve("app/target/classes"), lib, Map.of(
+                "org/acme/Greeting.java", "package org.acme; public class Greeting { }",
+                "org/acme/Clock.java", "package org.acme; public class Clock { }"));
+        compile(project.resolve("app/target/test-classes"), project.resolve("app/target/classes"), Map.of(
+                "org/acme/GreetingTest.java", "package org.acme; class GreetingTest { Greeting greeting; }",
+                "org/acme/ClockTest.java", "package org.acme; class ClockTest { Clock clock; }"));
+        compile(project.resolve("app/target/test-classes"), lib, Map.of(
+                "org/acme/ResourceTest.java",
+                "package org.acme; @io.quarkus.test.junit.QuarkusTest class ResourceTest { }"));
+        compile(project.resolve("other/target/classes"), lib, Map.of(
+                "org/acme/other/Util.java", "package org.acme.other; public class Util { }"));
+        compile(project.resolve("other/target/test-classes"), lib, Map.of(
+                "org/acme/other/OtherTest.java",
+                "package org.acme.other; @io.quarkus.test.junit.QuarkusTest class OtherTest { }"));
+
+        Path program = dir.resolve("program");
+        Files.createDirectories(program);
+        Files.write(program.resolve(TestImpact.FILE_NAME), TestImpact.getProgram());
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", program.toString(),
+                program.resolve(TestImpact.FILE_NAME).toString()));
+        Class<?> programClass = new URLClassLoader(new URL[] { program.toUri().toURL() }, null).loadClass("TestImpact");
+        select = programClass.getDeclaredMethod("select", Path.class, boolean.class, List.class, List.class);
+        select.setAccessible(true);
+    }
+
+    @Test
+    void testSelectDependentAndQuarkusTests() throws Exception {
+        assertEquals(Optional.of("-Dtest=org.acme.GreetingTest,org.acme.ResourceTest"
+                + " -Dit.test=org.acme.GreetingTest,org.acme.ResourceTest"
+                + " -Dsurefire.failIfNoSpecifiedTests=false -Dfailsafe.failIfNoSpecifiedTests=false"),
+                select(true, List.of("app/src/main/java/org/acme/Greeting.java"), List.of()));
+        assertEquals(Optional.of("--tests org.acme.other.OtherTest"),
+                select(false, List.of("other/src/main/java/org/acme/other/Util.java"), List.of()));
+    }
+
+    @Test
+    void testSelectChangedTest() throws Exception {
+        assertEquals(Optional.of("--tests org.acme.ClockTest"),
+                select(false, List.of("app/src/test/java/org/acme/ClockTest.java"), List.of()));
+    }
+
+    @Test
+    void testSelectWithoutExcludedTests() throws Exception {
+        assertEquals(Optional.of("--tests org.acme.GreetingTest"),
+                select(false, List.of("app/src/main/java/org/acme/Greeting.java"), List.of("org.acme.ResourceTest")));
+    }
+
+    @Test
+    void testSelectNoTests() throws Exception {
+        assertEquals(Optional.of(TestImpact.NO_TESTS), select(true, List.of("README.md"), List.of()));
+    }
+
+    @Test
+    void testSelectAllTests() throws Exception {
+        assertEquals(Optional.empty(), select(true, List.of("app/pom.xml"), List.of()));
+        assertEquals(Optional.empty(), select(true, List.of("app/src/main/resources/application.properties"), List.of()));
+        assertEquals(Optional.empty(), select(true, List.of("app/src/main/java/org/acme/Removed.java"), List.of()));
+    }
+
+    private Optional<?> select(boolean maven, List<String> changes, List<String> excluded) throws Exception {
+        if (!maven) {
+            moveToGradleLayout();
+        }
+        return (Optional<?>) select.invoke(null, project, maven, changes, excluded);
+    }
+
+    private void moveToGradleLayout() throws IOException {
+        for (String module : List.of("app", "other")) {
+            Path target = project.resolve(module).resolve("target");
+            Path build = project.resolve(module).resolve("build/classes/java");
+            if (Files.isDirectory(target)) {
+                Files.createDirectories(build);
+                Files.move(target.resolve("classes"), build.resolve("main"));
+                Files.move(target.resolve("test-classes"), build.resolve("test"));
+                Files.delete(target);
+            }
+        }
+    }
+
+    private void compile(Path output, Path classpath, Map<String, String> sources) throws IOException {
+        Path sourceDir = Files.createTempDirectory(dir, "sources");
+        List<String> args = new ArrayList<>(List.of("-d", output.toString(), "-cp", classpath.toString()));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = sourceDir.resolve(source.getKey());
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            args.add(file.toString());
+        }
+        Files.createDirectories(output);
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, args.toArray(String[]::new)));
+    }
+}
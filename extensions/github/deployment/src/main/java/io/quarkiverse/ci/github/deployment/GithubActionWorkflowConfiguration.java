@@ -2,9 +2,12 @@ package io.quarkiverse.ci.github.deployment;
 
 import static io.quarkus.runtime.annotations.ConfigPhase.BUILD_TIME;
 
+import java.util.List;
 import java.util.Optional;
 
+import io.quarkiverse.ci.common.LaneTrigger;
 import io.quarkus.runtime.annotations.ConfigRoot;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 
@@ -24,6 +27,58 @@ public interface GithubActionWorkflowConfiguration {
     @WithDefault("ubuntu-latest")
     String runner();
 
+    /**
+     * The timeout of the generated jobs in minutes.
+     * When not set, a timeout tuned for the detected build tool is used.
+     */
+    Optional<Integer> timeoutMinutes();
+
+    /**
+     * Whether to cancel the other shards of a run as soon as one of them fails.
+     */
+    @WithDefault("true")
+    boolean failFast();
+
+    /**
+     * The concurrency configuration.
+     */
+    Concurrency concurrency();
+
+    /**
+     * The trigger configuration.
+     */
+    Trigger trigger();
+
+    /**
+     * The size of the runner, used to tune the parallelism of the generated build and test commands.
+     */
+    Size runnerSize();
+
+    /**
+     * The Gradle specific configuration.
+     */
+    Gradle gradle();
+
+    /**
+     * The checkout configuration.
+     */
+    Checkout checkout();
+
+    /**
+     * The Dev Services configuration.
+     */
+    DevServices devServices();
+
+    /**
+     * The tests configuration.
+     */
+    Tests tests();
+
+    /**
+     * The lanes configuration.
+     */
+    Lanes lanes();
+
     /**
      * The generation configuration.
      */
@@ -48,6 +103,195 @@ public interface GithubActionWorkflowConfiguration {
         Optional<String> version();
     }
 
+    interface Concurrency {
+
+        /**
+         * Whether to group runs of the workflow by ref, so that only one run per ref is active.
+         */
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * Whether to cancel the in-progress run of the same ref when a newer one is triggered.
+         */
+        @WithDefault("true")
+        boolean cancelInProgress();
+    }
+
+    interface Trigger {
+
+        /**
+         * Whether to skip the workflow when only paths that do not affect the build have changed.
+         */
+        @WithDefault("true")
+        boolean pathFilter();
+
+        /**
+         * The paths that should not trigger the workflow.
+         * When not set, they are computed from the project layout: everything that is not a build file, a wrapper
+         * or a module source root.
+         */
+        Optional<List<String>> pathsIgnore();
+    }
+
+    interface Size {
+
+        /**
+         * The number of CPU cores of the runner.
+         * When not set, it is derived from the runner label.
+         */
+        Optional<Integer> cores();
+
+        /**
+         * The memory of the runner.
+         * When not set, it is derived from the runner label.
+         */
+        Optional<MemorySize> memory();
+    }
+
+    interface Gradle {
+
+        /**
+         * Whether to enable the Gradle configuration cache and cache its entries between runs.
+         */
+        @WithDefault("true")
+        boolean configurationCache();
+
+        /**
+         * Whether to enable the Gradle build cache and cache its entries between runs.
+         */
+        @WithDefault("true")
+        boolean buildCache();
+
+        /**
+         * Whether to generate a Gradle profile report and keep it as an artifact of the run.
+         */
+        @WithDefault("false")
+        boolean profile();
+    }
+
+    interface Checkout {
+
+        /**
+         * The number of commits to fetch, {@code 0} to fetch the whole history. The impacted tests do not need more than
+         * the default, as the base commit of the pull request is fetched on its own.
+         */
+        @WithDefault("1")
+        int fetchDepth();
+
+        /**
+         * The partial clone filter to fetch with, for example {@code blob:none} or {@code tree:0}.
+         */
+        Optional<String> filter();
+
+        /**
+         * Whether to only check out the directories the build needs, instead of the whole repository.
+         */
+        @WithDefault("false")
+        boolean sparse();
+
+        /**
+         * The directories to check out when sparse checkout is enabled. Files at the root of the repository are always
+         * checked out. When not set, the top level module directories and the build tool directories are used.
+         */
+        Optional<List<String>> sparsePaths();
+
+        /**
+         * Whether to download Git LFS files.
+         */
+        @WithDefault("false")
+        boolean lfs();
+    }
+
+    interface DevServices {
+
+        /**
+         * Whether to pull the images of the Dev Services before the build and cache them between runs.
+         */
+        @WithDefault("true")
+        boolean cacheImages();
+
+        /**
+         * The images to pull. When not set, they are detected from the extensions of the project, and read from their
+         * {@code image-name} configuration, such as {@code quarkus.datasource.devservices.image-name}, when set.
+         */
+        Optional<List<String>> images();
+
+        /**
+         * Whether to let Testcontainers reuse containers across the test JVMs of a run.
+         * Hosted runners are discarded after each job, so reused containers never outlive the run.
+         */
+        @WithDefault("true")
+        boolean reuse();
+    }
+
+    interface Tests {
+
+        /**
+         * The number of shards to split the tests across. Splitting requires the test classes to be compiled when the
+         * workflow is generated.
+         */
+        @WithDefault("1")
+        int shards();
+
+        /**
+         * Whether to group the tests by Quarkus test profile and test resources, so that tests sharing them run
+         * together, on the same shard, and the application is restarted as few times as possible.
+         */
+        @WithDefault("true")
+        boolean groupByProfile();
+
+        /**
+         * Whether to only run the tests impacted by the changes of pull requests. The tests are mapped to the classes they
+         * depend on from the compiled classes, and all the tests run when a build file or a resource changes. Ignored
+         * when the tests are sharded.
+         */
+        @WithDefault("false")
+        boolean impactAnalysis();
+
+        /**
+         * The number of times a failing test is rerun before it fails the build. The tests that only pass once rerun are
+         * reported as flaky, in an artifact of the run.
+         */
+        @WithDefault("0")
+        int retries();
+
+        /**
+         * The project file listing the quarantined tests, one fully qualified test class name per line. Quarantined
+         * tests are excluded from the test jobs and run in a job of their own, whose failures do not fail the run.
+         */
+        @WithDefault(".ci/quarantined-tests")
+        String quarantineFile();
+    }
+
+    interface Lanes {
+
+        /**
+         * Whether to split the workflow into a fast lane, that compiles and runs the unit tests, and a heavy lane, that runs
+         * the integration tests and builds the native executable and container image.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * When the heavy lane runs.
+         */
+        @WithDefault("parallel")
+        LaneTrigger heavyTrigger();
+
+        /**
+         * The cron expression of the scheduled runs, when the heavy lane runs on a schedule.
+         */
+        @WithDefault("0 3 * * *")
+        String schedule();
+
+        /**
+         * Whether the heavy lane builds and tests the native executable, in a container.
+         */
+        @WithDefault("false")
+        boolean nativeBuild();
+    }
+
     interface Generation {
         /**
          * Whether to enable the github action generation at build time.
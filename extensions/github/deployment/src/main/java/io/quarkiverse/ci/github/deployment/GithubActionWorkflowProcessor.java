@@ -1,25 +1,40 @@
 package io.quarkiverse.ci.github.deployment;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.jboss.logging.Logger;
 
+import io.quarkiverse.ci.common.BuildCommands;
+import io.quarkiverse.ci.common.BuildParallelism;
+import io.quarkiverse.ci.common.DevServicesImages;
+import io.quarkiverse.ci.common.FlakyTests;
+import io.quarkiverse.ci.common.LaneTrigger;
 import io.quarkiverse.ci.common.Projects;
+import io.quarkiverse.ci.common.RunnerSize;
+import io.quarkiverse.ci.common.TestImpact;
 import io.quarkiverse.ci.github.spi.GeneratedGithubActionWorkflowResourceBuildItem;
 import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
 import io.quarkus.deployment.builditem.GeneratedFileSystemResourceBuildItem;
+import io.quarkus.deployment.pkg.builditem.CurateOutcomeBuildItem;
 import io.quarkus.devtools.project.BuildTool;
 import io.quarkus.devtools.project.QuarkusProject;
 import io.quarkus.devtools.project.QuarkusProjectHelper;
+import io.quarkus.maven.dependency.ResolvedDependency;
 import io.quarkus.qute.Engine;
 import io.quarkus.qute.Template;
 import io.quarkus.qute.TemplateInstance;
+import io.quarkus.runtime.configuration.MemorySize;
 
 public class GithubActionWorkflowProcessor {
 
@@ -33,27 +48,64 @@ public class GithubActionWorkflowProcessor {
     }
 
     @BuildStep
-    void generateWorkflow(GithubActionWorkflowConfiguration config,
+    void generateWorkflow(GithubActionWorkflowConfiguration config, CurateOutcomeBuildItem curateOutcome,
             BuildProducer<GeneratedGithubActionWorkflowResourceBuildItem> workflow) {
         if (!config.generation().enabled()) {
             LOG.info("Github Action Workflow generation is disabled. Skipping.");
             return;
         }
         Path projectRootDir = Projects.getProjectRoot();
+        if (config.tests().impactAnalysis() && config.tests().shards() > 1) {
+            LOG.warn("Test impact analysis is ignored, as the tests are sharded.");
+        }
         Engine engine = Engine.builder().addDefaults().build();
         Template template = engine.parse(getTemplateContent("workflow.yml.qute"));
 
         String fileName = "build.yml";
-        Map<String, Object> params = Map.<String, Object> of(
-                "name", "Build (Generated)",
-                "jobName", "Build",
-                "runner", config.runner(),
-                "jdkDistribution", config.jdk().distribution(),
-                "jdkVersion",
-                config.jdk().version().orElse(getJavaVersion(projectRootDir).orElse(DEFAULT_JAVA_VERSION)),
-                "hashFiles", hashFiles(projectRootDir),
-                "buildCommand", buildCommand(projectRootDir),
-                "testCommand", testCommand(projectRootDir));
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "Build (Generated)");
+        params.put("jobName", "Build");
+        params.put("runner", config.runner());
+        params.put("jdkDistribution", config.jdk().distribution());
+        params.put("jdkVersion",
+                config.jdk().version().orElse(getJavaVersion(projectRootDir).orElse(DEFAULT_JAVA_VERSION)));
+        params.put("hashFiles", hashFiles(projectRootDir));
+        params.put("cacheName", cacheName(projectRootDir));
+        params.put("cachePaths", cachePaths(projectRootDir, config));
+        BuildParallelism parallelism = BuildParallelism.of(runnerSize(config));
+        BuildCommands commands = buildCommands(projectRootDir, config, parallelism, curateOutcome);
+        params.put("buildCommand", commands.buildCommand());
+        params.put("singleInvocation", commands.singleInvocation());
+        params.put("gradleProfile", commands.isGradle() && config.gradle().profile());
+        params.put("gradleInitScript", commands.gradleInitScript());
+        List<Map<String, Object>> shards = testShards(commands);
+        String testCommand = commands.testCommand();
+        String testArgs = shards.size() > 1 ? "" : (String) shards.get(0).get("args");
+        params.put("testCommand", testArgs.isEmpty() ? testCommand : testCommand + " " + testArgs);
+        params.put("shards", shards);
+        params.put("sharded", shards.size() > 1);
+        params.put("testImpact", commands.testImpact());
+        params.put("testImpactProgram", TestImpact.getProgram());
+        params.put("testImpactTool", commands.isGradle() ? "gradle" : "maven");
+        params.put("noTests", TestImpact.NO_TESTS);
+        params.put("quarantinedTests", String.join(" ", quarantine(projectRootDir, config)));
+        params.put("flakyReport", config.tests().retries() > 0);
+        params.put("flakyReportDir", FlakyTests.REPORT_DIR);
+        params.put("flakyReportPattern", FlakyTests.REPORT_PATTERN);
+        params.put("heavyOnSchedule", config.lanes().enabled() && config.lanes().heavyTrigger() == LaneTrigger.SCHEDULE);
+        params.put("schedule", config.lanes().schedule());
+        params.put("extraJobs", extraJobs(config, commands));
+        params.put("failFast", config.failFast());
+        params.put("concurrency", config.concurrency().enabled());
+        params.put("cancelInProgress", config.concurrency().cancelInProgress());
+        params.put("timeoutMinutes", config.timeoutMinutes().orElse(commands.jobTimeoutMinutes()));
+        params.put("pathsIgnore", pathsIgnore(projectRootDir, config));
+        params.put("fetchDepth", config.checkout().fetchDepth());
+        params.put("checkoutFilter", config.checkout().filter().orElse(""));
+        params.put("sparseCheckout", sparseCheckout(projectRootDir, config));
+        params.put("lfs", config.checkout().lfs());
+        params.put("devServicesImages", String.join(" ", devServicesImages(config, curateOutcome)));
+        params.put("devServicesReuse", config.devServices().reuse());
 
         TemplateInstance templateInstance = template.data(params);
         String content = templateInstance.render();
@@ -73,14 +125,6 @@ public class GithubActionWorkflowProcessor {
         }
     }
 
-    private boolean hasMavenWrapper(Path projectDir) {
-        return projectDir.resolve("mvnw").toFile().exists();
-    }
-
-    private boolean hasGradleWrapper(Path projectDir) {
-        return projectDir.resolve("gradlew").toFile().exists();
-    }
-
     private String hashFiles(Path projectDir) {
         BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
         return switch (buildTool) {
@@ -90,23 +134,144 @@ public class GithubActionWorkflowProcessor {
         };
     }
 
-    private String buildCommand(Path projectDir) {
+    private List<String> pathsIgnore(Path projectDir, GithubActionWorkflowConfiguration config) {
+        if (!config.trigger().pathFilter()) {
+            return List.of();
+        }
+        return config.trigger().pathsIgnore().orElseGet(() -> {
+            BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
+            return Projects.getNonBuildPaths(projectDir, buildTool);
+        });
+    }
+
+    private List<String> devServicesImages(GithubActionWorkflowConfiguration config,
+            CurateOutcomeBuildItem curateOutcome) {
+        if (!config.devServices().cacheImages()) {
+            return List.of();
+        }
+        return config.devServices().images().orElseGet(() -> detectDevServicesImages(curateOutcome));
+    }
+
+    private List<String> detectDevServicesImages(CurateOutcomeBuildItem curateOutcome) {
+        List<ResolvedDependency> dependencies = List.copyOf(curateOutcome.getApplicationModel().getDependencies());
+        String quarkusVersion = dependencies.stream()
+                .filter(d -> d.getGroupId().equals("io.quarkus") && d.getArtifactId().equals("quarkus-core"))
+                .map(ResolvedDependency::getVersion)
+                .findFirst()
+                .orElse(null);
+        Config projectConfig = ConfigProvider.getConfig();
+        return DevServicesImages.getImages(dependencies.stream().map(ResolvedDependency::getArtifactId).toList(),
+                quarkusVersion, name -> projectConfig.getOptionalValue(name, String.class));
+    }
+
+    private List<String> sparseCheckout(Path projectDir, GithubActionWorkflowConfiguration config) {
+        if (!config.checkout().sparse()) {
+            return List.of();
+        }
+        return config.checkout().sparsePaths().orElseGet(() -> {
+            List<String> paths = new ArrayList<>();
+            for (String buildDir : List.of(".mvn", "gradle")) {
+                if (Files.isDirectory(projectDir.resolve(buildDir))) {
+                    paths.add(buildDir);
+                }
+            }
+            Projects.getModules(projectDir).stream()
+                    .filter(module -> !module.toString().isEmpty())
+                    .map(module -> module.getName(0).toString())
+                    .distinct()
+                    .forEach(paths::add);
+            return paths;
+        });
+    }
+
+    private RunnerSize runnerSize(GithubActionWorkflowConfiguration config) {
+        Optional<RunnerSize> labelSize = RunnerSize.fromLabel(config.runner());
+        RunnerSize defaultSize = labelSize.orElse(RunnerSize.DEFAULT);
+        RunnerSize size = new RunnerSize(
+                config.runnerSize().cores().orElse(defaultSize.cores()),
+                config.runnerSize().memory().map(MemorySize::asLongValue).orElse(defaultSize.memory()));
+        if (labelSize.isPresent() && labelSize.get().cores() != size.cores()) {
+            LOG.warnf("Runner %s is labelled with %d cores, but %d cores are configured.", config.runner(),
+                    labelSize.get().cores(), size.cores());
+        }
+        return size;
+    }
+
+    private boolean isGradle(Path projectDir) {
+        return QuarkusProjectHelper.detectExistingBuildTool(projectDir) == BuildTool.GRADLE;
+    }
+
+    private List<String> quarantine(Path projectDir, GithubActionWorkflowConfiguration config) {
+        return FlakyTests.readQuarantine(projectDir.resolve(config.tests().quarantineFile()));
+    }
+
+    private BuildCommands buildCommands(Path projectDir, GithubActionWorkflowConfiguration config,
+            BuildParallelism parallelism, CurateOutcomeBuildItem curateOutcome) {
+        return new BuildCommands(projectDir, parallelism,
+                new BuildCommands.Tests(config.tests().shards(), config.tests().groupByProfile(),
+                        config.tests().impactAnalysis(), config.tests().retries(), quarantine(projectDir, config)),
+                new BuildCommands.Gradle(config.gradle().configurationCache(), config.gradle().buildCache(),
+                        config.gradle().profile()),
+                new BuildCommands.Lanes(config.lanes().enabled(), config.lanes().nativeBuild(),
+                        hasContainerImage(curateOutcome)));
+    }
+
+    private List<Map<String, Object>> testShards(BuildCommands commands) {
+        List<Map<String, Object>> shards = commands.testShards();
+        if (shards.isEmpty()) {
+            LOG.warn("No compiled test classes found, tests will not be sharded. Compile the tests first to shard them.");
+            return List.of(commands.singleTestShard());
+        }
+        return shards;
+    }
+
+    /**
+     * The jobs that run next to the build job, with the same setup: the heavy lane and the quarantined tests.
+     */
+    private List<Map<String, Object>> extraJobs(GithubActionWorkflowConfiguration config, BuildCommands commands) {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        if (config.lanes().enabled()) {
+            LaneTrigger trigger = config.lanes().heavyTrigger();
+            jobs.add(extraJob("integration-tests", "Integration Tests",
+                    trigger == LaneTrigger.MERGE ? "build" : "",
+                    switch (trigger) {
+                        case PARALLEL -> "";
+                        case MERGE -> "github.event_name == 'push'";
+                        case SCHEDULE -> "github.event_name == 'schedule'";
+                    },
+                    false, config.timeoutMinutes().orElse(BuildCommands.HEAVY_TIMEOUT_MINUTES), commands.heavyCommand()));
+        }
+        if (!commands.tests().quarantine().isEmpty()) {
+            jobs.add(extraJob("quarantine", "Quarantined Tests", "", "", true,
+                    config.timeoutMinutes().orElse(commands.jobTimeoutMinutes()), commands.quarantineCommand()));
+        }
+        return jobs;
+    }
+
+    private Map<String, Object> extraJob(String id, String name, String needs, String condition, boolean continueOnError,
+            int timeoutMinutes, String command) {
+        return Map.of("id", id, "name", name, "needs", needs, "condition", condition, "continueOnError", continueOnError,
+                "timeoutMinutes", timeoutMinutes, "command", command);
+    }
+
+    private String cacheName(Path projectDir) {
+        return isGradle(projectDir) ? "gradle" : "m2";
+    }
+
+    private List<String> cachePaths(Path projectDir, GithubActionWorkflowConfiguration config) {
         BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
         return switch (buildTool) {
-            case MAVEN ->
-                hasMavenWrapper(projectDir) ? "./mvnw clean package -DskipTests=true" : "mvn clean package -DskipTests=true";
-            case GRADLE -> hasGradleWrapper(projectDir) ? "./gradlew build" : "gradle clean build";
+            case MAVEN -> List.of("~/.m2/repository");
+            case GRADLE -> config.gradle().configurationCache()
+                    ? List.of("~/.gradle/caches", "~/.gradle/wrapper", ".gradle/configuration-cache")
+                    : List.of("~/.gradle/caches", "~/.gradle/wrapper");
             default -> throw new IllegalStateException("Unexpected value: " + buildTool);
         };
     }
 
-    private String testCommand(Path projectDir) {
-        BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
-        return switch (buildTool) {
-            case MAVEN -> hasMavenWrapper(projectDir) ? "./mvnw verify" : "mvn verify";
-            case GRADLE -> hasGradleWrapper(projectDir) ? "./gradlew test" : "gradle test";
-            default -> throw new IllegalStateException("Unexpected value: " + projectDir);
-        };
+    private boolean hasContainerImage(CurateOutcomeBuildItem curateOutcome) {
+        return curateOutcome.getApplicationModel().getDependencies().stream()
+                .anyMatch(d -> d.getArtifactId().startsWith("quarkus-container-image-"));
     }
 
     private Optional<String> getJavaVersion(Path projectDir) {
@@ -2,9 +2,13 @@ package io.quarkiverse.ci.gitlab.deployment;
 
 import static io.quarkus.runtime.annotations.ConfigPhase.BUILD_TIME;
 
+import java.util.List;
 import java.util.Optional;
 
+import io.quarkiverse.ci.common.ImageResolver;
+import io.quarkiverse.ci.common.LaneTrigger;
 import io.quarkus.runtime.annotations.ConfigRoot;
+import io.quarkus.runtime.configuration.MemorySize;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
 
@@ -25,6 +29,70 @@ public interface GitlabCiConfiguration {
      */
     Optional<String> image();
 
+    /**
+     * The configuration of the selection of the image, when none is configured.
+     */
+    ImageSelection imageSelection();
+
+    /**
+     * The configuration of the CI image built for the project.
+     */
+    CiImage ciImage();
+
+    /**
+     * Whether to mark the generated jobs as interruptible, so that they are cancelled when a newer pipeline
+     * starts on the same ref.
+     */
+    @WithDefault("true")
+    boolean interruptible();
+
+    /**
+     * Whether to cancel the rest of the pipeline as soon as one of its jobs fails.
+     */
+    @WithDefault("true")
+    boolean failFast();
+
+    /**
+     * The timeout of the generated jobs in minutes.
+     * When not set, a timeout tuned for the detected build tool is used.
+     */
+    Optional<Integer> timeoutMinutes();
+
+    /**
+     * The trigger configuration.
+     */
+    Trigger trigger();
+
+    /**
+     * The size of the runner, used to tune the parallelism of the generated build and test commands.
+     */
+    Size runnerSize();
+
+    /**
+     * The Gradle specific configuration.
+     */
+    Gradle gradle();
+
+    /**
+     * The configuration of the artifacts passed from the build job to the test jobs.
+     */
+    Artifacts artifacts();
+
+    /**
+     * The Dev Services configuration.
+     */
+    DevServices devServices();
+
+    /**
+     * The tests configuration.
+     */
+    Tests tests();
+
+    /**
+     * The lanes configuration.
+     */
+    Lanes lanes();
+
     /**
      * The generation configuration.
      */
@@ -49,6 +117,221 @@ public interface GitlabCiConfiguration {
         Optional<String> version();
     }
 
+    interface ImageSelection {
+
+        /**
+         * How the image is selected: {@code default} for the image of the build tool for the JDK distribution, or
+         * {@code pull-cost} for the image with the lowest expected pull cost, among the slim and Alpine variants and the
+         * plain JDK images when the project has a wrapper. The preferred images cost nothing to pull.
+         */
+        @WithDefault("default")
+        ImageResolver.Strategy strategy();
+
+        /**
+         * Whether Alpine based images can be selected. Some build plugins ship native binaries that do not run on the
+         * musl libc of Alpine.
+         */
+        @WithDefault("false")
+        boolean allowAlpine();
+
+        /**
+         * The images already cached on the runners, which cost nothing to pull. The generate commands of the CLI set them
+         * from their {@code --prefer-image} options, so that the generated pipeline does not depend on the images of the
+         * machine that generates it, unless {@code --prefer-local-images} adds those of its local Docker store, for a
+         * pipeline run on that machine.
+         */
+        Optional<List<String>> preferredImages();
+    }
+
+    interface CiImage {
+
+        /**
+         * Whether to generate a Dockerfile and a scheduled job that build a CI image for the project, on top of the image
+         * selected for the JDK distribution, with the dependencies and the build tool distribution already resolved.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * The name of the CI image, in the container registry of the GitLab project.
+         */
+        @WithDefault("ci")
+        String name();
+
+        /**
+         * The digest of the CI image, printed by the job that builds it. Once set, the pipeline runs in the CI image
+         * referenced by this digest, unless an image is configured.
+         */
+        Optional<String> digest();
+    }
+
+    interface Trigger {
+
+        /**
+         * Whether to only create the pipeline when paths that affect the build have changed.
+         * Scheduled, manually triggered and tag pipelines are always created.
+         */
+        @WithDefault("true")
+        boolean pathFilter();
+
+        /**
+         * The paths whose changes trigger the pipeline.
+         * When not set, they are computed from the project layout: every path but the build outputs and those that
+         * do not affect the build, as the paths ignored by the GitHub workflow, so that new hidden or configuration files
+         * also trigger it.
+         */
+        Optional<List<String>> changes();
+    }
+
+    interface Size {
+
+        /**
+         * The number of CPU cores of the runner.
+         * When not set, a standard shared runner is assumed.
+         */
+        Optional<Integer> cores();
+
+        /**
+         * The memory of the runner.
+         * When not set, a standard shared runner is assumed.
+         */
+        Optional<MemorySize> memory();
+    }
+
+    interface Gradle {
+
+        /**
+         * Whether to enable the Gradle configuration cache and cache its entries between runs.
+         */
+        @WithDefault("true")
+        boolean configurationCache();
+
+        /**
+         * Whether to enable the Gradle build cache and cache its entries between runs.
+         */
+        @WithDefault("true")
+        boolean buildCache();
+
+        /**
+         * Whether to generate a Gradle profile report and keep it as an artifact of the run.
+         */
+        @WithDefault("false")
+        boolean profile();
+    }
+
+    interface Artifacts {
+
+        /**
+         * The paths of the artifacts. When not set, only the compiled classes and the Quarkus application of each module
+         * are kept, as these are what the test jobs consume.
+         */
+        Optional<List<String>> paths();
+
+        /**
+         * How long the artifacts are kept, in the GitLab duration format.
+         */
+        @WithDefault("1 hour")
+        String expireIn();
+
+        /**
+         * The compression level of the artifacts and cache archives, one of {@code fastest}, {@code fast},
+         * {@code default}, {@code slow} or {@code slowest}. Faster levels trade a larger archive for a shorter upload.
+         */
+        @WithDefault("fast")
+        String compressionLevel();
+    }
+
+    interface DevServices {
+
+        /**
+         * Whether to cache the images of the Dev Services between runs, by pulling them through the Dependency Proxy
+         * when it is enabled. When disabled, the Docker-in-Docker service pulls them from their registries in every job.
+         */
+        @WithDefault("true")
+        boolean cacheImages();
+
+        /**
+         * The images of the Dev Services. When not set, they are detected from the extensions of the project, and read
+         * from their {@code image-name} configuration, such as {@code quarkus.datasource.devservices.image-name}, when
+         * set. When there are images, the tests run with a Docker-in-Docker service.
+         */
+        Optional<List<String>> images();
+
+        /**
+         * Whether to let Testcontainers reuse containers across the test JVMs of a job.
+         */
+        @WithDefault("true")
+        boolean reuse();
+
+        /**
+         * Whether to pull the Docker Hub images of the Dev Services through the Dependency Proxy of the group,
+         * which caches them by digest. Only available to projects that belong to a group.
+         */
+        @WithDefault("false")
+        boolean dependencyProxy();
+    }
+
+    interface Tests {
+
+        /**
+         * The number of shards to split the tests across. Splitting requires the test classes to be compiled when the
+         * pipeline is generated.
+         */
+        @WithDefault("1")
+        int shards();
+
+        /**
+         * Whether to group the tests by Quarkus test profile and test resources, so that tests sharing them run
+         * together, on the same shard, and the application is restarted as few times as possible.
+         */
+        @WithDefault("true")
+        boolean groupByProfile();
+
+        /**
+         * Whether to only run the tests impacted by the changes of merge requests. The tests are mapped to the classes they
+         * depend on from the compiled classes, and all the tests run when a build file or a resource changes. Ignored
+         * when the tests are sharded.
+         */
+        @WithDefault("false")
+        boolean impactAnalysis();
+
+        /**
+         * The number of times a failing test is rerun before it fails the build. The tests that only pass once rerun are
+         * reported as flaky, in an artifact of the run.
+         */
+        @WithDefault("0")
+        int retries();
+
+        /**
+         * The project file listing the quarantined tests, one fully qualified test class name per line. Quarantined
+         * tests are excluded from the test jobs and run in a job of their own, whose failures do not fail the run.
+         */
+        @WithDefault(".ci/quarantined-tests")
+        String quarantineFile();
+    }
+
+    interface Lanes {
+
+        /**
+         * Whether to split the pipeline into a fast lane, that compiles and runs the unit tests, and a heavy lane, that runs
+         * the integration tests and builds the native executable and container image.
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * When the heavy lane runs. The schedules of scheduled pipelines are set up in the settings of the GitLab project.
+         */
+        @WithDefault("parallel")
+        LaneTrigger heavyTrigger();
+
+        /**
+         * Whether the heavy lane builds and tests the native executable, in a container.
+         */
+        @WithDefault("false")
+        boolean nativeBuild();
+    }
+
     interface Generation {
         /**
          * Whether to enable the GitLab CI generation at build time.
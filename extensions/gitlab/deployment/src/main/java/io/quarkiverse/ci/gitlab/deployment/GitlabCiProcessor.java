@@ -4,30 +4,47 @@ import static io.quarkiverse.ci.gitlab.deployment.GitlabCiConfiguration.DEFAULT_
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.jboss.logging.Logger;
 
+import io.quarkiverse.ci.common.BuildCommands;
+import io.quarkiverse.ci.common.BuildParallelism;
+import io.quarkiverse.ci.common.DevServicesImages;
+import io.quarkiverse.ci.common.FlakyTests;
+import io.quarkiverse.ci.common.ImageResolver;
 import io.quarkiverse.ci.common.JdkDistribution;
+import io.quarkiverse.ci.common.LaneTrigger;
 import io.quarkiverse.ci.common.Projects;
+import io.quarkiverse.ci.common.RunnerSize;
+import io.quarkiverse.ci.common.TestImpact;
 import io.quarkiverse.ci.gitlab.spi.GeneratedGitlabCiResourceBuildItem;
 import io.quarkus.deployment.annotations.BuildProducer;
 import io.quarkus.deployment.annotations.BuildStep;
 import io.quarkus.deployment.builditem.FeatureBuildItem;
 import io.quarkus.deployment.builditem.GeneratedFileSystemResourceBuildItem;
+import io.quarkus.deployment.pkg.builditem.CurateOutcomeBuildItem;
 import io.quarkus.devtools.project.BuildTool;
 import io.quarkus.devtools.project.QuarkusProject;
 import io.quarkus.devtools.project.QuarkusProjectHelper;
+import io.quarkus.maven.dependency.ResolvedDependency;
 import io.quarkus.qute.Engine;
 import io.quarkus.qute.Template;
 import io.quarkus.qute.TemplateInstance;
+import io.quarkus.runtime.configuration.MemorySize;
 
 public class GitlabCiProcessor {
 
     private static final Logger LOG = Logger.getLogger(GitlabCiProcessor.class);
     private static final String FEATURE = "gitlab-ci-generator";
+    private static final String CI_IMAGE_DOCKERFILE = ".gitlab/ci-image.Dockerfile";
+    private static final String CI_IMAGE_HOME = "/opt/ci";
 
     @BuildStep
     FeatureBuildItem feature() {
@@ -35,28 +52,85 @@ public class GitlabCiProcessor {
     }
 
     @BuildStep
-    void generatePipeline(GitlabCiConfiguration config,
+    void generatePipeline(GitlabCiConfiguration config, CurateOutcomeBuildItem curateOutcome,
             BuildProducer<GeneratedGitlabCiResourceBuildItem> pipeline) {
         if (!config.generation().enabled()) {
             LOG.info("GitLab CI pipeline generation is disabled. Skipping.");
             return;
         }
         Path projectRootDir = Projects.getProjectRoot();
+        if (config.tests().impactAnalysis() && config.tests().shards() > 1) {
+            LOG.warn("Test impact analysis is ignored, as the tests are sharded.");
+        }
         Engine engine = Engine.builder().addDefaults().build();
         Template template = engine.parse(getTemplateContent("gitlab-ci.yml.qute"));
 
         String fileName = ".gitlab-ci.yml";
-        Map<String, Object> params = Map.<String, Object> of(
-                "name", config.name(),
-                "image", getDockerImage(projectRootDir, config),
-                "cacheKey", cacheKey(projectRootDir),
-                "cachePaths", cachePaths(projectRootDir),
-                "buildCommand", buildCommand(projectRootDir),
-                "testCommand", testCommand(projectRootDir));
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", config.name());
+        params.put("image", getDockerImage(projectRootDir, config));
+        params.put("ciImage", config.ciImage().enabled());
+        params.put("ciImageName", config.ciImage().name());
+        params.put("ciImageDockerfile", CI_IMAGE_DOCKERFILE);
+        boolean prebaked = config.image().isEmpty() && ciImage(config).isPresent();
+        params.put("prebaked", prebaked);
+        params.put("mavenRepository", prebaked ? CI_IMAGE_HOME + "/m2/repository" : ".m2/repository");
+        params.put("gradleUserHome", prebaked ? CI_IMAGE_HOME + "/gradle" : "$CI_PROJECT_DIR/.gradle");
+        params.put("cacheKey", cacheKey(projectRootDir));
+        params.put("cachePaths", cachePaths(projectRootDir, config));
+        BuildParallelism parallelism = BuildParallelism.of(runnerSize(config));
+        BuildCommands commands = buildCommands(projectRootDir, config, parallelism, curateOutcome);
+        params.put("artifactPaths", artifactPaths(projectRootDir, config, commands));
+        params.put("artifactsExpireIn", config.artifacts().expireIn());
+        params.put("compressionLevel", config.artifacts().compressionLevel());
+        params.put("buildCommand", commands.buildCommand());
+        params.put("testCommand", commands.testCommand());
+        params.put("singleInvocation", commands.singleInvocation());
+        params.put("gradleProfile", commands.isGradle() && config.gradle().profile());
+        params.put("gradleInitScript", commands.gradleInitScript());
+        List<Map<String, Object>> shards = testShards(commands);
+        params.put("shards", shards);
+        params.put("sharded", shards.size() > 1);
+        params.put("testImpact", commands.testImpact());
+        params.put("testImpactProgram", TestImpact.getProgram());
+        params.put("testImpactTool", commands.isGradle() ? "gradle" : "maven");
+        params.put("noTests", TestImpact.NO_TESTS);
+        params.put("quarantinedTests", String.join(" ", commands.tests().quarantine()));
+        params.put("quarantineCommand", commands.quarantineCommand());
+        params.put("flakyReport", config.tests().retries() > 0);
+        params.put("flakyReportDir", FlakyTests.REPORT_DIR);
+        params.put("flakyReportPattern", FlakyTests.REPORT_PATTERN);
+        params.put("lanes", config.lanes().enabled());
+        params.put("heavyOnMerge", config.lanes().heavyTrigger() == LaneTrigger.MERGE);
+        params.put("heavyOnSchedule", config.lanes().heavyTrigger() == LaneTrigger.SCHEDULE);
+        params.put("heavyCommand", commands.heavyCommand());
+        params.put("heavyTimeout", config.timeoutMinutes().orElse(BuildCommands.HEAVY_TIMEOUT_MINUTES));
+        params.put("interruptible", config.interruptible());
+        params.put("failFast", config.failFast());
+        params.put("buildTimeout", config.timeoutMinutes().orElse(commands.buildTimeoutMinutes()));
+        params.put("testTimeout", config.timeoutMinutes().orElse(BuildCommands.TEST_TIMEOUT_MINUTES));
+        params.put("changes", changes(projectRootDir, config));
+        boolean devServices = hasDevServices(config, curateOutcome);
+        params.put("devServices", devServices);
+        params.put("docker", devServices || config.lanes().enabled());
+        params.put("devServicesReuse", config.devServices().reuse());
+        params.put("dependencyProxy",
+                config.devServices().dependencyProxy() && !devServicesImages(config, curateOutcome).isEmpty());
 
         TemplateInstance templateInstance = template.data(params);
         String content = templateInstance.render();
         pipeline.produce(new GeneratedGitlabCiResourceBuildItem(fileName, content));
+
+        if (config.ciImage().enabled()) {
+            Template dockerfile = engine.parse(getTemplateContent("ci-image.Dockerfile.qute"));
+            Map<String, Object> imageParams = new HashMap<>();
+            imageParams.put("baseImage", getBaseImage(projectRootDir, config));
+            imageParams.put("gradle", isGradle(projectRootDir));
+            imageParams.put("ciHome", CI_IMAGE_HOME);
+            imageParams.put("resolveCommand", ciImageResolveCommand(projectRootDir));
+            pipeline.produce(new GeneratedGitlabCiResourceBuildItem(CI_IMAGE_DOCKERFILE,
+                    dockerfile.data(imageParams).render()));
+        }
     }
 
     @BuildStep
@@ -80,53 +154,176 @@ public class GitlabCiProcessor {
     }
 
     private String getDockerImage(Path projectDir, GitlabCiConfiguration config) {
-        return config.image().orElseGet(() -> {
-            Optional<String> javaVersion = config.jdk().version()
-                    .or(() -> getJavaVersion(projectDir))
-                    .or(() -> Optional.of(DEFAULT_JAVA_VERSION));
-            JdkDistribution distribution = JdkDistribution.fromString(config.jdk().distribution());
-            Optional<BuildTool> buildTool = Optional.of(QuarkusProjectHelper.detectExistingBuildTool(projectDir));
-
-            return JdkDistribution.getDockerImage(distribution, javaVersion, buildTool)
-                    .orElse(distribution.getDockerImage(javaVersion.orElse(DEFAULT_JAVA_VERSION)));
-        });
+        return config.image().or(() -> ciImage(config)).orElseGet(() -> getBaseImage(projectDir, config));
     }
 
-    private String cacheKey(Path projectDir) {
+    private Optional<String> ciImage(GitlabCiConfiguration config) {
+        if (!config.ciImage().enabled()) {
+            return Optional.empty();
+        }
+        return config.ciImage().digest().map(digest -> "$CI_REGISTRY_IMAGE/" + config.ciImage().name() + "@" + digest);
+    }
+
+    /**
+     * The CI image is built from the full sources of the project, as the modules may depend on each other, so that the
+     * dependencies, plugins and build tool distribution are resolved as a build of the project resolves them. A build
+     * that fails fails the job, instead of leaving an image that only has part of the dependencies.
+     */
+    private String ciImageResolveCommand(Path projectDir) {
         BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
         return switch (buildTool) {
-            case MAVEN -> "$CI_COMMIT_REF_SLUG-maven";
-            case GRADLE -> "$CI_COMMIT_REF_SLUG-gradle";
+            case MAVEN -> (hasMavenWrapper(projectDir) ? "./mvnw" : "mvn") + " -B -Dmaven.repo.local=" + CI_IMAGE_HOME
+                    + "/m2/repository verify -DskipTests";
+            case GRADLE -> (hasGradleWrapper(projectDir) ? "./gradlew" : "gradle") + " --no-daemon assemble testClasses";
             default -> throw new IllegalStateException("Unexpected value: " + buildTool);
         };
     }
 
-    private String cachePaths(Path projectDir) {
+    private String getBaseImage(Path projectDir, GitlabCiConfiguration config) {
+        Optional<String> javaVersion = config.jdk().version()
+                .or(() -> getJavaVersion(projectDir))
+                .or(() -> Optional.of(DEFAULT_JAVA_VERSION));
+        JdkDistribution distribution = JdkDistribution.fromString(config.jdk().distribution());
+        Optional<BuildTool> buildTool = Optional.of(QuarkusProjectHelper.detectExistingBuildTool(projectDir));
+
+        if (config.imageSelection().strategy() == ImageResolver.Strategy.PULL_COST) {
+            boolean wrapper = isGradle(projectDir) ? hasGradleWrapper(projectDir) : hasMavenWrapper(projectDir);
+            Optional<String> image = ImageResolver.resolve(distribution, javaVersion.get(), buildTool.get(), wrapper,
+                    config.imageSelection().allowAlpine(), config.imageSelection().preferredImages().orElse(List.of()));
+            if (image.isPresent()) {
+                return image.get();
+            }
+            LOG.warnf("No image of %s %s satisfies the image selection constraints, using the default image.",
+                    distribution, javaVersion.get());
+        }
+        return JdkDistribution.getDockerImage(distribution, javaVersion, buildTool)
+                .orElse(distribution.getDockerImage(javaVersion.orElse(DEFAULT_JAVA_VERSION)));
+    }
+
+    private String cacheKey(Path projectDir) {
         BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
         return switch (buildTool) {
-            case MAVEN -> "- .m2/repository/";
-            case GRADLE -> "- .gradle/wrapper/\n    - .gradle/caches/";
+            case MAVEN -> "$CI_COMMIT_REF_SLUG-maven";
+            case GRADLE -> "$CI_COMMIT_REF_SLUG-gradle";
             default -> throw new IllegalStateException("Unexpected value: " + buildTool);
         };
     }
 
-    private String buildCommand(Path projectDir) {
+    private String cachePaths(Path projectDir, GitlabCiConfiguration config) {
         BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
         return switch (buildTool) {
-            case MAVEN ->
-                hasMavenWrapper(projectDir) ? "./mvnw clean package -DskipTests=true" : "mvn clean package -DskipTests=true";
-            case GRADLE -> hasGradleWrapper(projectDir) ? "./gradlew build" : "gradle clean build";
+            case MAVEN -> "- .m2/repository/";
+            case GRADLE -> config.gradle().configurationCache()
+                    ? "- .gradle/wrapper/\n    - .gradle/caches/\n    - .gradle/configuration-cache/"
+                    : "- .gradle/wrapper/\n    - .gradle/caches/";
             default -> throw new IllegalStateException("Unexpected value: " + buildTool);
         };
     }
 
-    private String testCommand(Path projectDir) {
-        BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
-        return switch (buildTool) {
-            case MAVEN -> hasMavenWrapper(projectDir) ? "./mvnw verify" : "mvn verify";
-            case GRADLE -> hasGradleWrapper(projectDir) ? "./gradlew test" : "gradle test";
-            default -> throw new IllegalStateException("Unexpected value: " + projectDir);
-        };
+    /**
+     * The test jobs only consume the compiled classes, kept along with the build state of the compiler so that they are
+     * not compiled again, and the Quarkus application. A Gradle build that runs in a single invocation has no test job,
+     * so only its profile report and flaky tests report are kept, if any.
+     */
+    private List<String> artifactPaths(Path projectDir, GitlabCiConfiguration config, BuildCommands commands) {
+        return config.artifacts().paths().orElseGet(() -> {
+            BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
+            List<String> outputs = new ArrayList<>();
+            if (!commands.singleInvocation()) {
+                outputs.addAll(switch (buildTool) {
+                    case MAVEN -> List.of("classes/", "test-classes/", "maven-status/", "quarkus-app/");
+                    case GRADLE -> List.of("classes/", "resources/", "quarkus-app/");
+                    default -> throw new IllegalStateException("Unexpected value: " + buildTool);
+                });
+            }
+            List<String> paths = new ArrayList<>();
+            for (String outputPath : Projects.getOutputPaths(projectDir, buildTool)) {
+                outputs.forEach(output -> paths.add(outputPath + output));
+            }
+            if (isGradle(projectDir) && config.gradle().profile()) {
+                paths.add("build/reports/profile/");
+            }
+            if (commands.singleInvocation() && config.tests().retries() > 0) {
+                paths.add(FlakyTests.REPORT_DIR + "/");
+            }
+            return paths;
+        });
+    }
+
+    /**
+     * The tests need the Docker-in-Docker service whenever the project has Dev Services, whether their images are cached
+     * or not.
+     */
+    private boolean hasDevServices(GitlabCiConfiguration config, CurateOutcomeBuildItem curateOutcome) {
+        return !config.devServices().images().orElseGet(() -> detectDevServicesImages(curateOutcome)).isEmpty();
+    }
+
+    private List<String> devServicesImages(GitlabCiConfiguration config, CurateOutcomeBuildItem curateOutcome) {
+        if (!config.devServices().cacheImages()) {
+            return List.of();
+        }
+        return config.devServices().images().orElseGet(() -> detectDevServicesImages(curateOutcome));
+    }
+
+    private List<String> detectDevServicesImages(CurateOutcomeBuildItem curateOutcome) {
+        List<ResolvedDependency> dependencies = List.copyOf(curateOutcome.getApplicationModel().getDependencies());
+        String quarkusVersion = dependencies.stream()
+                .filter(d -> d.getGroupId().equals("io.quarkus") && d.getArtifactId().equals("quarkus-core"))
+                .map(ResolvedDependency::getVersion)
+                .findFirst()
+                .orElse(null);
+        Config projectConfig = ConfigProvider.getConfig();
+        return DevServicesImages.getImages(dependencies.stream().map(ResolvedDependency::getArtifactId).toList(),
+                quarkusVersion, name -> projectConfig.getOptionalValue(name, String.class));
+    }
+
+    private List<String> changes(Path projectDir, GitlabCiConfiguration config) {
+        if (!config.trigger().pathFilter()) {
+            return List.of();
+        }
+        return config.trigger().changes().orElseGet(() -> {
+            BuildTool buildTool = QuarkusProjectHelper.detectExistingBuildTool(projectDir);
+            return Projects.getChangePaths(projectDir, buildTool);
+        });
+    }
+
+    private RunnerSize runnerSize(GitlabCiConfiguration config) {
+        return new RunnerSize(
+                config.runnerSize().cores().orElse(RunnerSize.DEFAULT.cores()),
+                config.runnerSize().memory().map(MemorySize::asLongValue).orElse(RunnerSize.DEFAULT.memory()));
+    }
+
+    private boolean isGradle(Path projectDir) {
+        return QuarkusProjectHelper.detectExistingBuildTool(projectDir) == BuildTool.GRADLE;
+    }
+
+    private List<String> quarantine(Path projectDir, GitlabCiConfiguration config) {
+        return FlakyTests.readQuarantine(projectDir.resolve(config.tests().quarantineFile()));
+    }
+
+    private BuildCommands buildCommands(Path projectDir, GitlabCiConfiguration config, BuildParallelism parallelism,
+            CurateOutcomeBuildItem curateOutcome) {
+        return new BuildCommands(projectDir, parallelism,
+                new BuildCommands.Tests(config.tests().shards(), config.tests().groupByProfile(),
+                        config.tests().impactAnalysis(), config.tests().retries(), quarantine(projectDir, config)),
+                new BuildCommands.Gradle(config.gradle().configurationCache(), config.gradle().buildCache(),
+                        config.gradle().profile()),
+                new BuildCommands.Lanes(config.lanes().enabled(), config.lanes().nativeBuild(),
+                        hasContainerImage(curateOutcome)));
+    }
+
+    private List<Map<String, Object>> testShards(BuildCommands commands) {
+        List<Map<String, Object>> shards = commands.testShards();
+        if (shards.isEmpty()) {
+            LOG.warn("No compiled test classes found, tests will not be sharded. Compile the tests first to shard them.");
+            return List.of(commands.singleTestShard());
+        }
+        return shards;
+    }
+
+    private boolean hasContainerImage(CurateOutcomeBuildItem curateOutcome) {
+        return curateOutcome.getApplicationModel().getDependencies().stream()
+                .anyMatch(d -> d.getArtifactId().startsWith("quarkus-container-image-"));
     }
 
     private Optional<String> getJavaVersion(Path projectDir) {
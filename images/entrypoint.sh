@@ -0,0 +1,21 @@
+#!/bin/bash
+
+# Sync the project files listed by the CLI into the working directory, or copy the whole project when there is no list
+if [ -f /input-files ]; then
+    # Remove the files of the previous sync that are no longer part of the project
+    if [ -f /sync/files ]; then
+        sort /sync/files > /tmp/previous-files
+        sort /input-files > /tmp/current-files
+        comm -23 /tmp/previous-files /tmp/current-files | while IFS= read -r file; do
+            rm -rf "./$file"
+        done
+    fi
+    # Only the files whose content changed since the last sync are copied
+    rsync -a -r --checksum --files-from=/input-files /input/ ./
+    cp /input-files /sync/files
+else
+    rsync -a /input/ ./
+fi
+
+# Execute the command passed to the container
+exec "$@"